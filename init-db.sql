@@ -1,16 +1,91 @@
 -- Initialize database schema
+-- Deals are range-partitioned by month of deal_timestamp (deals_yyyy_MM), so time-range
+-- queries only read the months they ask for. The application creates the partitions
+-- ahead of time and before importing older months; deals_default only catches rows
+-- written around it. A database with a plain deals table is converted by
+-- migrate-deals-partitioned.sql.
 CREATE TABLE IF NOT EXISTS deals (
-    id BIGSERIAL PRIMARY KEY,
-    deal_unique_id VARCHAR(255) UNIQUE NOT NULL,
+    deal_unique_id VARCHAR(255) NOT NULL,
     from_currency_iso_code VARCHAR(3) NOT NULL,
     to_currency_iso_code VARCHAR(3) NOT NULL,
     deal_timestamp TIMESTAMP NOT NULL,
     deal_amount DECIMAL(19, 2) NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Keys of a partitioned table must contain the partition column; deal_ids keeps the ids unique
+    PRIMARY KEY (deal_unique_id, deal_timestamp)
+) PARTITION BY RANGE (deal_timestamp);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'deals'::regclass) THEN
+        CREATE TABLE IF NOT EXISTS deals_default PARTITION OF deals DEFAULT;
+    END IF;
+END $$;
 
--- Create index for faster lookups
-CREATE INDEX IF NOT EXISTS idx_deal_unique_id ON deals(deal_unique_id);
-CREATE INDEX IF NOT EXISTS idx_deal_timestamp ON deals(deal_timestamp);
-CREATE INDEX IF NOT EXISTS idx_from_currency ON deals(from_currency_iso_code);
+-- Keyset pagination and exports walk deals in this order
+CREATE INDEX IF NOT EXISTS idx_deals_timestamp_id ON deals(deal_timestamp, deal_unique_id);
+-- Currency-pair queries: equality on the pair, then the same key order as above
+CREATE INDEX IF NOT EXISTS idx_deals_pair_timestamp
+    ON deals(from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_unique_id);
 CREATE INDEX IF NOT EXISTS idx_to_currency ON deals(to_currency_iso_code);
+
+-- Every stored deal id. Statements inserting deals claim the id here first and only
+-- insert the deals whose claim succeeded; anything writing deals directly must do the same
+CREATE TABLE IF NOT EXISTS deal_ids (
+    deal_unique_id VARCHAR(255) PRIMARY KEY
+);
+
+-- Per currency pair and MINUTE/HOUR/DAY bucket totals, extended by the statements that insert deals
+CREATE TABLE IF NOT EXISTS deal_stats (
+    granularity VARCHAR(6) NOT NULL,
+    from_currency_iso_code VARCHAR(3) NOT NULL,
+    to_currency_iso_code VARCHAR(3) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    deal_count BIGINT NOT NULL,
+    amount_sum DECIMAL(38, 2) NOT NULL,
+    amount_min DECIMAL(19, 2) NOT NULL,
+    amount_max DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (granularity, from_currency_iso_code, to_currency_iso_code, bucket_start)
+);
+
+-- Asynchronous CSV imports and their last persisted progress
+CREATE TABLE IF NOT EXISTS import_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    file_name VARCHAR(255),
+    file_path VARCHAR(1024),
+    file_checksum VARCHAR(64),
+    total_bytes BIGINT NOT NULL DEFAULT 0,
+    bytes_read BIGINT NOT NULL DEFAULT 0,
+    rows_processed BIGINT NOT NULL DEFAULT 0,
+    inserted BIGINT NOT NULL DEFAULT 0,
+    duplicates BIGINT NOT NULL DEFAULT 0,
+    invalid BIGINT NOT NULL DEFAULT 0,
+    checkpoint_line BIGINT NOT NULL DEFAULT 0,
+    checkpoint_offset BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(2000),
+    created_at TIMESTAMP NOT NULL,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+-- Jobs answered from import_batches have no spooled file
+ALTER TABLE import_jobs ALTER COLUMN file_path DROP NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_import_jobs_status ON import_jobs(status);
+CREATE INDEX IF NOT EXISTS idx_import_jobs_file_checksum ON import_jobs(file_checksum);
+
+-- Files imported to the end, by SHA-256 of their bytes; a byte-identical re-upload gets
+-- the stored summary instead of being imported again
+CREATE TABLE IF NOT EXISTS import_batches (
+    fingerprint VARCHAR(64) PRIMARY KEY,
+    file_name VARCHAR(255),
+    file_size BIGINT NOT NULL DEFAULT 0,
+    inserted BIGINT NOT NULL DEFAULT 0,
+    duplicates BIGINT NOT NULL DEFAULT 0,
+    invalid BIGINT NOT NULL DEFAULT 0,
+    elapsed_millis BIGINT NOT NULL DEFAULT 0,
+    -- JSON array of the reported errors
+    errors TEXT,
+    imported_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,81 @@
+-- Converts a plain deals table, as created by earlier versions of init-db.sql or by
+-- Hibernate, into the monthly partitioned layout of init-db.sql and fills deal_ids.
+-- Runs in one transaction and blocks all access to deals while it copies, so stop the
+-- application and take a backup first:
+--   psql -v ON_ERROR_STOP=1 -U fx_user -d fx_deals_db -f migrate-deals-partitioned.sql
+BEGIN;
+
+LOCK TABLE deals IN ACCESS EXCLUSIVE MODE;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'deals'::regclass) THEN
+        RAISE EXCEPTION 'deals is already partitioned';
+    END IF;
+END $$;
+
+ALTER TABLE deals RENAME TO deals_unpartitioned;
+
+CREATE TABLE deals (
+    deal_unique_id VARCHAR(255) NOT NULL,
+    from_currency_iso_code VARCHAR(3) NOT NULL,
+    to_currency_iso_code VARCHAR(3) NOT NULL,
+    deal_timestamp TIMESTAMP NOT NULL,
+    deal_amount DECIMAL(19, 2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (deal_timestamp);
+
+CREATE TABLE deals_default PARTITION OF deals DEFAULT;
+
+-- A partition for every month that has deals, and for this month and the next three
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR month IN
+        SELECT DISTINCT date_trunc('month', deal_timestamp)::date FROM deals_unpartitioned
+        UNION
+        SELECT generate_series(date_trunc('month', now()), date_trunc('month', now()) + INTERVAL '3 months',
+                               INTERVAL '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF deals FOR VALUES FROM (%L) TO (%L)',
+                       'deals_' || to_char(month, 'YYYY_MM'), month, (month + INTERVAL '1 month')::date);
+    END LOOP;
+END $$;
+
+-- Tables created by Hibernate have no created_at
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'deals_unpartitioned' AND column_name = 'created_at') THEN
+        INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount, created_at)
+        SELECT deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount, created_at
+        FROM deals_unpartitioned;
+    ELSE
+        INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount)
+        SELECT deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount
+        FROM deals_unpartitioned;
+    END IF;
+END $$;
+
+CREATE TABLE IF NOT EXISTS deal_ids (
+    deal_unique_id VARCHAR(255) PRIMARY KEY
+);
+INSERT INTO deal_ids (deal_unique_id)
+SELECT deal_unique_id FROM deals_unpartitioned
+ON CONFLICT DO NOTHING;
+
+-- Dropped before the indexes are created, which then get the names init-db.sql uses
+DROP TABLE deals_unpartitioned;
+
+-- Indexes are built once the rows are in, rather than row by row
+ALTER TABLE deals ADD PRIMARY KEY (deal_unique_id, deal_timestamp);
+CREATE INDEX idx_deals_timestamp_id ON deals(deal_timestamp, deal_unique_id);
+CREATE INDEX idx_deals_pair_timestamp
+    ON deals(from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_unique_id);
+CREATE INDEX idx_to_currency ON deals(to_currency_iso_code);
+
+COMMIT;
+
+ANALYZE deals;
+ANALYZE deal_ids;
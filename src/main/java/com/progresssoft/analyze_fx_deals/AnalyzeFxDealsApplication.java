@@ -3,11 +3,13 @@ package com.progresssoft.analyze_fx_deals;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 import jakarta.validation.Validator;
 
 @SpringBootApplication
+@EnableScheduling
 public class AnalyzeFxDealsApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,69 @@
+package com.progresssoft.analyze_fx_deals.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Caffeine cache of deals by id. Caffeine bounds the size with W-TinyLFU eviction, so
+ * a scan of one-off ids does not flush the frequently read ones. Ids found missing are
+ * cached too, for a shorter time than found deals. Actuator publishes hit, miss and
+ * eviction counts as the cache.gets and cache.evictions metrics.
+ */
+@Configuration
+@EnableCaching
+public class DealCacheConfig {
+
+    public static final String DEALS_BY_ID = "dealsById";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${deals.cache.max-size:100000}") long maxSize,
+                                     @Value("${deals.cache.ttl-seconds:600}") long ttlSeconds,
+                                     @Value("${deals.cache.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(DEALS_BY_ID);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new DealExpiry(Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(negativeTtlSeconds)))
+                .recordStats());
+        return cacheManager;
+    }
+
+    /**
+     * Expires found deals after the ttl and missing ids after the negative ttl,
+     * counting from the last write either way.
+     */
+    static final class DealExpiry implements Expiry<Object, Object> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        DealExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return value == NullValue.INSTANCE ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
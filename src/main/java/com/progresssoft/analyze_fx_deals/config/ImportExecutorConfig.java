@@ -0,0 +1,94 @@
+package com.progresssoft.analyze_fx_deals.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Thread pools of the import pipeline: CPU-bound parse/validate workers, a small
+ * pool of writers that bounds how many DB connections imports hold at once, and the
+ * runners of asynchronous import jobs and inbox files. With spring.threads.virtual.enabled on Java 21
+ * the writers become virtual threads; the workers stay platform threads since parsing
+ * keeps a core busy and gains nothing from more threads than cores.
+ */
+@Configuration
+public class ImportExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService importWorkerExecutor(@Value("${deals.import.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("deal-import-worker-"));
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ExecutorService importWriterExecutor(@Value("${deals.import.writer-threads:2}") int writerThreads) {
+        return Executors.newFixedThreadPool(writerThreads, new CustomizableThreadFactory("deal-import-writer-"));
+    }
+
+    /**
+     * One new virtual thread per chunk write, none kept around: a write blocked on the
+     * database parks instead of holding a pool thread, so concurrent imports never wait
+     * on each other for a writer. The DB concurrency limiter bounds connections instead.
+     */
+    @Bean(name = "importWriterExecutor", destroyMethod = "shutdownNow")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public ExecutorService virtualImportWriterExecutor() {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                new VirtualThreadTaskExecutor("deal-import-writer-").getVirtualThreadFactory());
+    }
+
+    /**
+     * Runs asynchronous import jobs; submissions beyond the queue capacity are rejected
+     * rather than piling up spooled uploads on disk.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService importJobExecutor(@Value("${deals.import.jobs.max-concurrent:2}") int maxConcurrent,
+                                             @Value("${deals.import.jobs.queue-capacity:20}") int queueCapacity) {
+        return new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("deal-import-job-"));
+    }
+
+    /**
+     * Imports files from the inbox directory, one per thread. Waiting files stay queued
+     * here; they are already on disk, so nothing piles up in memory.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService importInboxExecutor(@Value("${deals.import.inbox.max-concurrent-files:2}") int maxConcurrentFiles) {
+        return Executors.newFixedThreadPool(maxConcurrentFiles, new CustomizableThreadFactory("deal-import-inbox-"));
+    }
+
+    /**
+     * Pool size, active threads and queue depth of the import pools as executor.*
+     * metrics tagged name=deal-import-worker|writer|job|inbox: a backlog in front of the
+     * workers means parsing is the bottleneck, one in front of the writers the database.
+     */
+    @Bean
+    public MeterBinder importExecutorMetrics(@Qualifier("importWorkerExecutor") ExecutorService importWorkerExecutor,
+                                             @Qualifier("importWriterExecutor") ExecutorService importWriterExecutor,
+                                             @Qualifier("importJobExecutor") ExecutorService importJobExecutor,
+                                             @Qualifier("importInboxExecutor") ExecutorService importInboxExecutor) {
+        return registry -> {
+            new ExecutorServiceMetrics(importWorkerExecutor, "deal-import-worker", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(importWriterExecutor, "deal-import-writer", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(importJobExecutor, "deal-import-job", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(importInboxExecutor, "deal-import-inbox", Tags.empty()).bindTo(registry);
+        };
+    }
+}
@@ -1,38 +1,243 @@
 package com.progresssoft.analyze_fx_deals.controller;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progresssoft.analyze_fx_deals.dto.DealPageDTO;
+import com.progresssoft.analyze_fx_deals.dto.DealScanDTO;
+import com.progresssoft.analyze_fx_deals.dto.DealStatsDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportJobDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
 import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+import com.progresssoft.analyze_fx_deals.parser.DealCsvWriter;
+import com.progresssoft.analyze_fx_deals.repository.DealFilter;
 
+import com.progresssoft.analyze_fx_deals.service.DealColumnStore;
 import com.progresssoft.analyze_fx_deals.service.DealService;
+import com.progresssoft.analyze_fx_deals.service.DealStatsService;
+import com.progresssoft.analyze_fx_deals.service.ImportJobService;
+import com.progresssoft.analyze_fx_deals.service.ImportListener;
+import com.progresssoft.analyze_fx_deals.service.LocalImportFiles;
 
 @RestController
 @RequestMapping("/api/v1/deals")
 public class DealController {
-    
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     @Autowired
     private DealService dealService;
 
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private DealStatsService dealStatsService;
+
+    @Autowired
+    private DealColumnStore dealColumnStore;
+
+    @Autowired
+    private LocalImportFiles localImportFiles;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/import")
-    public ResponseEntity<List<Deal>> importDealsFile(@RequestParam("file") MultipartFile file) throws Exception{
-        List<Deal> deals = dealService.importDeals(file);
-        return ResponseEntity.ok().body(deals);
+    public ResponseEntity<ImportSummaryDTO> importDealsFile(@RequestParam("file") MultipartFile file) throws Exception{
+        ImportSummaryDTO summary = dealService.importDeals(file, ImportListener.NONE);
+        return ResponseEntity.ok().body(summary);
+    }
+
+    /**
+     * Imports the raw request body while it is still arriving, e.g. sent with chunked
+     * transfer encoding. Unlike a multipart upload it is not spooled to a temp file
+     * before the import starts. The format comes from the Content-Type, else the
+     * fileName parameter, else the content.
+     */
+    @PutMapping("/import/stream")
+    public ResponseEntity<ImportSummaryDTO> importDealsBody(InputStream body,
+                                                            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                            @RequestParam(required = false) String fileName) throws Exception {
+        ImportSummaryDTO summary = dealService.importDeals(body, contentType, fileName, ImportListener.NONE);
+        return ResponseEntity.ok().body(summary);
+    }
+
+    /**
+     * Imports a file that is already on this host, from a directory allowed by
+     * {@code deals.import.local.dirs}, without sending it over HTTP.
+     */
+    @PostMapping("/import/local")
+    public ResponseEntity<ImportSummaryDTO> importLocalFile(@RequestParam String path) throws Exception {
+        ImportSummaryDTO summary = dealService.importFile(localImportFiles.resolve(path), ImportListener.NONE);
+        return ResponseEntity.ok().body(summary);
+    }
+
+    /**
+     * Writes one JSON line per data row as soon as its outcome is known, followed
+     * by the summary line, so the client sees progress and the server keeps nothing.
+     */
+    @PostMapping(value = "/import", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamImportDealsFile(@RequestParam("file") MultipartFile file) {
+        StreamingResponseBody body = out -> {
+            try {
+                ImportSummaryDTO summary = dealService.importDeals(file, outcome -> writeLine(out, outcome));
+                writeLine(out, summary);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                writeLine(out, Map.of("error", String.valueOf(e.getMessage())));
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Queues the import and returns at once, so large uploads do not hold the request
+     * open; progress is polled from the job location.
+     */
+    @PostMapping(value = "/import", params = "async=true")
+    public ResponseEntity<ImportJobDTO> submitImportJob(@RequestParam("file") MultipartFile file) throws Exception{
+        ImportJobDTO job = importJobService.submit(file);
+        return ResponseEntity.accepted().location(URI.create("/api/v1/deals/import/" + job.getId())).body(job);
+    }
+
+    /**
+     * Continues a failed or interrupted job from its last checkpoint.
+     */
+    @PostMapping("/import/{jobId}/resume")
+    public ResponseEntity<ImportJobDTO> resumeImportJob(@PathVariable String jobId) throws Exception{
+        ImportJobDTO job = importJobService.resume(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().location(URI.create("/api/v1/deals/import/" + job.getId())).body(job);
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String jobId) {
+        ImportJobDTO job = importJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().body(job);
+    }
+
+    @PostMapping("/import/bulk")
+    public ResponseEntity<ImportSummaryDTO> bulkImportDealsFile(@RequestParam("file") MultipartFile file) throws Exception{
+        ImportSummaryDTO summary = dealService.bulkImportDeals(file);
+        return ResponseEntity.ok().body(summary);
     }
 
+    /**
+     * One page of deals in (dealTimestamp, dealUniqueId) order; follow nextCursor for the next one.
+     * Filters are optional and must be repeated with the cursor; since is inclusive, until exclusive.
+     */
     @GetMapping
-    public ResponseEntity<List<Deal>> getAllDeals() {
-        List<Deal> deals = dealService.getAllDeals();
-        return ResponseEntity.ok().body(deals);
+    public ResponseEntity<DealPageDTO> getDeals(@RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+                                                @RequestParam(required = false) BigDecimal minAmount,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit) {
+        DealPageDTO page = dealService.getDeals(new DealFilter(from, to, since, until, minAmount), cursor, limit);
+        return ResponseEntity.ok().body(page);
+    }
+
+    /**
+     * Count, sum, min, max and average amount per currency pair and time bucket, served
+     * from the in-memory rollup. Buckets are returned when their start lies in [since, until).
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<DealStatsDTO>> getStats(@RequestParam(required = false) String from,
+                                                       @RequestParam(required = false) String to,
+                                                       @RequestParam(defaultValue = "HOUR") StatsGranularity granularity,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until) {
+        List<DealStatsDTO> stats = dealStatsService.getStats(from, to, granularity, since, until);
+        return ResponseEntity.ok().body(stats);
+    }
+
+    /**
+     * Count, sum, min and max amount of the deals matching the filter, scanned from the
+     * columnar store; 503 while it is disabled or still loading.
+     */
+    @GetMapping("/scan")
+    public ResponseEntity<DealScanDTO> scanDeals(@RequestParam(required = false) String from,
+                                                 @RequestParam(required = false) String to,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until) {
+        if (!dealColumnStore.isAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().body(dealColumnStore.scan(from, to, since, until));
+    }
+
+    /**
+     * Streams every deal as NDJSON or CSV straight from a database cursor, so the
+     * response size is not bounded by memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportDeals(@RequestParam(defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+                StringBuilder row = new StringBuilder(128);
+                writer.write(DealCsvWriter.HEADER);
+                dealService.exportDeals(deal -> {
+                    row.setLength(0);
+                    DealCsvWriter.appendRow(row, deal);
+                    writer.append(row);
+                });
+                writer.flush();
+            };
+            return ResponseEntity.ok()
+                    .contentType(TEXT_CSV)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"deals.csv\"")
+                    .body(body);
+        }
+        if (!"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, EXPORT_BUFFER_SIZE);
+            dealService.exportDeals(deal -> writeLine(buffered, deal));
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
@@ -41,4 +246,9 @@ public class DealController {
         return ResponseEntity.ok().body(deal);
     }
 
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
 }
@@ -0,0 +1,18 @@
+package com.progresssoft.analyze_fx_deals.dto;
+
+import java.util.List;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DealPageDTO {
+    private List<Deal> deals;
+    // Opaque position to pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.progresssoft.analyze_fx_deals.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DealScanDTO {
+    private long count;
+    private BigDecimal sum;
+    // null when no deal matches
+    private BigDecimal min;
+    private BigDecimal max;
+    private long rowsScanned;
+}
@@ -0,0 +1,26 @@
+package com.progresssoft.analyze_fx_deals.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DealStatsDTO {
+    private String fromCurrencyIsoCode;
+    private String toCurrencyIsoCode;
+    private StatsGranularity granularity;
+    private LocalDateTime bucketStart;
+    private long count;
+    private BigDecimal sum;
+    private BigDecimal min;
+    private BigDecimal max;
+    // sum / count; sums and counts of adjacent buckets add up, averages do not
+    private BigDecimal average;
+}
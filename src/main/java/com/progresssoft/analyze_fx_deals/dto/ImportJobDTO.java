@@ -0,0 +1,33 @@
+package com.progresssoft.analyze_fx_deals.dto;
+
+import java.time.LocalDateTime;
+
+import com.progresssoft.analyze_fx_deals.model.ImportJob;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobDTO {
+    private String id;
+    private ImportJob.Status status;
+    private String fileName;
+    private long totalBytes;
+    private long bytesRead;
+    private long rowsProcessed;
+    private long inserted;
+    private long duplicates;
+    private long invalid;
+    // Next line to import if the job is resumed
+    private long checkpointLine;
+    private double rowsPerSecond;
+    // Estimated from the share of the file read so far; null until the job has made progress
+    private Long etaSeconds;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.progresssoft.analyze_fx_deals.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportSummaryDTO {
+    private long inserted;
+    private long duplicates;
+    private long invalid;
+    private long elapsedMillis;
+    // Only the first few errors are kept so the summary stays small for huge files
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.progresssoft.analyze_fx_deals.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Written next to a file the inbox has imported, as {@code <file>.report.json}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InboxReportDTO {
+
+    public enum Status { PROCESSED, FAILED }
+
+    private String fileName;
+    private Status status;
+    private LocalDateTime finishedAt;
+    // null when the import failed
+    private ImportSummaryDTO summary;
+    // null when the import ran to the end, even with invalid rows
+    private String error;
+}
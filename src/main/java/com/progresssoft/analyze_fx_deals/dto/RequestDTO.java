@@ -3,6 +3,8 @@ package com.progresssoft.analyze_fx_deals.dto;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import jakarta.validation.constraints.*;
+import com.progresssoft.analyze_fx_deals.validation.CurrencyCode;
+import com.progresssoft.analyze_fx_deals.validation.DifferentCurrencies;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,6 +12,7 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@DifferentCurrencies
 public class RequestDTO {
     @NotBlank(message = "Deal ID cannot be blank")
     @Size(min = 1 , max=50 , message = "Deal ID must be between 1 and 50 characters")
@@ -17,10 +20,12 @@ public class RequestDTO {
 
     @NotBlank(message = "From currency cannot be blank")
     @Size(min = 3 ,max = 3 ,message = "Currency code must be exactly 3 letters")
+    @CurrencyCode
     private String fromCurrencyIsoCode;
 
     @NotBlank(message = "To currency cannot be blank")
     @Size(min = 3 ,max = 3 ,message = "Currency code must be exactly 3 letters")
+    @CurrencyCode
     private String toCurrencyIsoCode;
 
     @NotNull(message = "Deal timestamp cannot be null")
@@ -0,0 +1,18 @@
+package com.progresssoft.analyze_fx_deals.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RowOutcomeDTO {
+
+    public enum Status { IMPORTED, DUPLICATE, INVALID }
+
+    private long line;
+    private String dealUniqueId;
+    private Status status;
+    private String message;
+}
@@ -6,13 +6,20 @@ import java.time.LocalDateTime;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "deals")
+// Keyset pagination and exports walk deals in (deal_timestamp, deal_unique_id) order;
+// currency-pair queries walk the same order within one pair
+@Table(name = "deals", indexes = {
+        @Index(name = "idx_deals_timestamp_id", columnList = "deal_timestamp, deal_unique_id"),
+        @Index(name = "idx_deals_pair_timestamp",
+                columnList = "from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_unique_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,26 @@
+package com.progresssoft.analyze_fx_deals.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Every stored deal id. A partitioned deals table cannot keep deal_unique_id unique
+ * across its partitions, so the statements that insert deals claim each id here first
+ * and only insert the deals whose claim succeeded. Only written through
+ * DealBatchRepository and DealCopyRepository; the mapping is here so that ddl-auto
+ * creates the table.
+ */
+@Entity
+@Table(name = "deal_ids")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DealId {
+
+    @Id
+    private String dealUniqueId;
+}
@@ -0,0 +1,68 @@
+package com.progresssoft.analyze_fx_deals.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persistent rollup of the deals of one currency pair in one time bucket. Rows are
+ * only written by the same statements that insert the deals, through
+ * DealStatsRepository; the mapping is here so that ddl-auto creates the table.
+ */
+@Entity
+@Table(name = "deal_stats")
+@IdClass(DealStats.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DealStats {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private StatsGranularity granularity;
+        private String fromCurrencyIsoCode;
+        private String toCurrencyIsoCode;
+        private LocalDateTime bucketStart;
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 6)
+    private StatsGranularity granularity;
+
+    @Id
+    @Column(length = 3)
+    private String fromCurrencyIsoCode;
+
+    @Id
+    @Column(length = 3)
+    private String toCurrencyIsoCode;
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private long dealCount;
+
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal amountSum;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amountMin;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amountMax;
+}
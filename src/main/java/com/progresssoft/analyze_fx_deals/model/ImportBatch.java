@@ -0,0 +1,41 @@
+package com.progresssoft.analyze_fx_deals.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A file that was imported to the end, keyed by the SHA-256 of its bytes as uploaded,
+ * with the summary the import returned.
+ */
+@Entity
+@Table(name = "import_batches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportBatch {
+
+    @Id
+    @Column(length = 64)
+    private String fingerprint;
+
+    private String fileName;
+    private long fileSize;
+    private long inserted;
+    private long duplicates;
+    private long invalid;
+    private long elapsedMillis;
+
+    // The reported errors as a JSON array; messages may quote fields with line breaks
+    @Column(columnDefinition = "TEXT")
+    private String errors;
+
+    @Column(nullable = false)
+    private LocalDateTime importedAt;
+}
@@ -0,0 +1,69 @@
+package com.progresssoft.analyze_fx_deals.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An asynchronous CSV import. The checkpoint and the counters are saved together after
+ * committed chunks, so after a crash the job can be resumed from the checkpoint with
+ * counters that match it.
+ */
+@Entity
+@Table(name = "import_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, INTERRUPTED
+    }
+
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private String fileName;
+
+    // Spooled copy of the upload, read by the job after the request has returned; null
+    // for a job answered from import_batches
+    @Column(length = 1024)
+    private String filePath;
+
+    // SHA-256 of the file, used to recognise a re-submitted upload
+    @Column(length = 64)
+    private String fileChecksum;
+
+    private long totalBytes;
+    private long bytesRead;
+    private long rowsProcessed;
+    private long inserted;
+    private long duplicates;
+    private long invalid;
+
+    // First line not committed yet and its byte offset; 0 until the first chunk is committed
+    private long checkpointLine;
+    private long checkpointOffset;
+
+    @Column(length = 2000)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+}
@@ -0,0 +1,71 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Some chars followed by the UTF-8 text of a byte buffer, decoded straight into the
+ * caller's array, so the bytes of a mapped file are never copied into a heap buffer
+ * first. Malformed input is replaced, as {@link java.io.InputStreamReader} does.
+ */
+final class ByteBufferReader extends Reader {
+
+    private final char[] prefix;
+    private int prefixPos;
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // A surrogate pair decoded for a read of a single char
+    private final CharBuffer spill = CharBuffer.allocate(2).flip();
+    private boolean flushed;
+
+    ByteBufferReader(char[] prefix, ByteBuffer bytes) {
+        this.prefix = prefix;
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (prefixPos < prefix.length) {
+            int n = Math.min(len, prefix.length - prefixPos);
+            System.arraycopy(prefix, prefixPos, cbuf, off, n);
+            prefixPos += n;
+            return n;
+        }
+        if (spill.hasRemaining()) {
+            cbuf[off] = spill.get();
+            return 1;
+        }
+        if (flushed) {
+            return -1;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        decoder.decode(bytes, out, true);
+        if (out.position() == off && bytes.hasRemaining()) {
+            // Too little room for a surrogate pair
+            spill.clear();
+            decoder.decode(bytes, spill, true);
+            spill.flip();
+            cbuf[off] = spill.get();
+            return 1;
+        }
+        if (!bytes.hasRemaining()) {
+            decoder.flush(out);
+            flushed = true;
+        }
+        int n = out.position() - off;
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() {
+    }
+}
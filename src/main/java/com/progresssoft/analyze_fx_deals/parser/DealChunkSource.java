@@ -0,0 +1,15 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Line-aligned chunks of a deal file, in file order, for the import pipeline.
+ */
+public interface DealChunkSource extends Closeable {
+
+    /**
+     * @return the next chunk, or null once the input is exhausted
+     */
+    DealChunkSplitter.Chunk next() throws IOException;
+}
@@ -0,0 +1,236 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Cuts a deal CSV or NDJSON stream into line-aligned chunks that can be parsed independently.
+ *
+ * <p>Only quotes and line feeds are looked at, so this is much cheaper than parsing;
+ * a line feed inside a quoted CSV field never ends a chunk. Each CSV chunk is prefixed
+ * with the header line so that {@link DealCsvParser} maps its columns the same way.
+ * NDJSON has neither a header nor line feeds inside records, so its quotes are not tracked.
+ *
+ * <p>The splitter also tracks where each chunk ends in the original file, as a line
+ * number and a byte offset assuming UTF-8, so that an import can later be resumed there.
+ */
+public class DealChunkSplitter implements DealChunkSource {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final char[] LINE_FEED = {'\n'};
+
+    private final Reader reader;
+    private final DealFormat format;
+    private final int linesPerChunk;
+    private final char[] buf = new char[READ_BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    private boolean started;
+    private char[] header = new char[0];
+    private long nextLine = 1;
+    private long offset;
+    private long sequence;
+    private final ImportCheckpoint start;
+
+    public DealChunkSplitter(Reader reader, int linesPerChunk) {
+        this(reader, DealFormat.CSV, linesPerChunk, null);
+    }
+
+    /**
+     * @param start where the data following the header line of the reader is in the
+     *              original file, when the reader is the header followed by the rest of
+     *              the file from a checkpoint; for NDJSON, the reader is the rest of the
+     *              file alone. null for a whole file
+     */
+    public DealChunkSplitter(Reader reader, DealFormat format, int linesPerChunk, ImportCheckpoint start) {
+        this.reader = reader;
+        this.format = format;
+        this.linesPerChunk = Math.max(linesPerChunk, 1);
+        this.start = start;
+    }
+
+    @Override
+    public Chunk next() throws IOException {
+        if (!started) {
+            started = true;
+            if (format.hasHeader()) {
+                CharBuffer line = new CharBuffer(256);
+                if (readLines(line, 1) == 0) {
+                    return null;
+                }
+                header = line.toArray();
+            }
+            if (start != null) {
+                nextLine = start.getLine();
+                offset = start.getOffset();
+            }
+        }
+        CharBuffer chunk = new CharBuffer(header.length + 64 * linesPerChunk);
+        chunk.append(header, 0, header.length);
+        long firstLine = nextLine;
+        if (readLines(chunk, linesPerChunk) == 0) {
+            return null;
+        }
+        return new Chunk(sequence++, format, firstLine, chunk.chars, chunk.length, new ImportCheckpoint(nextLine, offset));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Copies up to {@code lines} lines, each with its terminating line feed, into out.
+     *
+     * @return the number of physical lines copied, counting line feeds inside quotes
+     */
+    private long readLines(CharBuffer out, int lines) throws IOException {
+        int startLength = out.length;
+        long physical = 0;
+        int ended = 0;
+        boolean quoting = format == DealFormat.CSV;
+        boolean inQuotes = false;
+        while (ended < lines && (pos < limit || fill())) {
+            int from = pos;
+            long extraBytes = 0;
+            while (pos < limit && ended < lines) {
+                char c = buf[pos++];
+                if (c == '"' && quoting) {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n') {
+                    physical++;
+                    if (!inQuotes) {
+                        ended++;
+                    }
+                } else if (c >= 0x80) {
+                    // UTF-8 length minus one; each half of a surrogate pair accounts for 2 of its 4 bytes
+                    extraBytes += c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+                }
+            }
+            out.append(buf, from, pos - from);
+            offset += pos - from + extraBytes;
+        }
+        if (out.length > startLength && out.chars[out.length - 1] != '\n') {
+            // last line of the input without a trailing line feed
+            out.append(LINE_FEED, 0, 1);
+            physical++;
+        }
+        nextLine += physical;
+        return physical;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int read = reader.read(buf, 0, buf.length);
+        if (read <= 0) {
+            eof = true;
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Whole data lines, starting at physical line {@code firstLine}, after the header
+     * line for CSV. The lines are either copied chars or, from
+     * {@link MappedDealChunkSplitter}, UTF-8 bytes of the file decoded when read.
+     */
+    public static class Chunk {
+
+        private final long sequence;
+        private final DealFormat format;
+        private final long firstLine;
+        private final char[] data;
+        private final int length;
+        private final ByteBuffer bytes;
+        private final ImportCheckpoint end;
+
+        Chunk(long sequence, DealFormat format, long firstLine, char[] data, int length, ImportCheckpoint end) {
+            this(sequence, format, firstLine, data, length, null, end);
+        }
+
+        /**
+         * @param header the header line, or nothing, read before bytes
+         */
+        Chunk(long sequence, DealFormat format, long firstLine, char[] header, ByteBuffer bytes, ImportCheckpoint end) {
+            this(sequence, format, firstLine, header, header.length, bytes, end);
+        }
+
+        private Chunk(long sequence, DealFormat format, long firstLine, char[] data, int length, ByteBuffer bytes,
+                      ImportCheckpoint end) {
+            this.sequence = sequence;
+            this.format = format;
+            this.firstLine = firstLine;
+            this.data = data;
+            this.length = length;
+            this.bytes = bytes;
+            this.end = end;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getFirstLine() {
+            return firstLine;
+        }
+
+        /**
+         * @return the position right after the last line of this chunk
+         */
+        public ImportCheckpoint getEnd() {
+            return end;
+        }
+
+        /**
+         * @return a CSV parser over this chunk reporting the original line numbers
+         */
+        public DealCsvParser parser(char delimiter) {
+            return new DealCsvParser(open(), delimiter, true, firstLine - 1);
+        }
+
+        /**
+         * @param delimiter the CSV delimiter, unused for other formats
+         * @return a reader of the chunk's format reporting the original line numbers
+         */
+        public DealReader reader(char delimiter) {
+            return format.reader(open(), delimiter, format.hasHeader() ? firstLine - 1 : firstLine);
+        }
+
+        private Reader open() {
+            // Each reader gets its own position in the shared mapping
+            return bytes == null ? new CharArrayReader(data, 0, length)
+                    : new ByteBufferReader(data, bytes.duplicate());
+        }
+    }
+
+    private static final class CharBuffer {
+
+        private char[] chars;
+        private int length;
+
+        CharBuffer(int capacity) {
+            chars = new char[capacity];
+        }
+
+        void append(char[] src, int off, int len) {
+            if (length + len > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + len));
+            }
+            System.arraycopy(src, off, chars, length, len);
+            length += len;
+        }
+
+        char[] toArray() {
+            return Arrays.copyOf(chars, length);
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Streaming tokenizer for deal CSV files.
+ *
+ * <p>Records are scanned in place inside one reusable char buffer and only the
+ * field offsets are kept, so moving to the next record allocates nothing. Field
+ * values are converted on demand: timestamps and amounts are parsed straight from
+ * the buffer, and 3-letter upper case currency codes are shared across rows.
+ *
+ * <p>Supports RFC 4180 quoting (including delimiters, doubled quotes and line
+ * breaks inside quoted fields), a configurable delimiter, and an optional header
+ * row that is matched against the deal field names so columns may come in any
+ * order. Blank lines are skipped. Not thread safe.
+ */
+public class DealCsvParser implements DealReader {
+
+    public static final char DEFAULT_DELIMITER = ',';
+
+    static final String[] FIELD_NAMES = {
+            "dealUniqueId", "fromCurrencyIsoCode", "toCurrencyIsoCode", "dealTimestamp", "dealAmount"
+    };
+    private static final int ID = 0;
+    private static final int FROM = 1;
+    private static final int TO = 2;
+    private static final int TIMESTAMP = 3;
+    private static final int AMOUNT = 4;
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // A long holds 18 decimal digits without overflow
+    private static final int MAX_FAST_DIGITS = 18;
+    // Never an unscaled amount of at most 18 digits
+    static final long NOT_PLAIN = Long.MIN_VALUE;
+
+    private static final String[] CURRENCY_CODES = new String[26 * 26 * 26];
+
+    private final Reader reader;
+    private final char delimiter;
+    private final boolean header;
+
+    private char[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    // Field bounds are relative to recordStart so they survive buffer compaction
+    private int recordStart;
+    private int[] fieldStarts = new int[8];
+    private int[] fieldEnds = new int[8];
+    private int fieldCount;
+    private int expectedFields = FIELD_NAMES.length;
+    private final int[] columns = {ID, FROM, TO, TIMESTAMP, AMOUNT};
+
+    private long lineNumber;
+    private long nextLineNumber = 1;
+    private boolean started;
+
+    public DealCsvParser(Reader reader) {
+        this(reader, DEFAULT_DELIMITER, true);
+    }
+
+    public DealCsvParser(Reader reader, char delimiter, boolean header) {
+        this(reader, delimiter, header, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param firstLineNumber the line number to report for the first line of the reader,
+     *                        for readers over a slice of a larger file
+     */
+    public DealCsvParser(Reader reader, char delimiter, boolean header, long firstLineNumber) {
+        this(reader, delimiter, header, DEFAULT_BUFFER_SIZE);
+        this.nextLineNumber = firstLineNumber;
+    }
+
+    DealCsvParser(Reader reader, char delimiter, boolean header, int bufferSize) {
+        if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Invalid CSV delimiter: " + delimiter);
+        }
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.header = header;
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * Advances to the next data record.
+     *
+     * @return false once the input is exhausted
+     * @throws IllegalArgumentException if the record does not have the expected number of fields
+     */
+    @Override
+    public boolean nextRecord() throws IOException {
+        if (!started) {
+            started = true;
+            if (header) {
+                if (!scanRecord()) {
+                    return false;
+                }
+                mapHeader();
+            }
+        }
+        if (!scanRecord()) {
+            return false;
+        }
+        if (fieldCount != expectedFields) {
+            throw new IllegalArgumentException("Invalid row format");
+        }
+        return true;
+    }
+
+    @Override
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public String getDealUniqueId() {
+        return text(columns[ID]);
+    }
+
+    public String getFromCurrencyIsoCode() {
+        return currency(columns[FROM]);
+    }
+
+    public String getToCurrencyIsoCode() {
+        return currency(columns[TO]);
+    }
+
+    public LocalDateTime getDealTimestamp() {
+        int field = columns[TIMESTAMP];
+        return parseTimestamp(buf, recordStart + fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    public BigDecimal getDealAmount() {
+        int field = columns[AMOUNT];
+        return parseAmount(buf, recordStart + fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    /**
+     * The current record as one compact value. Fails like the single getters do, but
+     * keeps the timestamp and amount as numbers instead of creating a LocalDateTime and
+     * a BigDecimal.
+     */
+    @Override
+    public DealRecord getRecord() {
+        int timestamp = columns[TIMESTAMP];
+        int amount = columns[AMOUNT];
+        return record(getDealUniqueId(), getFromCurrencyIsoCode(), getToCurrencyIsoCode(),
+                buf, recordStart + fieldStarts[timestamp], fieldEnds[timestamp] - fieldStarts[timestamp],
+                buf, recordStart + fieldStarts[amount], fieldEnds[amount] - fieldStarts[amount]);
+    }
+
+    /**
+     * A record from its timestamp and amount text, parsed as the getters parse them.
+     */
+    static DealRecord record(String dealUniqueId, String fromCurrencyIsoCode, String toCurrencyIsoCode,
+                             char[] timestamp, int timestampOff, int timestampLen,
+                             char[] amount, int amountOff, int amountLen) {
+        long dateTime = packTimestamp(timestamp, timestampOff, timestampLen);
+        int nano = parseNano(timestamp, timestampOff, timestampLen);
+        long unscaled = parsePlainAmount(amount, amountOff, amountLen);
+        if (unscaled == NOT_PLAIN) {
+            return new DealRecord(dealUniqueId, fromCurrencyIsoCode, toCurrencyIsoCode, dateTime, nano,
+                    0, 0, new BigDecimal(amount, amountOff, amountLen));
+        }
+        return new DealRecord(dealUniqueId, fromCurrencyIsoCode, toCurrencyIsoCode, dateTime, nano,
+                unscaled, amountScale(amount, amountOff, amountLen), null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String text(int field) {
+        return new String(buf, recordStart + fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    private String currency(int field) {
+        return currency(buf, recordStart + fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    /**
+     * @return the text, shared across calls when it is 3 upper case letters
+     */
+    static String currency(char[] s, int off, int len) {
+        if (len == 3) {
+            int a = s[off] - 'A';
+            int b = s[off + 1] - 'A';
+            int c = s[off + 2] - 'A';
+            if (a >= 0 && a < 26 && b >= 0 && b < 26 && c >= 0 && c < 26) {
+                int key = (a * 26 + b) * 26 + c;
+                String code = CURRENCY_CODES[key];
+                if (code == null) {
+                    code = new String(s, off, 3);
+                    CURRENCY_CODES[key] = code;
+                }
+                return code;
+            }
+        }
+        return new String(s, off, len);
+    }
+
+    private void mapHeader() {
+        int[] mapped = new int[FIELD_NAMES.length];
+        Arrays.fill(mapped, -1);
+        for (int f = 0; f < fieldCount; f++) {
+            String name = text(f).trim();
+            for (int c = 0; c < FIELD_NAMES.length; c++) {
+                if (FIELD_NAMES[c].equalsIgnoreCase(name)) {
+                    mapped[c] = f;
+                }
+            }
+        }
+        // Unknown header names keep the positional layout, as before header mapping existed
+        for (int column : mapped) {
+            if (column < 0) {
+                return;
+            }
+        }
+        System.arraycopy(mapped, 0, columns, 0, mapped.length);
+        expectedFields = fieldCount;
+    }
+
+    /**
+     * Scans one record starting at pos, recording its field bounds. Skips blank lines.
+     */
+    private boolean scanRecord() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return false;
+            }
+            char c = buf[pos];
+            if (c == '\n') {
+                pos++;
+                nextLineNumber++;
+            } else if (c == '\r') {
+                pos++;
+                nextLineNumber++;
+                if ((pos < limit || fill()) && buf[pos] == '\n') {
+                    pos++;
+                }
+            } else {
+                break;
+            }
+        }
+
+        recordStart = pos;
+        lineNumber = nextLineNumber;
+        fieldCount = 0;
+        while (true) {
+            int end = scanField();
+            if (end != delimiter) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Scans one field and consumes the character that terminated it.
+     *
+     * @return the terminating character: the delimiter, '\n', or -1 at end of input
+     */
+    private int scanField() throws IOException {
+        int start = pos - recordStart;
+        if ((pos < limit || fill()) && buf[pos] == '"') {
+            pos++;
+            // Unescaped content is written back over the raw field, which is never shorter
+            start = pos - recordStart;
+            int write = start;
+            while (true) {
+                if (pos == limit && !fill()) {
+                    throw new IllegalArgumentException("Unterminated quoted field on line " + lineNumber);
+                }
+                char c = buf[pos++];
+                if (c == '"') {
+                    if ((pos < limit || fill()) && buf[pos] == '"') {
+                        pos++;
+                    } else {
+                        addField(start, write);
+                        return endOfQuotedField();
+                    }
+                } else if (c == '\n') {
+                    nextLineNumber++;
+                }
+                buf[recordStart + write++] = c;
+            }
+        }
+
+        while (true) {
+            if (pos == limit && !fill()) {
+                addField(start, pos - recordStart);
+                return -1;
+            }
+            char c = buf[pos];
+            if (c == delimiter) {
+                addField(start, pos - recordStart);
+                pos++;
+                return c;
+            }
+            if (c == '\n' || c == '\r') {
+                addField(start, pos - recordStart);
+                consumeLineEnd();
+                return '\n';
+            }
+            pos++;
+        }
+    }
+
+    private int endOfQuotedField() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        char c = buf[pos];
+        if (c == delimiter) {
+            pos++;
+            return c;
+        }
+        if (c == '\n' || c == '\r') {
+            consumeLineEnd();
+            return '\n';
+        }
+        throw new IllegalArgumentException("Unexpected character after quoted field on line " + lineNumber);
+    }
+
+    private void consumeLineEnd() throws IOException {
+        char c = buf[pos++];
+        nextLineNumber++;
+        if (c == '\r' && (pos < limit || fill()) && buf[pos] == '\n') {
+            pos++;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Moves the current record to the front of the buffer, growing it when the record
+     * alone fills it, and reads more input.
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int keep = limit - recordStart;
+        if (recordStart > 0) {
+            System.arraycopy(buf, recordStart, buf, 0, keep);
+            pos -= recordStart;
+            recordStart = 0;
+            limit = keep;
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int read = reader.read(buf, limit, buf.length - limit);
+        if (read <= 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Parses an ISO-8601 local date time ({@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]]}),
+     * the format accepted by {@link LocalDateTime#parse(CharSequence)} for 4-digit years,
+     * except that a fraction needs at least one digit after the dot.
+     */
+    static LocalDateTime parseTimestamp(char[] s, int off, int len) {
+        return DealRecord.toLocalDateTime(packTimestamp(s, off, len), parseNano(s, off, len));
+    }
+
+    /**
+     * Checks the timestamp as {@link #parseTimestamp} does, without creating it.
+     *
+     * @return the date and time to the second as the decimal number yyyyMMddHHmmss
+     */
+    static long packTimestamp(char[] s, int off, int len) {
+        if (len < 16 || s[off + 4] != '-' || s[off + 7] != '-' || s[off + 10] != 'T' || s[off + 13] != ':') {
+            throw invalidTimestamp(s, off, len);
+        }
+        int year = digits(s, off, 4);
+        int month = digits(s, off + 5, 2);
+        int day = digits(s, off + 8, 2);
+        int hour = digits(s, off + 11, 2);
+        int minute = digits(s, off + 14, 2);
+        int second = 0;
+        if (len > 16) {
+            if (len < 19 || s[off + 16] != ':') {
+                throw invalidTimestamp(s, off, len);
+            }
+            second = digits(s, off + 17, 2);
+            if (len > 19) {
+                if (len == 20 || len > 29 || s[off + 19] != '.') {
+                    throw invalidTimestamp(s, off, len);
+                }
+                if (digits(s, off + 20, len - 20) < 0) {
+                    throw invalidTimestamp(s, off, len);
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second) < 0) {
+            throw invalidTimestamp(s, off, len);
+        }
+        if (month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))
+                || hour > 23 || minute > 59 || second > 59) {
+            // Let LocalDateTime say which field is out of range
+            try {
+                LocalDateTime.of(year, month, day, hour, minute, second);
+            } catch (RuntimeException e) {
+                throw new DateTimeParseException(e.getMessage(), new String(s, off, len), 0, e);
+            }
+        }
+        return ((((year * 100L + month) * 100 + day) * 100 + hour) * 100 + minute) * 100 + second;
+    }
+
+    /**
+     * @return the nanoseconds of a timestamp {@link #packTimestamp} accepted
+     */
+    static int parseNano(char[] s, int off, int len) {
+        int nano = 0;
+        for (int i = 20; i < 29; i++) {
+            nano *= 10;
+            if (i < len) {
+                nano += s[off + i] - '0';
+            }
+        }
+        return nano;
+    }
+
+    /**
+     * @return the value of the digit run, or -1 if it contains anything but digits
+     */
+    private static int digits(char[] s, int off, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = s[off + i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static DateTimeParseException invalidTimestamp(char[] s, int off, int len) {
+        String text = new String(s, off, len);
+        return new DateTimeParseException("Text '" + text + "' could not be parsed", text, 0);
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -1234.50}. Up to 18 digits are accumulated
+     * in a long; anything longer, or in exponent notation, goes through BigDecimal.
+     */
+    static BigDecimal parseAmount(char[] s, int off, int len) {
+        long unscaled = parsePlainAmount(s, off, len);
+        if (unscaled == NOT_PLAIN) {
+            return new BigDecimal(s, off, len);
+        }
+        return BigDecimal.valueOf(unscaled, amountScale(s, off, len));
+    }
+
+    /**
+     * The long fast path of {@link #parseAmount}.
+     *
+     * @return the unscaled value, or NOT_PLAIN when the amount needs BigDecimal
+     */
+    static long parsePlainAmount(char[] s, int off, int len) {
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (s[off] == '-' || s[off] == '+')) {
+            negative = s[off] == '-';
+            i = 1;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; i < len; i++) {
+            char c = s[off + i];
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_FAST_DIGITS) {
+                    return NOT_PLAIN;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                // exponent notation and malformed input: let BigDecimal decide
+                return NOT_PLAIN;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Invalid deal amount: '" + new String(s, off, len) + "'");
+        }
+        return negative ? -unscaled : unscaled;
+    }
+
+    /**
+     * @return the digits after the decimal point of an amount {@link #parsePlainAmount} accepted
+     */
+    static int amountScale(char[] s, int off, int len) {
+        for (int i = len - 1; i >= 0; i--) {
+            if (s[off + i] == '.') {
+                return len - 1 - i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+/**
+ * Formats deals as CSV rows that {@link DealCsvParser} and PostgreSQL COPY both read
+ * back: text fields are always quoted, timestamps are ISO-8601 and amounts plain.
+ */
+public final class DealCsvWriter {
+
+    public static final String HEADER = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n";
+
+    private DealCsvWriter() {
+    }
+
+    public static void appendRow(StringBuilder buffer, Deal deal) {
+        appendQuoted(buffer, deal.getDealUniqueId());
+        buffer.append(',');
+        appendQuoted(buffer, deal.getFromCurrencyIsoCode());
+        buffer.append(',');
+        appendQuoted(buffer, deal.getToCurrencyIsoCode());
+        buffer.append(',');
+        buffer.append(deal.getDealTimestamp());
+        buffer.append(',');
+        buffer.append(deal.getDealAmount().toPlainString());
+        buffer.append('\n');
+    }
+
+    /**
+     * Writes the same text as for the equal Deal, without creating the timestamp or amount.
+     */
+    public static void appendRow(StringBuilder buffer, DealRecord record) {
+        appendQuoted(buffer, record.getDealUniqueId());
+        buffer.append(',');
+        appendQuoted(buffer, record.getFromCurrencyIsoCode());
+        buffer.append(',');
+        appendQuoted(buffer, record.getToCurrencyIsoCode());
+        buffer.append(',');
+        record.appendTimestamp(buffer);
+        buffer.append(',');
+        record.appendAmount(buffer);
+        buffer.append('\n');
+    }
+
+    private static void appendQuoted(StringBuilder buffer, String value) {
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+}
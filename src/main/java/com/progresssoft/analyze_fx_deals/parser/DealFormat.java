@@ -0,0 +1,92 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * The record formats deals are imported from. Compression is not a format: it is
+ * taken off by {@link DealInput} before the records are read.
+ */
+public enum DealFormat {
+
+    /**
+     * Comma separated text with a header line, read by {@link DealCsvParser}.
+     */
+    CSV(".csv", true),
+
+    /**
+     * One JSON object per line, as the NDJSON export writes them, read by {@link DealNdjsonReader}.
+     */
+    NDJSON(".ndjson", false);
+
+    private final String extension;
+    private final boolean header;
+
+    DealFormat(String extension, boolean header) {
+        this.extension = extension;
+        this.header = header;
+    }
+
+    /**
+     * @return the file name extension, with its dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return whether the first line names the columns rather than holding a deal
+     */
+    public boolean hasHeader() {
+        return header;
+    }
+
+    /**
+     * @param firstLineNumber the line number to report for the first line of the reader
+     */
+    public DealReader reader(Reader reader, char delimiter, long firstLineNumber) {
+        return this == CSV
+                ? new DealCsvParser(reader, delimiter, true, firstLineNumber)
+                : new DealNdjsonReader(reader, firstLineNumber);
+    }
+
+    /**
+     * @return the format named by a media type such as text/csv, or null for any other
+     */
+    public static DealFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parameters = contentType.indexOf(';');
+        String type = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case "text/csv", "application/csv" -> CSV;
+            case "application/x-ndjson", "application/ndjson", "application/jsonl", "application/x-jsonlines" -> NDJSON;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the format told by the extension of a file name, after any compression
+     *         extension such as .gz, or null if there is none
+     */
+    public static DealFormat fromFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String name = fileName.toLowerCase(Locale.ROOT);
+        for (String compressed : new String[] {".gz", ".gzip", ".zst", ".zstd"}) {
+            if (name.endsWith(compressed)) {
+                name = name.substring(0, name.length() - compressed.length());
+                break;
+            }
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        return null;
+    }
+}
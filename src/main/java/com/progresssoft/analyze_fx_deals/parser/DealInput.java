@@ -0,0 +1,134 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+
+/**
+ * An uploaded deal file, opened for reading its records. Gzip and zstd compression is
+ * recognised by its magic bytes and taken off while reading, so the file is never
+ * decompressed as a whole. The format of what is inside comes from the content type,
+ * else from the file name, else from the first character: NDJSON starts with '{'.
+ * <p>
+ * Parquet and Arrow files are recognised too, and refused.
+ */
+public final class DealInput implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAGIC_LENGTH = 6;
+    private static final byte[] GZIP_MAGIC = {0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd};
+    private static final byte[] PARQUET_MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ARROW_MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UTF8_BOM = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+    // How far the first character is looked for behind leading blank lines
+    private static final int SNIFF_LENGTH = 1024;
+
+    private final InputStream stream;
+    private final DealFormat format;
+    private final boolean compressed;
+
+    private DealInput(InputStream stream, DealFormat format, boolean compressed) {
+        this.stream = stream;
+        this.format = format;
+        this.compressed = compressed;
+    }
+
+    /**
+     * @param contentType the declared media type, may be null
+     * @param fileName    the original file name, may be null
+     * @throws IllegalArgumentException if the file is Parquet or Arrow
+     */
+    public static DealInput open(InputStream in, String contentType, String fileName) throws IOException {
+        InputStream stream = new BufferedInputStream(in, BUFFER_SIZE);
+        byte[] magic = peek(stream, MAGIC_LENGTH);
+        boolean compressed = startsWith(magic, GZIP_MAGIC) || startsWith(magic, ZSTD_MAGIC);
+        if (startsWith(magic, GZIP_MAGIC)) {
+            stream = new BufferedInputStream(new GZIPInputStream(stream, BUFFER_SIZE), BUFFER_SIZE);
+            magic = peek(stream, MAGIC_LENGTH);
+        } else if (startsWith(magic, ZSTD_MAGIC)) {
+            stream = new BufferedInputStream(new ZstdInputStreamNoFinalizer(stream), BUFFER_SIZE);
+            magic = peek(stream, MAGIC_LENGTH);
+        }
+        if (startsWith(magic, PARQUET_MAGIC) || startsWith(magic, ARROW_MAGIC)) {
+            stream.close();
+            throw new IllegalArgumentException("Parquet and Arrow files are not supported, upload CSV or NDJSON");
+        }
+
+        DealFormat format = DealFormat.fromContentType(contentType);
+        if (format == null) {
+            format = DealFormat.fromFileName(fileName);
+        }
+        if (format == null) {
+            format = sniff(peek(stream, SNIFF_LENGTH));
+        }
+        return new DealInput(stream, format, compressed);
+    }
+
+    public DealFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return whether the file was gzip or zstd compressed
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return the decompressed bytes
+     */
+    public InputStream getStream() {
+        return stream;
+    }
+
+    /**
+     * @return the decompressed text, decoded as UTF-8
+     */
+    public Reader reader() {
+        return new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param delimiter the CSV delimiter, unused for other formats
+     */
+    public DealReader dealReader(char delimiter) {
+        return format.reader(reader(), delimiter, 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    private static DealFormat sniff(byte[] start) {
+        int i = startsWith(start, UTF8_BOM) ? UTF8_BOM.length : 0;
+        while (i < start.length && (start[i] == ' ' || start[i] == '\t' || start[i] == '\r' || start[i] == '\n')) {
+            i++;
+        }
+        return i < start.length && start[i] == '{' ? DealFormat.NDJSON : DealFormat.CSV;
+    }
+
+    /**
+     * @return up to length bytes from the start of the stream, which is reset to them
+     */
+    private static byte[] peek(InputStream stream, int length) throws IOException {
+        stream.mark(length);
+        byte[] bytes = stream.readNBytes(length);
+        stream.reset();
+        return bytes;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        return bytes.length >= prefix.length && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+    }
+}
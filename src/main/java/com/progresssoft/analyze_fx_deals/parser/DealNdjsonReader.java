@@ -0,0 +1,163 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming reader for deal NDJSON files: one object per line with the field names of
+ * the CSV header, as GET /api/v1/deals/export?format=ndjson writes them. Other fields
+ * are skipped. The amount may be a JSON number or a string.
+ *
+ * <p>Tokens are read with Jackson's streaming parser, never bound to objects; the
+ * timestamp and amount are copied into reusable buffers and parsed as
+ * {@link DealCsvParser} parses them, so both formats fail and succeed alike. Not
+ * thread safe.
+ */
+public class DealNdjsonReader implements DealReader {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final JsonParser parser;
+    private final long firstLineNumber;
+
+    private long lineNumber;
+    private String dealUniqueId;
+    private String fromCurrencyIsoCode;
+    private String toCurrencyIsoCode;
+    private char[] timestamp = new char[32];
+    private int timestampLength;
+    private char[] amount = new char[32];
+    private int amountLength;
+
+    public DealNdjsonReader(Reader reader) {
+        this(reader, 1);
+    }
+
+    /**
+     * @param firstLineNumber the line number to report for the first line of the reader,
+     *                        for readers over a slice of a larger file
+     */
+    public DealNdjsonReader(Reader reader, long firstLineNumber) {
+        try {
+            this.parser = JSON.createParser(reader);
+        } catch (IOException e) {
+            // Creating a parser reads nothing yet
+            throw new IllegalStateException(e);
+        }
+        this.firstLineNumber = firstLineNumber;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the line is not a JSON object or lacks the
+     *                                  timestamp or the amount
+     */
+    @Override
+    public boolean nextRecord() throws IOException {
+        try {
+            return readRecord();
+        } catch (JsonProcessingException e) {
+            long line = firstLineNumber + (e.getLocation() != null ? e.getLocation().getLineNr() : 1) - 1;
+            throw new IllegalArgumentException("Invalid JSON on line " + line + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private boolean readRecord() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return false;
+        }
+        lineNumber = firstLineNumber + parser.currentTokenLocation().getLineNr() - 1;
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Invalid row format on line " + lineNumber);
+        }
+        dealUniqueId = null;
+        fromCurrencyIsoCode = null;
+        toCurrencyIsoCode = null;
+        timestampLength = -1;
+        amountLength = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            token = parser.nextToken();
+            switch (name) {
+                case "dealUniqueId" -> dealUniqueId = text(token);
+                case "fromCurrencyIsoCode" -> fromCurrencyIsoCode = currency(token);
+                case "toCurrencyIsoCode" -> toCurrencyIsoCode = currency(token);
+                case "dealTimestamp" -> {
+                    timestamp = copy(token, timestamp);
+                    timestampLength = token == JsonToken.VALUE_NULL ? -1 : parser.getTextLength();
+                }
+                case "dealAmount" -> {
+                    amount = copy(token, amount);
+                    amountLength = token == JsonToken.VALUE_NULL ? -1 : parser.getTextLength();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (timestampLength < 0 || amountLength < 0) {
+            throw new IllegalArgumentException("Invalid row format on line " + lineNumber);
+        }
+        return true;
+    }
+
+    @Override
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public String getDealUniqueId() {
+        return dealUniqueId;
+    }
+
+    @Override
+    public DealRecord getRecord() {
+        return DealCsvParser.record(dealUniqueId, fromCurrencyIsoCode, toCurrencyIsoCode,
+                timestamp, 0, timestampLength, amount, 0, amountLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private String text(JsonToken token) throws IOException {
+        checkScalar(token);
+        return token == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private String currency(JsonToken token) throws IOException {
+        checkScalar(token);
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return DealCsvParser.currency(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    /**
+     * Copies the text of the current value into the buffer, growing it if needed.
+     */
+    private char[] copy(JsonToken token, char[] buffer) throws IOException {
+        checkScalar(token);
+        if (token == JsonToken.VALUE_NULL) {
+            return buffer;
+        }
+        int length = parser.getTextLength();
+        if (length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+        }
+        System.arraycopy(parser.getTextCharacters(), parser.getTextOffset(), buffer, 0, length);
+        return buffer;
+    }
+
+    private void checkScalar(JsonToken token) {
+        if (token == null || !token.isScalarValue()) {
+            throw new IllegalArgumentException("Invalid row format on line " + lineNumber);
+        }
+    }
+}
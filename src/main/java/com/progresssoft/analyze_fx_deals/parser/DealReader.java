@@ -0,0 +1,37 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the deals of an import file one record at a time, whatever its format. The
+ * import paths only see this, so every format goes through the same validation and
+ * persistence.
+ */
+public interface DealReader extends Closeable {
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false once the input is exhausted
+     * @throws IllegalArgumentException if the record is malformed beyond validation
+     */
+    boolean nextRecord() throws IOException;
+
+    /**
+     * @return the 1-based physical line on which the current record starts
+     */
+    long getLineNumber();
+
+    /**
+     * @return the id of the current record, readable even when {@link #getRecord} fails
+     */
+    String getDealUniqueId();
+
+    /**
+     * @return the current record
+     * @throws java.time.format.DateTimeParseException if its timestamp cannot be parsed
+     * @throws NumberFormatException if its amount cannot be parsed
+     */
+    DealRecord getRecord();
+}
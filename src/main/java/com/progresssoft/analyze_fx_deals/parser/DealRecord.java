@@ -0,0 +1,168 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * One deal as read from an import file, for the bulk import: immutable, never a JPA
+ * entity, and compact. The timestamp is kept as its calendar fields and the amount as
+ * an unscaled long, so a row can be validated and written to COPY without creating a
+ * LocalDateTime, a BigDecimal or a Deal. Amounts that need more than 18 digits keep
+ * their BigDecimal.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class DealRecord {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L,
+            100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L,
+            1_000_000_000_000_000_000L
+    };
+
+    String dealUniqueId;
+    String fromCurrencyIsoCode;
+    String toCurrencyIsoCode;
+    // yyyyMMddHHmmss as a decimal number, plus the nanoseconds
+    @Getter(AccessLevel.NONE)
+    long dateTime;
+    @Getter(AccessLevel.NONE)
+    int nano;
+    // unscaledAmount / 10^amountScale, unless bigAmount is set
+    @Getter(AccessLevel.NONE)
+    long unscaledAmount;
+    @Getter(AccessLevel.NONE)
+    int amountScale;
+    @Getter(AccessLevel.NONE)
+    BigDecimal bigAmount;
+
+    /**
+     * For deals that do not come from {@link DealCsvParser}.
+     *
+     * @throws IllegalArgumentException if the year has more than 4 digits
+     */
+    public static DealRecord of(String dealUniqueId, String fromCurrencyIsoCode, String toCurrencyIsoCode,
+                                LocalDateTime dealTimestamp, BigDecimal dealAmount) {
+        if (dealTimestamp.getYear() < 0 || dealTimestamp.getYear() > 9999) {
+            throw new IllegalArgumentException("Deal timestamp out of range: " + dealTimestamp);
+        }
+        long dateTime = ((((dealTimestamp.getYear() * 100L + dealTimestamp.getMonthValue()) * 100
+                + dealTimestamp.getDayOfMonth()) * 100 + dealTimestamp.getHour()) * 100
+                + dealTimestamp.getMinute()) * 100 + dealTimestamp.getSecond();
+        if (dealAmount.scale() >= 0 && dealAmount.scale() < POWERS_OF_TEN.length
+                && dealAmount.unscaledValue().bitLength() < Long.SIZE - 1) {
+            return new DealRecord(dealUniqueId, fromCurrencyIsoCode, toCurrencyIsoCode, dateTime,
+                    dealTimestamp.getNano(), dealAmount.unscaledValue().longValue(), dealAmount.scale(), null);
+        }
+        return new DealRecord(dealUniqueId, fromCurrencyIsoCode, toCurrencyIsoCode, dateTime,
+                dealTimestamp.getNano(), 0, 0, dealAmount);
+    }
+
+    public LocalDateTime getDealTimestamp() {
+        return toLocalDateTime(dateTime, nano);
+    }
+
+    /**
+     * The year and month of the timestamp as yyyyMM, e.g. 202401.
+     */
+    public int getDealYearMonth() {
+        return (int) (dateTime / 100_000_000);
+    }
+
+    public BigDecimal getDealAmount() {
+        return bigAmount != null ? bigAmount : BigDecimal.valueOf(unscaledAmount, amountScale);
+    }
+
+    /**
+     * Compares the amount with {@code unscaled / 10^scale}, without creating a BigDecimal
+     * unless either side is beyond a long.
+     */
+    public int compareAmountTo(long unscaled, int scale) {
+        if (bigAmount == null && scale >= 0) {
+            if (amountScale == scale) {
+                return Long.compare(unscaledAmount, unscaled);
+            }
+            int shift = Math.abs(amountScale - scale);
+            if (shift < POWERS_OF_TEN.length) {
+                long factor = POWERS_OF_TEN[shift];
+                if (amountScale < scale && Math.abs(unscaledAmount) <= Long.MAX_VALUE / factor) {
+                    return Long.compare(unscaledAmount * factor, unscaled);
+                }
+                if (amountScale > scale && Math.abs(unscaled) <= Long.MAX_VALUE / factor) {
+                    return Long.compare(unscaledAmount, unscaled * factor);
+                }
+            }
+        }
+        return getDealAmount().compareTo(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    /**
+     * Appends the timestamp as {@link LocalDateTime#toString()} writes it.
+     */
+    void appendTimestamp(StringBuilder buffer) {
+        appendDigits(buffer, dateTime / 10_000_000_000L, 4);
+        buffer.append('-');
+        appendDigits(buffer, dateTime / 100_000_000 % 100, 2);
+        buffer.append('-');
+        appendDigits(buffer, dateTime / 1_000_000 % 100, 2);
+        buffer.append('T');
+        appendDigits(buffer, dateTime / 10_000 % 100, 2);
+        buffer.append(':');
+        appendDigits(buffer, dateTime / 100 % 100, 2);
+        long second = dateTime % 100;
+        if (second > 0 || nano > 0) {
+            buffer.append(':');
+            appendDigits(buffer, second, 2);
+            if (nano > 0) {
+                buffer.append('.');
+                if (nano % 1_000_000 == 0) {
+                    appendDigits(buffer, nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    appendDigits(buffer, nano / 1_000, 6);
+                } else {
+                    appendDigits(buffer, nano, 9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the amount as {@link BigDecimal#toPlainString()} writes it.
+     */
+    void appendAmount(StringBuilder buffer) {
+        if (bigAmount != null) {
+            buffer.append(bigAmount.toPlainString());
+            return;
+        }
+        long value = unscaledAmount;
+        if (value < 0) {
+            buffer.append('-');
+            value = -value;
+        }
+        if (amountScale == 0) {
+            buffer.append(value);
+            return;
+        }
+        long factor = POWERS_OF_TEN[amountScale];
+        buffer.append(value / factor).append('.');
+        appendDigits(buffer, value % factor, amountScale);
+    }
+
+    static LocalDateTime toLocalDateTime(long dateTime, int nano) {
+        return LocalDateTime.of((int) (dateTime / 10_000_000_000L), (int) (dateTime / 100_000_000 % 100),
+                (int) (dateTime / 1_000_000 % 100), (int) (dateTime / 10_000 % 100), (int) (dateTime / 100 % 100),
+                (int) (dateTime % 100), nano);
+    }
+
+    private static void appendDigits(StringBuilder buffer, long value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            buffer.append((char) ('0' + value / POWERS_OF_TEN[i] % 10));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import lombok.Value;
+
+/**
+ * A position in a deal CSV file between two records: everything before it has been
+ * committed, and {@code line} starts at byte {@code offset} of the UTF-8 file.
+ */
+@Value
+public class ImportCheckpoint {
+    long line;
+    long offset;
+}
@@ -0,0 +1,147 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cuts an uncompressed deal file into line-aligned chunks like {@link DealChunkSplitter},
+ * but over the file mapped into memory: only the bytes are scanned for quotes and line
+ * feeds, and each chunk is a slice of the mapping that its worker decodes while parsing.
+ * Neither ever appears in UTF-8 multi-byte sequences, so scanning bytes finds the same
+ * boundaries as scanning chars.
+ *
+ * <p>The file is mapped a window at a time, since one mapping holds at most 2 GiB; a
+ * chunk that would cross the end of a window is cut from a new window starting with it.
+ * Mappings are released once no chunk refers to them any more.
+ */
+public class MappedDealChunkSplitter implements DealChunkSource {
+
+    private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final DealFormat format;
+    private final int linesPerChunk;
+    private final long windowSize;
+    private final long size;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+
+    private boolean started;
+    private char[] header = new char[0];
+    private long position;
+    private long nextLine = 1;
+    private long sequence;
+    // Set by scan
+    private long scannedLines;
+
+    /**
+     * @param channel the file, open for reading; closed with this splitter
+     */
+    public MappedDealChunkSplitter(FileChannel channel, DealFormat format, int linesPerChunk) throws IOException {
+        this(channel, format, linesPerChunk, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedDealChunkSplitter(FileChannel channel, DealFormat format, int linesPerChunk, long windowSize) throws IOException {
+        this.channel = channel;
+        this.format = format;
+        this.linesPerChunk = Math.max(linesPerChunk, 1);
+        this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+        this.size = channel.size();
+    }
+
+    @Override
+    public DealChunkSplitter.Chunk next() throws IOException {
+        if (!started) {
+            started = true;
+            if (format.hasHeader()) {
+                long end = scan(position, 1);
+                if (scannedLines == 0) {
+                    return null;
+                }
+                String line = StandardCharsets.UTF_8.decode(slice(position, end)).toString();
+                header = (line.endsWith("\n") ? line : line + '\n').toCharArray();
+                position = end;
+                nextLine += scannedLines;
+            }
+        }
+        long end = scan(position, linesPerChunk);
+        if (scannedLines == 0) {
+            return null;
+        }
+        long firstLine = nextLine;
+        nextLine += scannedLines;
+        DealChunkSplitter.Chunk chunk = new DealChunkSplitter.Chunk(sequence++, format, firstLine, header,
+                slice(position, end), new ImportCheckpoint(nextLine, end));
+        position = end;
+        return chunk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Finds the end of up to {@code lines} lines starting at byte {@code from}, and
+     * leaves it mapped.
+     *
+     * @return the offset right after the last line feed, or the end of the file
+     */
+    private long scan(long from, int lines) throws IOException {
+        while (true) {
+            if (from < windowStart || from >= windowEnd) {
+                if (from >= size) {
+                    scannedLines = 0;
+                    return from;
+                }
+                map(from);
+            }
+            boolean quoting = format == DealFormat.CSV;
+            boolean inQuotes = false;
+            int ended = 0;
+            long physical = 0;
+            int i = (int) (from - windowStart);
+            int limit = (int) (windowEnd - windowStart);
+            while (i < limit && ended < lines) {
+                byte b = window.get(i++);
+                if (b == '"' && quoting) {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n') {
+                    physical++;
+                    if (!inQuotes) {
+                        ended++;
+                    }
+                }
+            }
+            long end = windowStart + i;
+            if (ended == lines || end == size) {
+                if (ended < lines && end > from && window.get(i - 1) != '\n') {
+                    // last line of the file without a trailing line feed
+                    physical++;
+                }
+                scannedLines = physical;
+                return end;
+            }
+            if (windowStart == from) {
+                throw new IllegalArgumentException("Line " + nextLine + ": " + lines
+                        + " lines take more than " + windowSize + " bytes");
+            }
+            map(from);
+        }
+    }
+
+    private void map(long from) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(windowSize, size - from));
+        windowStart = from;
+        windowEnd = from + window.capacity();
+    }
+
+    private MappedByteBuffer slice(long from, long to) {
+        return window.slice((int) (from - windowStart), (int) (to - from));
+    }
+}
@@ -0,0 +1,13 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import lombok.Value;
+
+/**
+ * Row counts of one COPY-based bulk load: how many rows reached the staging
+ * table and how many of those ended up in deals.
+ */
+@Value
+public class BulkLoadResult {
+    long staged;
+    long inserted;
+}
@@ -0,0 +1,157 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+/**
+ * Plain JDBC access to the deals table for the import path, where going through
+ * the JPA persistence context row by row is too slow.
+ */
+@Repository
+public class DealBatchRepository {
+
+    private static final String INSERT_PREFIX =
+            "WITH v (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount) AS (VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, CAST(? AS TIMESTAMP), CAST(? AS NUMERIC))";
+    // Ids are claimed in deal_ids, which stays unique however deals is partitioned, and
+    // only deals with a successful claim are inserted. The rollup is extended from the
+    // rows actually inserted, in the same statement
+    private static final String INSERT_SUFFIX = "), "
+            + "claimed AS (INSERT INTO deal_ids (deal_unique_id) SELECT deal_unique_id FROM v "
+            + "ON CONFLICT DO NOTHING RETURNING deal_unique_id), "
+            + "ins AS (INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount) "
+            + "SELECT v.* FROM v JOIN claimed USING (deal_unique_id) ON CONFLICT DO NOTHING "
+            + "RETURNING deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount), "
+            + "rollup AS (" + DealStatsRepository.upsertSql(DealStatsRepository.deltaSql("ins")) + ") "
+            + "SELECT deal_unique_id FROM ins";
+    private static final String SELECT_EXISTING_IDS = "SELECT deal_unique_id FROM deal_ids WHERE deal_unique_id = ANY(?)";
+
+    private static final int COLUMNS = 5;
+    // PostgreSQL binds at most 32767 parameters per statement
+    static final int MAX_ROWS_PER_STATEMENT = Short.MAX_VALUE / COLUMNS;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DealPartitionRepository dealPartitionRepository;
+
+    /**
+     * Inserts the given deals with multi-row INSERT statements, silently skipping
+     * ids that already exist or repeat an earlier deal of the list, and adds the
+     * inserted ones to deal_stats.
+     *
+     * @return the ids that were actually inserted
+     */
+    public Set<String> insertIgnoringDuplicates(List<Deal> deals) {
+        Set<String> inserted = new HashSet<>();
+        if (deals.isEmpty()) {
+            return inserted;
+        }
+        List<Deal> unique = firstOccurrences(deals);
+        dealPartitionRepository.ensurePartitions(months(unique));
+        for (int from = 0; from < unique.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Deal> slice = unique.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, unique.size()));
+            inserted.addAll(jdbcTemplate.queryForList(insertSql(slice.size()), String.class, insertArgs(slice)));
+        }
+        return inserted;
+    }
+
+    public boolean hasNoIds() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM deal_ids LIMIT 1", Integer.class).isEmpty();
+    }
+
+    /**
+     * Claims the ids of every stored deal, for deals stored before deal_ids existed.
+     *
+     * @return the number of ids added
+     */
+    public int backfillIds() {
+        return jdbcTemplate.update("INSERT INTO deal_ids (deal_unique_id) SELECT deal_unique_id FROM deals ON CONFLICT DO NOTHING");
+    }
+
+    /**
+     * Looks up which of the given ids are already stored, in a single query.
+     */
+    public Set<String> findExistingIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<String> existing = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_EXISTING_IDS);
+            ps.setArray(1, con.createArrayOf("varchar", ids.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(existing);
+    }
+
+    /**
+     * Claiming the ids would keep only one deal per id, but not necessarily the first.
+     */
+    private static List<Deal> firstOccurrences(List<Deal> deals) {
+        Set<String> ids = new HashSet<>();
+        List<Deal> unique = null;
+        for (int i = 0; i < deals.size(); i++) {
+            Deal deal = deals.get(i);
+            if (!ids.add(deal.getDealUniqueId())) {
+                if (unique == null) {
+                    unique = new ArrayList<>(deals.subList(0, i));
+                }
+            } else if (unique != null) {
+                unique.add(deal);
+            }
+        }
+        return unique == null ? deals : unique;
+    }
+
+    private static Set<YearMonth> months(List<Deal> deals) {
+        Set<YearMonth> months = new HashSet<>();
+        int last = -1;
+        for (Deal deal : deals) {
+            LocalDateTime timestamp = deal.getDealTimestamp();
+            int month = timestamp.getYear() * 100 + timestamp.getMonthValue();
+            if (month != last) {
+                months.add(YearMonth.from(timestamp));
+                last = month;
+            }
+        }
+        return months;
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (INSERT_ROW.length() + 2) + INSERT_SUFFIX.length());
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(INSERT_ROW);
+        }
+        return sql.append(INSERT_SUFFIX).toString();
+    }
+
+    private static Object[] insertArgs(List<Deal> deals) {
+        List<Object> args = new ArrayList<>(deals.size() * COLUMNS);
+        for (Deal d : deals) {
+            args.add(d.getDealUniqueId());
+            args.add(d.getFromCurrencyIsoCode());
+            args.add(d.getToCurrencyIsoCode());
+            args.add(d.getDealTimestamp());
+            args.add(d.getDealAmount());
+        }
+        return args.toArray();
+    }
+}
@@ -0,0 +1,188 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealCsvWriter;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+
+/**
+ * Bulk loads deals with PostgreSQL COPY into a temporary staging table and merges
+ * the staged rows into deals with a single set-based INSERT. The staging tables live
+ * for the session and are dropped when the load ends, so the merge can run in a
+ * transaction of its own after the partitions it needs are created.
+ */
+@Repository
+public class DealCopyRepository {
+
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE deals_staging ("
+            + "deal_unique_id VARCHAR(255), "
+            + "from_currency_iso_code VARCHAR(3), "
+            + "to_currency_iso_code VARCHAR(3), "
+            + "deal_timestamp TIMESTAMP, "
+            + "deal_amount NUMERIC(38, 2))";
+    private static final String CREATE_MERGED = "CREATE TEMP TABLE deals_merged (LIKE deals_staging)";
+    private static final String DROP_STAGING = "DROP TABLE IF EXISTS deals_staging, deals_merged";
+    private static final String COPY_STAGING =
+            "COPY deals_staging (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount) "
+            + "FROM STDIN WITH (FORMAT csv)";
+    // DISTINCT ON keeps the first copy when the same id appears twice in one file. Ids
+    // are claimed in deal_ids as in DealBatchRepository. The inserted rows are rolled up
+    // into deal_stats by the same statement and kept in deals_merged, so read-side copies
+    // can follow without querying deals again.
+    private static final String MERGE_STAGING =
+            "WITH src AS (SELECT DISTINCT ON (deal_unique_id) deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount "
+            + "FROM deals_staging ORDER BY deal_unique_id, ctid), "
+            + "claimed AS (INSERT INTO deal_ids (deal_unique_id) SELECT deal_unique_id FROM src "
+            + "ON CONFLICT DO NOTHING RETURNING deal_unique_id), "
+            + "ins AS (INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount) "
+            + "SELECT src.* FROM src JOIN claimed USING (deal_unique_id) ON CONFLICT DO NOTHING "
+            + "RETURNING deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount), "
+            + "rollup AS (" + DealStatsRepository.upsertSql(DealStatsRepository.deltaSql("ins")) + ") "
+            + "INSERT INTO deals_merged SELECT * FROM ins";
+    private static final String SELECT_MERGED =
+            "SELECT deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount FROM deals_merged";
+
+    static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DealPartitionRepository dealPartitionRepository;
+
+    @Value("${deals.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Streams the deal records into the staging table and merges them into deals in a
+     * transaction of its own, unless the caller already holds one on this connection.
+     * The inserted deals are passed to the consumer once the merge has committed, read
+     * back fetchSize at a time.
+     */
+    public BulkLoadResult copyAndMerge(Iterator<DealRecord> deals, Consumer<Deal> inserted) {
+        return jdbcTemplate.execute((ConnectionCallback<BulkLoadResult>) con -> {
+            if (!con.getAutoCommit()) {
+                // A rollback of the caller's transaction also drops the staging tables
+                BulkLoadResult result = copyAndMerge(con, false, deals, inserted);
+                execute(con, DROP_STAGING);
+                return result;
+            }
+            try {
+                return copyAndMerge(con, true, deals, inserted);
+            } finally {
+                con.setAutoCommit(true);
+                execute(con, DROP_STAGING);
+            }
+        });
+    }
+
+    private BulkLoadResult copyAndMerge(Connection con, boolean ownTransaction, Iterator<DealRecord> deals,
+                                        Consumer<Deal> inserted) throws SQLException {
+        execute(con, CREATE_STAGING);
+        execute(con, CREATE_MERGED);
+
+        long staged = 0;
+        Set<YearMonth> months = new HashSet<>();
+        CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING);
+        try {
+            StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 256);
+            int lastMonth = -1;
+            while (deals.hasNext()) {
+                DealRecord deal = deals.next();
+                appendCsvRow(buffer, deal);
+                staged++;
+                int month = deal.getDealYearMonth();
+                if (month != lastMonth) {
+                    months.add(YearMonth.of(month / 100, month % 100));
+                    lastMonth = month;
+                }
+                if (buffer.length() >= FLUSH_THRESHOLD) {
+                    writeToCopy(copyIn, buffer);
+                }
+            }
+            writeToCopy(copyIn, buffer);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        // Attaching a partition waits for transactions that wrote to deals, so this
+        // connection must not hold one yet
+        dealPartitionRepository.ensurePartitions(months);
+
+        long merged;
+        if (ownTransaction) {
+            con.setAutoCommit(false);
+        }
+        try (Statement st = con.createStatement()) {
+            merged = st.executeUpdate(MERGE_STAGING);
+            if (ownTransaction) {
+                con.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) {
+                con.rollback();
+            }
+            throw e;
+        }
+
+        // A cursor needs a transaction; this one only reads the session's own table
+        try (Statement st = con.createStatement()) {
+            st.setFetchSize(fetchSize);
+            try (ResultSet rs = st.executeQuery(SELECT_MERGED)) {
+                while (rs.next()) {
+                    inserted.accept(DealQueryRepository.DEAL_ROW_MAPPER.mapRow(rs, 0));
+                }
+            }
+            if (ownTransaction) {
+                con.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) {
+                con.rollback();
+            }
+            throw e;
+        }
+        return new BulkLoadResult(staged, merged);
+    }
+
+    private static void execute(Connection con, String sql) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() == 0) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    static void appendCsvRow(StringBuilder buffer, DealRecord deal) {
+        DealCsvWriter.appendRow(buffer, deal);
+    }
+}
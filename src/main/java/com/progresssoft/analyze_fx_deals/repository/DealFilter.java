@@ -0,0 +1,22 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.Value;
+
+/**
+ * Optional restrictions on a deals query; null fields do not restrict. The time
+ * range is half-open: since is inclusive, until exclusive.
+ */
+@Value
+public class DealFilter {
+
+    public static final DealFilter NONE = new DealFilter(null, null, null, null, null);
+
+    String fromCurrencyIsoCode;
+    String toCurrencyIsoCode;
+    LocalDateTime since;
+    LocalDateTime until;
+    BigDecimal minAmount;
+}
@@ -0,0 +1,159 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Monthly range partitions of deals, named deals_yyyy_MM, when init-db.sql or the
+ * partitioning migration created deals as a partitioned table; on a plain table
+ * every call is a no-op. Partitions are created before rows of their month are
+ * inserted, so time-range queries prune to the months they ask for. Rows that still
+ * reach deals_default, from writers outside the application, are moved into the
+ * month's partition when it is created.
+ * <p>
+ * Known partitions are cached, so inserting into existing months costs no query.
+ */
+@Slf4j
+@Repository
+public class DealPartitionRepository {
+
+    static final String DEFAULT_PARTITION = "deals_default";
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'deals_'yyyy_MM");
+    private static final Pattern NAME_PATTERN = Pattern.compile("deals_(\\d{4})_(\\d{2})");
+    private static final String IS_PARTITIONED =
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('deals'))";
+    private static final String SELECT_PARTITIONS =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass('deals')";
+    private static final String EXISTS = "SELECT to_regclass(?) IS NOT NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+    // null until first looked up
+    private volatile Boolean partitioned;
+
+    /**
+     * Re-reads whether deals is partitioned and which monthly partitions exist.
+     */
+    public synchronized void refresh() {
+        boolean found = Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class));
+        partitions.clear();
+        if (found) {
+            for (String name : jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class)) {
+                Matcher m = NAME_PATTERN.matcher(name);
+                if (m.matches()) {
+                    partitions.add(YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))));
+                }
+            }
+        }
+        partitioned = found;
+    }
+
+    public boolean isPartitioned() {
+        if (partitioned == null) {
+            refresh();
+        }
+        return partitioned;
+    }
+
+    /**
+     * Creates the partitions of the given months that do not exist yet. Call before
+     * inserting deals of those months and outside of any transaction that has written
+     * to deals, since attaching a partition waits for those to finish.
+     */
+    public void ensurePartitions(Collection<YearMonth> months) {
+        if (!isPartitioned()) {
+            return;
+        }
+        for (YearMonth month : months) {
+            if (!partitions.contains(month)) {
+                createPartition(month);
+            }
+        }
+    }
+
+    private synchronized void createPartition(YearMonth month) {
+        if (partitions.contains(month)) {
+            return;
+        }
+        String name = month.format(NAME);
+        try {
+            if (!exists(name)) {
+                List<String> statements = createSql(name, month, exists(DEFAULT_PARTITION));
+                jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                    boolean ownTransaction = con.getAutoCommit();
+                    if (ownTransaction) {
+                        con.setAutoCommit(false);
+                    }
+                    try (Statement st = con.createStatement()) {
+                        for (String sql : statements) {
+                            st.execute(sql);
+                        }
+                        if (ownTransaction) {
+                            con.commit();
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        if (ownTransaction) {
+                            con.rollback();
+                        }
+                        throw e;
+                    } finally {
+                        if (ownTransaction) {
+                            con.setAutoCommit(true);
+                        }
+                    }
+                    return null;
+                });
+                log.info("Created deals partition " + name);
+            }
+        } catch (DataAccessException e) {
+            // Another instance may have created it meanwhile
+            if (!exists(name)) {
+                throw e;
+            }
+        }
+        partitions.add(month);
+    }
+
+    /**
+     * The new partition is filled from the default partition and then attached, which
+     * locks deals less than CREATE TABLE ... PARTITION OF: inserts into other months go on.
+     */
+    static List<String> createSql(String name, YearMonth month, boolean hasDefault) {
+        String range = "deal_timestamp >= '" + month.atDay(1) + "' AND deal_timestamp < '" + month.plusMonths(1).atDay(1) + "'";
+        String attach = "ALTER TABLE deals ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+        String create = "CREATE TABLE " + name + " (LIKE deals INCLUDING DEFAULTS INCLUDING CONSTRAINTS)";
+        if (!hasDefault) {
+            return List.of(create, attach);
+        }
+        return List.of(
+                "LOCK TABLE " + DEFAULT_PARTITION + " IN ACCESS EXCLUSIVE MODE",
+                create,
+                "INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range,
+                "DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range,
+                attach);
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS, Boolean.class, table));
+    }
+}
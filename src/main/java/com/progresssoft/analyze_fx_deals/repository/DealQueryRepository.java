@@ -0,0 +1,158 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+/**
+ * Reads of the deals table that never load it whole: keyset pages ordered by
+ * (deal_timestamp, deal_unique_id), and a server-side cursor for exports.
+ * Filtered pages are shaped for idx_deals_pair_timestamp: equality on the currency
+ * pair followed by the same key order, so a pair query is a single index range scan
+ * with no sort.
+ */
+@Repository
+public class DealQueryRepository {
+
+    private static final String SELECT =
+            "SELECT deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount FROM deals";
+    private static final String SELECT_IDS = "SELECT deal_unique_id FROM deals";
+    private static final String AFTER_KEY = "(deal_timestamp, deal_unique_id) > (?, ?)";
+    private static final String ORDER_BY_KEY = " ORDER BY deal_timestamp, deal_unique_id";
+
+    static final RowMapper<Deal> DEAL_ROW_MAPPER = (rs, rowNum) -> mapDeal(rs);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${deals.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * @param afterTimestamp key of the last deal of the previous page, or null for the first page
+     */
+    public List<Deal> findPage(DealFilter filter, LocalDateTime afterTimestamp, String afterId, int limit) {
+        List<Object> args = new ArrayList<>(8);
+        String sql = pageSql(filter, afterTimestamp, afterId, args);
+        args.add(limit);
+        return jdbcTemplate.query(sql, DEAL_ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Builds the page query, adding its bind values to args in placeholder order.
+     */
+    static String pageSql(DealFilter filter, LocalDateTime afterTimestamp, String afterId, List<Object> args) {
+        StringBuilder where = new StringBuilder();
+        if (filter.getFromCurrencyIsoCode() != null) {
+            and(where, "from_currency_iso_code = ?", filter.getFromCurrencyIsoCode(), args);
+        }
+        if (filter.getToCurrencyIsoCode() != null) {
+            and(where, "to_currency_iso_code = ?", filter.getToCurrencyIsoCode(), args);
+        }
+        if (filter.getSince() != null) {
+            and(where, "deal_timestamp >= ?", Timestamp.valueOf(filter.getSince()), args);
+        }
+        if (filter.getUntil() != null) {
+            and(where, "deal_timestamp < ?", Timestamp.valueOf(filter.getUntil()), args);
+        }
+        if (filter.getMinAmount() != null) {
+            and(where, "deal_amount >= ?", filter.getMinAmount(), args);
+        }
+        if (afterTimestamp != null) {
+            and(where, AFTER_KEY, Timestamp.valueOf(afterTimestamp), args);
+            args.add(afterId);
+        }
+        return SELECT + where + ORDER_BY_KEY + " LIMIT ?";
+    }
+
+    private static void and(StringBuilder where, String condition, Object value, List<Object> args) {
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+        args.add(value);
+    }
+
+    /**
+     * Passes every deal to the consumer in key order, fetching fetchSize rows at a time.
+     * PostgreSQL only uses a cursor outside autocommit, so this runs in its own read-only
+     * transaction unless the caller already holds one on this connection.
+     *
+     * @return the number of deals streamed
+     */
+    public long streamAll(Consumer<Deal> consumer) {
+        return streamCursor(SELECT + ORDER_BY_KEY, DealQueryRepository::mapDeal, consumer);
+    }
+
+    /**
+     * Passes every deal id to the consumer, in no particular order, through a cursor
+     * like {@link #streamAll}.
+     *
+     * @return the number of ids streamed
+     */
+    public long streamIds(Consumer<String> consumer) {
+        return streamCursor(SELECT_IDS, rs -> rs.getString(1), consumer);
+    }
+
+    private <T> long streamCursor(String sql, RowReader<T> reader, Consumer<T> consumer) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            boolean ownTransaction = con.getAutoCommit();
+            if (ownTransaction) {
+                con.setAutoCommit(false);
+            }
+            try {
+                long count = stream(con, sql, reader, consumer);
+                if (ownTransaction) {
+                    con.commit();
+                }
+                return count;
+            } catch (SQLException | RuntimeException e) {
+                if (ownTransaction) {
+                    con.rollback();
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    con.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    private <T> long stream(Connection con, String sql, RowReader<T> reader, Consumer<T> consumer) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+            long count = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(reader.read(rs));
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static Deal mapDeal(ResultSet rs) throws SQLException {
+        return new Deal(rs.getString(1), rs.getString(2), rs.getString(3),
+                rs.getObject(4, LocalDateTime.class), rs.getBigDecimal(5));
+    }
+
+    @FunctionalInterface
+    private interface RowReader<T> {
+
+        T read(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,153 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+
+/**
+ * The deal_stats rollup table. The statements that insert deals extend it in the same
+ * statement through {@link #deltaSql} and {@link #upsertSql}, so the rollup always
+ * matches the committed deals.
+ */
+@Repository
+public class DealStatsRepository {
+
+    private static final String COLUMNS =
+            "granularity, from_currency_iso_code, to_currency_iso_code, bucket_start, deal_count, amount_sum, amount_min, amount_max";
+    private static final String GRANULARITIES = "(VALUES ('MINUTE'), ('HOUR'), ('DAY')) AS g(granularity)";
+    // Upserts lock rows in primary key order so that concurrent writers cannot deadlock
+    private static final String ORDER_BY_KEY = " ORDER BY 1, 2, 3, 4";
+    private static final String ON_CONFLICT =
+            " ON CONFLICT (granularity, from_currency_iso_code, to_currency_iso_code, bucket_start) DO UPDATE SET "
+            + "deal_count = deal_stats.deal_count + EXCLUDED.deal_count, "
+            + "amount_sum = deal_stats.amount_sum + EXCLUDED.amount_sum, "
+            + "amount_min = LEAST(deal_stats.amount_min, EXCLUDED.amount_min), "
+            + "amount_max = GREATEST(deal_stats.amount_max, EXCLUDED.amount_max)";
+    private static final String IS_EMPTY = "SELECT 1 FROM deal_stats LIMIT 1";
+    static final String REBUILD = upsertSql(deltaSql("deals"));
+    // Conflicts with the ROW EXCLUSIVE lock every insert statement takes on deal_stats
+    private static final String LOCK = "LOCK TABLE deal_stats IN SHARE ROW EXCLUSIVE MODE";
+    private static final String SELECT_ROWS = "SELECT " + COLUMNS + " FROM deal_stats";
+    private static final String SELECT_STORED_IDS = "SELECT deal_unique_id FROM deal_ids WHERE deal_unique_id = ANY(?)";
+
+    static final RowMapper<DealStatsRow> STATS_ROW_MAPPER = (rs, rowNum) -> mapRow(rs);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aggregates the deal rows of source into one row per granularity, pair and bucket,
+     * with the columns of deal_stats.
+     */
+    public static String deltaSql(String source) {
+        return "SELECT g.granularity, s.from_currency_iso_code, s.to_currency_iso_code, "
+                + "date_trunc(lower(g.granularity), s.deal_timestamp) AS bucket_start, "
+                + "count(*) AS deal_count, sum(s.deal_amount) AS amount_sum, "
+                + "min(s.deal_amount) AS amount_min, max(s.deal_amount) AS amount_max "
+                + "FROM " + source + " s CROSS JOIN " + GRANULARITIES
+                + " GROUP BY 1, 2, 3, 4" + ORDER_BY_KEY;
+    }
+
+    /**
+     * Adds the rows of the given query, which has the columns of deal_stats, to the rollup.
+     */
+    public static String upsertSql(String query) {
+        return "INSERT INTO deal_stats (" + COLUMNS + ") " + query + ON_CONFLICT;
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList(IS_EMPTY, Integer.class).isEmpty();
+    }
+
+    /**
+     * Passes every rollup row to the consumer and then hands a lookup of stored deal ids
+     * to whenRead, all in one REPEATABLE READ snapshot: a deal the lookup finds is
+     * counted in the rows read, any other one is not. An empty rollup is first built from
+     * the deals table, for deals stored before it existed, with inserts held off until
+     * the snapshot is taken.
+     *
+     * @return the number of rollup rows written by the rebuild, 0 if none was needed
+     */
+    public int read(Consumer<DealStatsRow> consumer, Consumer<StoredIds> whenRead) {
+        boolean empty = isEmpty();
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            int isolation = con.getTransactionIsolation();
+            con.setAutoCommit(false);
+            con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (Statement statement = con.createStatement()) {
+                int rebuilt = 0;
+                if (empty) {
+                    // Locked before the first query, which takes the snapshot
+                    statement.execute(LOCK);
+                    try (ResultSet rs = statement.executeQuery(IS_EMPTY)) {
+                        if (!rs.next()) {
+                            rebuilt = statement.executeUpdate(REBUILD);
+                        }
+                    }
+                }
+                try (ResultSet rs = statement.executeQuery(SELECT_ROWS)) {
+                    while (rs.next()) {
+                        consumer.accept(mapRow(rs));
+                    }
+                }
+                whenRead.accept(ids -> storedIds(con, ids));
+                con.commit();
+                return rebuilt;
+            } catch (SQLException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+                con.setTransactionIsolation(isolation);
+            }
+        });
+    }
+
+    private Set<String> storedIds(Connection con, Collection<String> ids) {
+        Set<String> stored = new HashSet<>();
+        if (ids.isEmpty()) {
+            return stored;
+        }
+        try (PreparedStatement ps = con.prepareStatement(SELECT_STORED_IDS)) {
+            ps.setArray(1, con.createArrayOf("varchar", ids.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    stored.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("deal id lookup", SELECT_STORED_IDS, e);
+        }
+        return stored;
+    }
+
+    static DealStatsRow mapRow(ResultSet rs) throws SQLException {
+        return new DealStatsRow(StatsGranularity.valueOf(rs.getString(1)), rs.getString(2), rs.getString(3),
+                rs.getObject(4, LocalDateTime.class), rs.getLong(5), rs.getBigDecimal(6),
+                rs.getBigDecimal(7), rs.getBigDecimal(8));
+    }
+
+    /**
+     * The ids among the given ones that are stored in the snapshot of {@link #read}.
+     */
+    @FunctionalInterface
+    public interface StoredIds {
+
+        Set<String> of(Collection<String> ids);
+    }
+}
@@ -0,0 +1,24 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+
+import lombok.Value;
+
+/**
+ * Aggregates of the deals of one currency pair in one bucket: either a stored
+ * deal_stats row or the increment a single insert statement added to it.
+ */
+@Value
+public class DealStatsRow {
+    StatsGranularity granularity;
+    String fromCurrencyIsoCode;
+    String toCurrencyIsoCode;
+    LocalDateTime bucketStart;
+    long count;
+    BigDecimal sum;
+    BigDecimal min;
+    BigDecimal max;
+}
@@ -0,0 +1,29 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.progresssoft.analyze_fx_deals.model.ImportBatch;
+
+@Repository
+public interface ImportBatchRepository extends JpaRepository<ImportBatch, String> {
+
+    /**
+     * Inserts the batch unless its fingerprint is already recorded; the first import of
+     * a file keeps its summary.
+     *
+     * @return 1 if inserted, 0 if the fingerprint was there
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO import_batches "
+            + "(fingerprint, file_name, file_size, inserted, duplicates, invalid, elapsed_millis, errors, imported_at) "
+            + "VALUES (:#{#batch.fingerprint}, :#{#batch.fileName}, :#{#batch.fileSize}, :#{#batch.inserted}, "
+            + ":#{#batch.duplicates}, :#{#batch.invalid}, :#{#batch.elapsedMillis}, :#{#batch.errors}, :#{#batch.importedAt}) "
+            + "ON CONFLICT (fingerprint) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("batch") ImportBatch batch);
+}
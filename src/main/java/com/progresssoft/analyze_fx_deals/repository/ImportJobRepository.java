@@ -0,0 +1,18 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.progresssoft.analyze_fx_deals.model.ImportJob;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+    List<ImportJob> findByStatusIn(Collection<ImportJob.Status> statuses);
+    Optional<ImportJob> findFirstByFileChecksumAndStatusInOrderByCreatedAtDesc(String fileChecksum, Collection<ImportJob.Status> statuses);
+    List<ImportJob> findByStatusInAndFinishedAtBefore(Collection<ImportJob.Status> statuses, LocalDateTime finishedAt);
+}
@@ -0,0 +1,73 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bounds how many import writes use the database at once, below the connection pool
+ * size so reads always find a connection. With platform threads the writer pool
+ * already does this; with virtual threads, where every upload and chunk write gets its
+ * own thread, it is what keeps thousands of concurrent imports from queueing on the
+ * pool until Hikari times them out. Waiting is fair, and giving up after the acquire
+ * timeout surfaces as 503.
+ */
+@Component
+public class DbConcurrencyLimiter implements MeterBinder {
+
+    @Value("${deals.db.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${deals.db.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Waits for a slot; close the permit to give it back.
+     *
+     * @throws RejectedExecutionException if no slot frees up within the acquire timeout
+     */
+    public Permit acquire() throws InterruptedIOException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("No database slot free within " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a database slot");
+        }
+        return permits::release;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("deals.db.limiter.in.use", this, limiter -> limiter.maxConcurrency - limiter.permits.availablePermits())
+                .description("Import writes holding a database slot")
+                .register(registry);
+        Gauge.builder("deals.db.limiter.waiting", this, limiter -> limiter.permits.getQueueLength())
+                .description("Import writes waiting for a database slot")
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,30 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.progresssoft.analyze_fx_deals.config.DealCacheConfig;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+/**
+ * Puts imported deals into the by-id cache. This also replaces the cached miss of an
+ * id that was looked up before it was imported.
+ */
+@Component
+public class DealCacheListener implements DealInsertListener {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Override
+    public void onInserted(List<Deal> deals) {
+        Cache cache = cacheManager.getCache(DealCacheConfig.DEALS_BY_ID);
+        for (Deal deal : deals) {
+            cache.put(deal.getDealUniqueId(), deal);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.progresssoft.analyze_fx_deals.dto.DealScanDTO;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.repository.DealQueryRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional read-side copy of deals laid out column by column in primitive arrays:
+ * currency codes dictionary-encoded to shorts, timestamps as epoch microseconds (UTC)
+ * and amounts as longs scaled by 100, 20 bytes per deal. Filtered aggregates are tight
+ * branch-light loops over those arrays that the JIT can unroll and vectorise.
+ * <p>
+ * Columns grow in fixed-size segments so appending never copies old rows. One writer
+ * at a time appends; readers only look at rows below the published size.
+ */
+@Slf4j
+@Service
+public class DealColumnStore implements DealInsertListener {
+
+    static final int SEGMENT_SIZE = 1 << 16;
+    private static final int AMOUNT_SCALE = 2;
+    private static final int LOAD_BATCH = 4096;
+
+    @Autowired
+    private DealQueryRepository dealQueryRepository;
+
+    @Value("${deals.columnar.enabled:false}")
+    private boolean enabled;
+
+    private final Map<String, Short> codeIds = new ConcurrentHashMap<>();
+    private volatile Columns columns = new Columns(0);
+    private volatile int size;
+    private volatile boolean available;
+    private volatile boolean failed;
+    // Deals reported while the load runs, by id; guarded by this, null outside a load
+    private Map<String, Deal> insertedDuringLoad;
+
+    /**
+     * Loads every deal through a database cursor. Deals inserted meanwhile are held
+     * back until the cursor is done, then appended unless the cursor already returned
+     * them; the store serves scans once the load is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            insertedDuringLoad = new HashMap<>();
+        }
+        List<Deal> batch = new ArrayList<>(LOAD_BATCH);
+        dealQueryRepository.streamAll(deal -> {
+            batch.add(deal);
+            if (batch.size() == LOAD_BATCH) {
+                appendLoaded(batch);
+                batch.clear();
+            }
+        });
+        appendLoaded(batch);
+        synchronized (this) {
+            append(new ArrayList<>(insertedDuringLoad.values()));
+            insertedDuringLoad = null;
+        }
+        available = !failed;
+        log.info("Columnar store loaded " + size + " deals in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public void onInserted(List<Deal> deals) {
+        if (enabled) {
+            appendInserted(deals);
+        }
+    }
+
+    private synchronized void appendLoaded(List<Deal> deals) {
+        if (!insertedDuringLoad.isEmpty()) {
+            deals.forEach(deal -> insertedDuringLoad.remove(deal.getDealUniqueId()));
+        }
+        append(deals);
+    }
+
+    private synchronized void appendInserted(List<Deal> deals) {
+        if (insertedDuringLoad == null) {
+            append(deals);
+        } else {
+            deals.forEach(deal -> insertedDuringLoad.put(deal.getDealUniqueId(), deal));
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    synchronized void append(List<Deal> deals) {
+        if (deals.isEmpty() || failed) {
+            return;
+        }
+        try {
+            int row = size;
+            for (Deal deal : deals) {
+                long amount;
+                try {
+                    amount = scaled(deal.getDealAmount());
+                } catch (ArithmeticException e) {
+                    // Scans leave this deal out; the table and the other stores still hold it
+                    log.warn("Columnar store skipped deal " + deal.getDealUniqueId() + ": " + e.getMessage());
+                    continue;
+                }
+                int segment = row / SEGMENT_SIZE;
+                int offset = row % SEGMENT_SIZE;
+                Columns current = columns;
+                if (segment == current.segments()) {
+                    // Published before the rows in it, so readers never see a size without its segment
+                    current = current.grow();
+                    columns = current;
+                }
+                current.from[segment][offset] = codeId(deal.getFromCurrencyIsoCode());
+                current.to[segment][offset] = codeId(deal.getToCurrencyIsoCode());
+                current.timestamp[segment][offset] = epochMicros(deal.getDealTimestamp());
+                current.amount[segment][offset] = amount;
+                row++;
+            }
+            size = row;
+        } catch (IllegalStateException e) {
+            // The store can no longer mirror the table, so it stops serving rather than answer wrong
+            failed = true;
+            available = false;
+            log.error("Columnar store disabled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Count, sum, min and max of the amounts of deals matching the filter; null
+     * arguments do not restrict. since is inclusive, until exclusive.
+     */
+    public DealScanDTO scan(String fromCurrencyIsoCode, String toCurrencyIsoCode, LocalDateTime since, LocalDateTime until) {
+        if (!available) {
+            throw new IllegalStateException("Columnar store is not loaded");
+        }
+        int rows = size;
+        Columns current = columns;
+        boolean anyFrom = fromCurrencyIsoCode == null || fromCurrencyIsoCode.isEmpty();
+        boolean anyTo = toCurrencyIsoCode == null || toCurrencyIsoCode.isEmpty();
+        Short fromId = anyFrom ? Short.valueOf((short) -1) : codeIds.get(fromCurrencyIsoCode.toUpperCase(Locale.ROOT));
+        Short toId = anyTo ? Short.valueOf((short) -1) : codeIds.get(toCurrencyIsoCode.toUpperCase(Locale.ROOT));
+        if (fromId == null || toId == null) {
+            return new DealScanDTO(0, BigDecimal.ZERO.setScale(AMOUNT_SCALE), null, null, rows);
+        }
+        short fromCode = fromId;
+        short toCode = toId;
+        long lower = since == null ? Long.MIN_VALUE : epochMicros(since);
+        long upper = until == null ? Long.MAX_VALUE : epochMicros(until);
+
+        long count = 0;
+        BigDecimal sum = BigDecimal.ZERO.setScale(AMOUNT_SCALE);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int segment = 0; segment * SEGMENT_SIZE < rows; segment++) {
+            int length = Math.min(SEGMENT_SIZE, rows - segment * SEGMENT_SIZE);
+            short[] from = current.from[segment];
+            short[] to = current.to[segment];
+            long[] timestamp = current.timestamp[segment];
+            long[] amount = current.amount[segment];
+            // A segment sum cannot overflow: 65536 amounts of at most 2^47 each
+            long segmentCount = 0;
+            long segmentSum = 0;
+            for (int i = 0; i < length; i++) {
+                long ts = timestamp[i];
+                boolean match = (anyFrom | from[i] == fromCode) & (anyTo | to[i] == toCode) & ts >= lower & ts < upper;
+                if (match) {
+                    long a = amount[i];
+                    segmentCount++;
+                    segmentSum += a;
+                    min = Math.min(min, a);
+                    max = Math.max(max, a);
+                }
+            }
+            count += segmentCount;
+            sum = sum.add(BigDecimal.valueOf(segmentSum, AMOUNT_SCALE));
+        }
+        return new DealScanDTO(count, sum,
+                count == 0 ? null : BigDecimal.valueOf(min, AMOUNT_SCALE),
+                count == 0 ? null : BigDecimal.valueOf(max, AMOUNT_SCALE),
+                rows);
+    }
+
+    private short codeId(String code) {
+        Short id = codeIds.get(code);
+        if (id == null) {
+            if (codeIds.size() == Short.MAX_VALUE) {
+                throw new IllegalStateException("more than " + Short.MAX_VALUE + " currency codes");
+            }
+            id = (short) codeIds.size();
+            codeIds.put(code, id);
+        }
+        return id;
+    }
+
+    static long epochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    /**
+     * The amount as stored by deal_amount DECIMAL(19, 2), times 100. Amounts from 2^47
+     * upwards (about 1.4 trillion) are rejected so that segment sums cannot overflow;
+     * {@link #append} skips deals carrying them.
+     */
+    static long scaled(BigDecimal amount) {
+        long scaled = amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (Math.abs(scaled) >= 1L << 47) {
+            throw new ArithmeticException("amount " + amount + " is out of the columnar range");
+        }
+        return scaled;
+    }
+
+    private static final class Columns {
+
+        final short[][] from;
+        final short[][] to;
+        final long[][] timestamp;
+        final long[][] amount;
+
+        Columns(int segments) {
+            from = new short[segments][];
+            to = new short[segments][];
+            timestamp = new long[segments][];
+            amount = new long[segments][];
+        }
+
+        private Columns(short[][] from, short[][] to, long[][] timestamp, long[][] amount) {
+            this.from = from;
+            this.to = to;
+            this.timestamp = timestamp;
+            this.amount = amount;
+        }
+
+        int segments() {
+            return from.length;
+        }
+
+        Columns grow() {
+            int segments = segments() + 1;
+            Columns grown = new Columns(Arrays.copyOf(from, segments), Arrays.copyOf(to, segments),
+                    Arrays.copyOf(timestamp, segments), Arrays.copyOf(amount, segments));
+            grown.from[segments - 1] = new short[SEGMENT_SIZE];
+            grown.to[segments - 1] = new short[SEGMENT_SIZE];
+            grown.timestamp[segments - 1] = new long[SEGMENT_SIZE];
+            grown.amount[segments - 1] = new long[SEGMENT_SIZE];
+            return grown;
+        }
+    }
+}
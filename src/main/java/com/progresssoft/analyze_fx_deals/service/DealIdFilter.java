@@ -0,0 +1,220 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.repository.DealQueryRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filter over every stored deal id, so imports only ask the database about ids
+ * the filter may have seen. It never answers "absent" for a stored id; a "present"
+ * answer is wrong with roughly the configured probability while the table holds no
+ * more than the expected number of ids.
+ * <p>
+ * Sizing is the usual m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hashes: 9.6 bits
+ * and 7 hashes per id at p = 1%, so 100M ids take 114 MiB and 10M ids 11.4 MiB.
+ * <p>
+ * The bits are filled at startup from an id-only cursor over the table and then by
+ * every insert; until that load completes every id is reported as possibly present.
+ * Bits are only ever set, never cleared, so deleting deals requires a restart to
+ * reclaim accuracy.
+ */
+@Slf4j
+@Service
+public class DealIdFilter implements DealInsertListener, MeterBinder {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    @Autowired
+    private DealQueryRepository dealQueryRepository;
+
+    @Value("${deals.id-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deals.id-filter.expected-ids:10000000}")
+    private long expectedIds;
+
+    @Value("${deals.id-filter.false-positive-probability:0.01}")
+    private double falsePositiveProbability;
+
+    private long[] words = new long[1];
+    private long bits = Long.SIZE;
+    private int hashes = 1;
+    private volatile boolean ready;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong definitelyNew = new AtomicLong();
+    private final AtomicLong possiblyPresent = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        bits = bitsFor(expectedIds, falsePositiveProbability);
+        hashes = hashesFor(bits, expectedIds);
+        words = new long[(int) (bits / Long.SIZE)];
+        log.info("Deal id filter: " + bits / 8 / 1024 / 1024 + " MiB, " + hashes + " hashes for "
+                + expectedIds + " ids");
+    }
+
+    /**
+     * Adds every stored id. Inserts committed meanwhile reach the filter through
+     * {@link #onInserted}, so none are missed once the load is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long count = dealQueryRepository.streamIds(this::add);
+        ready = true;
+        log.info("Deal id filter loaded " + count + " ids in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public void onInserted(List<Deal> deals) {
+        if (!enabled) {
+            return;
+        }
+        for (Deal deal : deals) {
+            add(deal.getDealUniqueId());
+        }
+    }
+
+    /**
+     * Whether the filter answers yet; before that, callers must check every id.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(String id) {
+        long hash = hash(id);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            WORDS.getAndBitwiseOr(words, (int) (bit >>> 6), 1L << bit);
+        }
+        ids.incrementAndGet();
+    }
+
+    /**
+     * @return false only if the id was certainly never added
+     */
+    public boolean mightContain(String id) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(id);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definitelyNew.incrementAndGet();
+                return false;
+            }
+        }
+        possiblyPresent.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records ids the filter reported as possibly present that the database did not
+     * hold, which feeds the observed false-positive rate.
+     */
+    public void recordFalsePositives(long count) {
+        falsePositives.addAndGet(count);
+    }
+
+    /**
+     * False positives over all ids that turned out to be new, as observed by imports.
+     */
+    public double observedFalsePositiveRate() {
+        long fp = falsePositives.get();
+        long negatives = fp + definitelyNew.get();
+        return negatives == 0 ? 0.0 : (double) fp / negatives;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("deals.id.filter.checks", definitelyNew, AtomicLong::get)
+                .tag("result", "definitely_new")
+                .description("Deal ids the filter ruled out without a database lookup")
+                .register(registry);
+        FunctionCounter.builder("deals.id.filter.checks", possiblyPresent, AtomicLong::get)
+                .tag("result", "possibly_present")
+                .description("Deal ids the filter sent to the database duplicate check")
+                .register(registry);
+        FunctionCounter.builder("deals.id.filter.false.positives", falsePositives, AtomicLong::get)
+                .description("Possibly-present deal ids the database did not hold")
+                .register(registry);
+        Gauge.builder("deals.id.filter.false.positive.rate", this, DealIdFilter::observedFalsePositiveRate)
+                .description("Observed share of new deal ids the filter reported as possibly present")
+                .register(registry);
+        Gauge.builder("deals.id.filter.ids", ids, AtomicLong::get)
+                .description("Ids added to the filter, duplicates included")
+                .register(registry);
+        Gauge.builder("deals.id.filter.size", this, filter -> filter.bits / 8.0)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Bits needed for the given ids at the given false-positive probability, rounded
+     * up to whole 64-bit words.
+     */
+    static long bitsFor(long expectedIds, double falsePositiveProbability) {
+        if (expectedIds <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("expected ids must be positive and the false-positive probability in (0, 1)");
+        }
+        double bits = -expectedIds * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        long words = (long) Math.ceil(bits / Long.SIZE);
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("deal id filter would need " + words + " words");
+        }
+        return words * Long.SIZE;
+    }
+
+    static int hashesFor(long bits, long expectedIds) {
+        return Math.max(1, (int) Math.round((double) bits / expectedIds * Math.log(2)));
+    }
+
+    // FNV-1a over the UTF-16 code units, which keeps the hash free of allocation
+    private static long hash(String id) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // Murmur3 finalizer, so both probe hashes have well-spread low bits
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+}
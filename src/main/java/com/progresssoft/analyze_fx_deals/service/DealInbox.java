@@ -0,0 +1,277 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.dto.InboxReportDTO;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports deal files dropped into the directory {@code deals.import.inbox.dir}, off
+ * when it is empty. A file is taken once it is complete: when a {@code <file>.done}
+ * marker appears next to it, or when its size and modification time have not changed
+ * for {@code deals.import.inbox.stable-ms}. Dot files, {@code .tmp} and {@code .part}
+ * files are left alone, so writers can also rename a finished file into place.
+ * <p>
+ * Files are imported with {@link DealService#importFile}, at most
+ * {@code deals.import.inbox.max-concurrent-files} at a time, then moved to the
+ * processed or failed subdirectory with a {@code .report.json} next to them. A file
+ * with invalid rows counts as processed, and its report lists them; a failed file
+ * may have had the rows before the error imported. A file that finds the database
+ * busy stays in the inbox and is tried again.
+ */
+@Slf4j
+@Service
+public class DealInbox {
+
+    static final String PROCESSED = "processed";
+    static final String FAILED = "failed";
+    static final String DONE_SUFFIX = ".done";
+    static final String REPORT_SUFFIX = ".report.json";
+    private static final DateTimeFormatter RENAME_PREFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-");
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    @Qualifier("importInboxExecutor")
+    private Executor importInboxExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${deals.import.inbox.dir:}")
+    private String dir;
+
+    @Value("${deals.import.inbox.stable-ms:5000}")
+    private long stableMillis;
+
+    private Path inbox;
+    // Files seen but not complete yet; only the watcher thread touches these
+    private final Map<Path, Observation> pending = new HashMap<>();
+    // Files handed to the importer and not moved away yet
+    private final Set<Path> importing = ConcurrentHashMap.newKeySet();
+    // Files the importer gave back, to be looked at again by the watcher thread
+    private final Queue<Path> retries = new ConcurrentLinkedQueue<>();
+    private volatile Thread watcher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!open()) {
+            return;
+        }
+        WatchService watchService = inbox.getFileSystem().newWatchService();
+        inbox.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        Thread thread = new Thread(() -> watch(watchService), "deal-inbox-watcher");
+        thread.setDaemon(true);
+        watcher = thread;
+        thread.start();
+        log.info("Watching deal inbox " + inbox);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = watcher;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * @return false if no inbox is configured
+     */
+    boolean open() throws IOException {
+        if (dir == null || dir.isBlank()) {
+            return false;
+        }
+        inbox = Paths.get(dir.trim()).toAbsolutePath();
+        Files.createDirectories(inbox.resolve(PROCESSED));
+        Files.createDirectories(inbox.resolve(FAILED));
+        return true;
+    }
+
+    private void watch(WatchService watchService) {
+        long pollMillis = Math.max(100, Math.min(stableMillis, 1000));
+        try (watchService) {
+            // Files dropped while the application was down
+            scan();
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            scan();
+                        } else {
+                            offer(inbox.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                }
+                submitReady(System.currentTimeMillis());
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Deal inbox watcher stopped: " + e.getMessage());
+        }
+    }
+
+    void scan() throws IOException {
+        try (Stream<Path> files = Files.list(inbox)) {
+            files.forEach(this::offer);
+        }
+    }
+
+    /**
+     * Notes a file, or its marker, that was created or changed in the inbox.
+     */
+    void offer(Path path) {
+        String name = path.getFileName().toString();
+        if (name.endsWith(DONE_SUFFIX)) {
+            name = name.substring(0, name.length() - DONE_SUFFIX.length());
+            path = path.resolveSibling(name);
+        }
+        if (name.startsWith(".") || name.endsWith(".tmp") || name.endsWith(".part") || name.endsWith(REPORT_SUFFIX)
+                || importing.contains(path)) {
+            return;
+        }
+        pending.putIfAbsent(path, new Observation(-1, -1, 0));
+    }
+
+    /**
+     * Hands the pending files that are complete to the importer.
+     */
+    void submitReady(long now) {
+        for (Path retry = retries.poll(); retry != null; retry = retries.poll()) {
+            offer(retry);
+        }
+        Iterator<Map.Entry<Path, Observation>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Observation> entry = it.next();
+            Path file = entry.getKey();
+            boolean marked = Files.exists(marker(file));
+            if (!Files.isRegularFile(file)) {
+                // Gone, or a directory; a marker may also come before its file
+                if (!marked) {
+                    it.remove();
+                }
+                continue;
+            }
+            boolean ready = marked;
+            if (!ready) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    long modified = attributes.lastModifiedTime().toMillis();
+                    Observation seen = entry.getValue();
+                    if (attributes.size() != seen.size || modified != seen.modified) {
+                        entry.setValue(new Observation(attributes.size(), modified, now));
+                    } else {
+                        ready = now - seen.since >= stableMillis;
+                    }
+                } catch (IOException e) {
+                    it.remove();
+                    continue;
+                }
+            }
+            if (ready) {
+                it.remove();
+                importing.add(file);
+                importInboxExecutor.execute(() -> importFile(file));
+            }
+        }
+    }
+
+    void importFile(Path file) {
+        String name = file.getFileName().toString();
+        log.info("Importing inbox file " + name);
+        InboxReportDTO report;
+        try {
+            ImportSummaryDTO summary = dealService.importFile(file, ImportListener.NONE);
+            report = new InboxReportDTO(name, InboxReportDTO.Status.PROCESSED, LocalDateTime.now(), summary, null);
+        } catch (RejectedExecutionException e) {
+            log.warn("Database busy, inbox file " + name + " will be tried again");
+            importing.remove(file);
+            retries.add(file);
+            return;
+        } catch (Exception e) {
+            log.error("Inbox file " + name + " failed: " + e.getMessage());
+            report = new InboxReportDTO(name, InboxReportDTO.Status.FAILED, LocalDateTime.now(), null,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        try {
+            Path target = move(file, report.getStatus() == InboxReportDTO.Status.PROCESSED ? PROCESSED : FAILED);
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .writeValue(target.resolveSibling(target.getFileName() + REPORT_SUFFIX).toFile(), report);
+            Files.deleteIfExists(marker(file));
+            log.info("Inbox file " + name + " moved to " + target);
+        } catch (IOException e) {
+            log.error("Could not move inbox file " + name + ": " + e.getMessage());
+        } finally {
+            importing.remove(file);
+        }
+    }
+
+    /**
+     * Moves the file into the folder, prefixing its name with the time if the folder
+     * already has a file of that name.
+     */
+    private Path move(Path file, String folder) throws IOException {
+        Path target = inbox.resolve(folder).resolve(file.getFileName());
+        if (Files.exists(target)) {
+            target = target.resolveSibling(LocalDateTime.now().format(RENAME_PREFIX) + file.getFileName());
+        }
+        return Files.move(file, target);
+    }
+
+    private static Path marker(Path file) {
+        return file.resolveSibling(file.getFileName() + DONE_SUFFIX);
+    }
+
+    private static final class Observation {
+        private final long size;
+        private final long modified;
+        // when size and modified were first seen
+        private final long since;
+
+        Observation(long size, long modified, long since) {
+            this.size = size;
+            this.modified = modified;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.util.List;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+/**
+ * Read-side structures that follow the deals table. Every bean of this type is handed
+ * each batch of newly inserted deals, with amounts as the table stores them, once the
+ * batch is committed; writers call it concurrently, and the list is only valid during
+ * the call.
+ */
+@FunctionalInterface
+public interface DealInsertListener {
+
+    void onInserted(List<Deal> deals);
+}
@@ -0,0 +1,69 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.progresssoft.analyze_fx_deals.repository.DealBatchRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealPartitionRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the partitions of the coming months in place, so inserting current deals
+ * never has to create one, and fills deal_ids on a database whose deals predate it.
+ * Failures are only logged: inserts create missing partitions themselves.
+ */
+@Slf4j
+@Service
+public class DealPartitionMaintenance {
+
+    @Autowired
+    private DealPartitionRepository dealPartitionRepository;
+
+    @Autowired
+    private DealBatchRepository dealBatchRepository;
+
+    @Value("${deals.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (dealBatchRepository.hasNoIds()) {
+            int ids = dealBatchRepository.backfillIds();
+            if (ids > 0) {
+                log.info("Filled deal_ids from existing deals: " + ids + " ids");
+            }
+        }
+        createUpcomingPartitions();
+    }
+
+    /**
+     * Creates the partitions of this month and the next monthsAhead ones.
+     */
+    @Scheduled(cron = "${deals.partitions.maintenance-cron:0 0 1 * * *}")
+    public void createUpcomingPartitions() {
+        try {
+            dealPartitionRepository.refresh();
+            if (!dealPartitionRepository.isPartitioned()) {
+                return;
+            }
+            List<YearMonth> months = new ArrayList<>(monthsAhead + 1);
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                months.add(current.plusMonths(i));
+            }
+            dealPartitionRepository.ensurePartitions(months);
+        } catch (DataAccessException e) {
+            log.error("Could not create upcoming deals partitions: " + e.getMessage());
+        }
+    }
+}
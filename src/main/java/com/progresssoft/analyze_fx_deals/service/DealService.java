@@ -1,18 +1,38 @@
 package com.progresssoft.analyze_fx_deals.service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Path;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import com.progresssoft.analyze_fx_deals.dto.DealPageDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
 import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealFormat;
+import com.progresssoft.analyze_fx_deals.parser.ImportCheckpoint;
+import com.progresssoft.analyze_fx_deals.repository.DealFilter;
 
 public interface DealService {
 
-    abstract List<Deal> importDeals(MultipartFile file) throws Exception;
+    abstract ImportSummaryDTO importDeals(MultipartFile file, ImportListener listener) throws Exception;
+
+    abstract ImportSummaryDTO importDeals(InputStream in, String contentType, String fileName, ImportListener listener) throws IOException;
+
+    abstract ImportSummaryDTO importFile(Path path, ImportListener listener) throws IOException;
+
+    abstract ImportSummaryDTO importDealsFrom(Reader reader, ImportListener listener) throws IOException;
+
+    abstract ImportSummaryDTO importDealsFrom(Reader reader, DealFormat format, ImportCheckpoint start, ImportListener listener) throws IOException;
+
+    abstract ImportSummaryDTO bulkImportDeals(MultipartFile file) throws Exception;
 
     abstract void saveDeal(Deal d);
 
-    abstract List<Deal> getAllDeals();
+    abstract DealPageDTO getDeals(DealFilter filter, String cursor, Integer limit);
+
+    abstract long exportDeals(DealSink sink) throws IOException;
 
     abstract Deal getDealById(String id);
 
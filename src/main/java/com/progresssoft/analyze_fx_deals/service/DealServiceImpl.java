@@ -1,23 +1,65 @@
 package com.progresssoft.analyze_fx_deals.service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.progresssoft.analyze_fx_deals.dto.RequestDTO;
+import com.progresssoft.analyze_fx_deals.config.DealCacheConfig;
+import com.progresssoft.analyze_fx_deals.dto.DealPageDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.dto.RowOutcomeDTO;
 import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealChunkSource;
+import com.progresssoft.analyze_fx_deals.parser.DealChunkSplitter;
+import com.progresssoft.analyze_fx_deals.parser.DealFormat;
+import com.progresssoft.analyze_fx_deals.parser.DealInput;
+import com.progresssoft.analyze_fx_deals.parser.DealReader;
+import com.progresssoft.analyze_fx_deals.parser.MappedDealChunkSplitter;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+import com.progresssoft.analyze_fx_deals.parser.ImportCheckpoint;
+import com.progresssoft.analyze_fx_deals.repository.BulkLoadResult;
+import com.progresssoft.analyze_fx_deals.repository.DealBatchRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealCopyRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealFilter;
+import com.progresssoft.analyze_fx_deals.repository.DealQueryRepository;
 import com.progresssoft.analyze_fx_deals.repository.DealRepository;
-import jakarta.validation.*;
+import com.progresssoft.analyze_fx_deals.validation.DealValidator;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -25,87 +67,658 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class DealServiceImpl implements DealService {
 
+    // Scale of deals.deal_amount
+    private static final int AMOUNT_SCALE = 2;
+
     @Autowired
     private DealRepository dealRepository;
 
     @Autowired
-    private Validator validator;
+    private DealBatchRepository dealBatchRepository;
+
+    @Autowired
+    private DealCopyRepository dealCopyRepository;
+
+    @Autowired
+    private DealQueryRepository dealQueryRepository;
+
+    @Autowired
+    private List<DealInsertListener> insertListeners;
+
+    @Autowired
+    private DealIdFilter dealIdFilter;
+
+    @Autowired
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    private DbConcurrencyLimiter dbConcurrencyLimiter;
+
+    @Autowired
+    private DealValidator dealValidator;
+
+    @Autowired
+    private ImportBatches importBatches;
+
+    @Value("${deals.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${deals.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    @Value("${deals.import.csv.delimiter:,}")
+    private char csvDelimiter;
 
+    @Value("${deals.query.default-page-size:100}")
+    private int defaultPageSize;
 
+    @Value("${deals.query.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${deals.import.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${deals.import.max-chunks-in-flight:16}")
+    private int maxChunksInFlight;
+
+    @Autowired
+    @Qualifier("importWorkerExecutor")
+    private ExecutorService importWorkerExecutor;
+
+    @Autowired
+    @Qualifier("importWriterExecutor")
+    private ExecutorService importWriterExecutor;
+
+    /**
+     * Imports CSV or NDJSON, either of them gzip or zstd compressed, see {@link DealInput}.
+     * An upload whose bytes were imported before is only hashed, and answered with the
+     * earlier summary, see {@link ImportBatches}.
+     */
     @Override
-    public List<Deal> importDeals(MultipartFile file) throws IOException{
+    public ImportSummaryDTO importDeals(MultipartFile file, ImportListener listener) throws IOException{
+        String fingerprint = importBatches.fingerprint(file.getInputStream());
+        ImportSummaryDTO prior = importBatches.findCompleted(fingerprint);
+        if (prior != null) {
+            return repeated(file.getOriginalFilename(), prior);
+        }
+        ImportSummaryDTO summary = importStream(file.getInputStream(), file.getContentType(), file.getOriginalFilename(), listener);
+        importBatches.record(fingerprint, file.getOriginalFilename(), file.getSize(), summary);
+        return summary;
+    }
 
-        List<Deal> deals = new ArrayList<>();
-        BufferedReader bReader = new BufferedReader(new InputStreamReader(file.getInputStream()));
+    /**
+     * The stream is read chunk by chunk as the pipeline takes it, so a request body is
+     * parsed while the rest of it is still arriving. It cannot be read twice, so it is
+     * hashed on the way and always imported; a later upload of the same bytes is not.
+     */
+    @Override
+    public ImportSummaryDTO importDeals(InputStream in, String contentType, String fileName, ImportListener listener)
+            throws IOException {
+        MessageDigest digest = importBatches.newDigest();
+        ProgressInputStream counted = new ProgressInputStream(digest == null ? in : new DigestInputStream(in, digest));
+        ImportSummaryDTO summary = importStream(counted, contentType, fileName, listener);
+        if (digest != null) {
+            importBatches.record(ImportBatches.toFingerprint(digest), fileName, counted.getBytesRead(), summary);
+        }
+        return summary;
+    }
 
-        String line;
-        boolean firstLine = true;
+    private ImportSummaryDTO importStream(InputStream in, String contentType, String fileName, ImportListener listener)
+            throws IOException {
+        DealInput input = DealInput.open(in, contentType, fileName);
+        return importDealsFrom(input.reader(), input.getFormat(), null, listener);
+    }
 
-        while ((line = bReader.readLine()) != null) {
-            if(firstLine) {
-                firstLine = false;
-                continue;
+    private ImportSummaryDTO repeated(String fileName, ImportSummaryDTO prior) {
+        log.info("File " + fileName + " was imported before, answering with that import's summary");
+        importMetrics.recordRepeatedFile();
+        return prior;
+    }
+
+    /**
+     * Runs the import pipeline: this thread cuts the input into line-aligned chunks,
+     * the worker pool parses and validates them in parallel, and the writer pool
+     * commits them. Chunks are taken back in file order to drop in-file duplicates and
+     * report outcomes, and at most maxChunksInFlight parsed and writerThreads written
+     * chunks are pending at any time, which bounds memory whatever the file size.
+     * Once a chunk and all chunks before it are committed, its end is passed to
+     * {@link ImportListener#onCheckpoint}.
+     */
+    @Override
+    public ImportSummaryDTO importDealsFrom(Reader reader, ImportListener listener) throws IOException {
+        return importDealsFrom(reader, DealFormat.CSV, null, listener);
+    }
+
+    @Override
+    public ImportSummaryDTO importDealsFrom(Reader reader, DealFormat format, ImportCheckpoint start,
+                                           ImportListener listener) throws IOException {
+        return importChunks(new DealChunkSplitter(reader, format, batchSize, start), listener);
+    }
+
+    /**
+     * Imports a file on this host by mapping it into memory, see
+     * {@link MappedDealChunkSplitter}: no copy of it is read through a stream, and
+     * workers decode their chunks from the mapping. Compressed files are read as a
+     * stream instead.
+     */
+    @Override
+    public ImportSummaryDTO importFile(Path path, ImportListener listener) throws IOException {
+        String fileName = path.getFileName().toString();
+        String fingerprint = importBatches.fingerprint(Files.newInputStream(path));
+        ImportSummaryDTO prior = importBatches.findCompleted(fingerprint);
+        if (prior != null) {
+            return repeated(fileName, prior);
+        }
+        ImportSummaryDTO summary;
+        DealInput input = DealInput.open(Files.newInputStream(path), null, fileName);
+        if (input.isCompressed()) {
+            summary = importDealsFrom(input.reader(), input.getFormat(), null, listener);
+        } else {
+            input.close();
+            // The splitter closes the channel too; closing it here covers a failing constructor
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                summary = importChunks(new MappedDealChunkSplitter(channel, input.getFormat(), batchSize), listener);
             }
+        }
+        importBatches.record(fingerprint, fileName, Files.size(path), summary);
+        return summary;
+    }
+
+    private ImportSummaryDTO importChunks(DealChunkSource source, ImportListener listener) throws IOException {
+        long startNanos = System.nanoTime();
+        ImportSummaryDTO summary = new ImportSummaryDTO();
+        Set<String> seenIds = new HashSet<>();
+        Deque<Future<ParsedChunk>> parsing = new ArrayDeque<>();
+        Deque<Future<ParsedChunk>> writing = new ArrayDeque<>();
 
-            String[] fields = line.split(",");
-            if(fields.length != 5) {
-                throw new IllegalArgumentException("Invalid row format");
+        try (source) {
+            DealChunkSplitter.Chunk chunk;
+            while ((chunk = source.next()) != null) {
+                DealChunkSplitter.Chunk toParse = chunk;
+                parsing.add(importWorkerExecutor.submit(() -> parseChunk(toParse)));
+                if (parsing.size() >= maxChunksInFlight) {
+                    dispatch(await(parsing.poll()), seenIds, writing, summary, listener);
+                }
+                // Chunks already parsed go to the writers before the next read, which may
+                // wait on a slow upload
+                while (!parsing.isEmpty() && parsing.peek().isDone()) {
+                    dispatch(await(parsing.poll()), seenIds, writing, summary, listener);
+                }
+            }
+            while (!parsing.isEmpty()) {
+                dispatch(await(parsing.poll()), seenIds, writing, summary, listener);
+            }
+            while (!writing.isEmpty()) {
+                report(await(writing.poll()), summary, listener);
             }
+        } finally {
+            parsing.forEach(f -> f.cancel(true));
+            writing.forEach(f -> f.cancel(true));
+        }
 
-            RequestDTO rDto = new RequestDTO();
-            rDto.setDealUniqueId(fields[0]);
-            rDto.setFromCurrencyIsoCode(fields[1]);
-            rDto.setToCurrencyIsoCode(fields[2]);
-            rDto.setDealTimestamp(LocalDateTime.parse(fields[3]));
-            rDto.setDealAmount(new BigDecimal(fields[4]));
+        long elapsed = System.nanoTime() - startNanos;
+        importMetrics.recordImport(false, elapsed);
+        summary.setElapsedMillis(elapsed / 1_000_000);
+        log.info("Import finished: " + summary.getInserted() + " inserted, " + summary.getDuplicates()
+                + " duplicates, " + summary.getInvalid() + " invalid in " + summary.getElapsedMillis() + " ms");
+        return summary;
+    }
 
-            Set<ConstraintViolation<RequestDTO>> violations = validator.validate(rDto);
-            if (!violations.isEmpty()) {
-                String errorMsg = violations.stream()
-                                            .map(ConstraintViolation::getMessage)
-                                            .collect(Collectors.joining(", "));
-                String msg = "Error in Deal with id : " + rDto.getDealUniqueId() + " " + errorMsg;
-                log.warn(msg);
+    private ParsedChunk parseChunk(DealChunkSplitter.Chunk chunk) throws IOException {
+        long start = System.nanoTime();
+        long validateNanos = 0;
+        ParsedChunk parsed = new ParsedChunk(batchSize, chunk.getEnd());
+        DealReader reader = chunk.reader(csvDelimiter);
+        while (reader.nextRecord()) {
+            long lineNumber = reader.getLineNumber();
+            DealRecord deal;
+            try {
+                deal = reader.getRecord();
+            } catch (DateTimeParseException | NumberFormatException e) {
+                parsed.outcomes.add(new RowOutcomeDTO(lineNumber, reader.getDealUniqueId(), RowOutcomeDTO.Status.INVALID,
+                        unparseable(reader.getDealUniqueId(), e)));
                 continue;
             }
+            long validateStart = System.nanoTime();
+            String error = validate(deal);
+            validateNanos += System.nanoTime() - validateStart;
+            if (error != null) {
+                parsed.outcomes.add(new RowOutcomeDTO(lineNumber, deal.getDealUniqueId(), RowOutcomeDTO.Status.INVALID, error));
+            } else {
+                parsed.add(toDeal(deal), lineNumber);
+            }
+        }
+        importMetrics.recordValidate(validateNanos);
+        importMetrics.recordParse(System.nanoTime() - start - validateNanos);
+        return parsed;
+    }
 
-            if (dealRepository.existsByDealUniqueId(rDto.getDealUniqueId())) {
-                String msg = "Deal with id " + rDto.getDealUniqueId() + " already exists";
+    /**
+     * Drops ids already seen earlier in the file and hands the rest to a writer. Runs
+     * on the importing thread, in file order.
+     */
+    private void dispatch(ParsedChunk parsed, Set<String> seenIds, Deque<Future<ParsedChunk>> writing,
+                          ImportSummaryDTO summary, ImportListener listener) throws IOException {
+        List<Deal> batch = new ArrayList<>(parsed.deals.size());
+        long[] batchLines = new long[parsed.deals.size()];
+        for (int i = 0; i < parsed.deals.size(); i++) {
+            Deal deal = parsed.deals.get(i);
+            if (seenIds.add(deal.getDealUniqueId())) {
+                batchLines[batch.size()] = parsed.lines[i];
+                batch.add(deal);
+            } else {
+                String msg = "Deal with id " + deal.getDealUniqueId() + " is duplicated in the file";
                 log.warn(msg);
-                continue;
+                parsed.outcomes.add(new RowOutcomeDTO(parsed.lines[i], deal.getDealUniqueId(), RowOutcomeDTO.Status.DUPLICATE, msg));
+            }
+        }
+
+        writing.add(importWriterExecutor.submit(() -> {
+            parsed.outcomes.addAll(writeChunk(batch, batchLines));
+            return parsed;
+        }));
+        if (writing.size() >= writerThreads) {
+            report(await(writing.poll()), summary, listener);
+        }
+    }
+
+    private void report(ParsedChunk written, ImportSummaryDTO summary, ImportListener listener) throws IOException {
+        List<RowOutcomeDTO> outcomes = written.outcomes;
+        outcomes.sort(Comparator.comparingLong(RowOutcomeDTO::getLine));
+        long inserted = summary.getInserted();
+        long duplicates = summary.getDuplicates();
+        long invalid = summary.getInvalid();
+        for (RowOutcomeDTO outcome : outcomes) {
+            switch (outcome.getStatus()) {
+                case IMPORTED -> summary.setInserted(summary.getInserted() + 1);
+                case DUPLICATE -> summary.setDuplicates(summary.getDuplicates() + 1);
+                case INVALID -> {
+                    summary.setInvalid(summary.getInvalid() + 1);
+                    addError(summary, "Line " + outcome.getLine() + ": " + outcome.getMessage());
+                }
             }
+            listener.onRow(outcome);
+        }
+        importMetrics.recordRows(summary.getInserted() - inserted, summary.getDuplicates() - duplicates,
+                summary.getInvalid() - invalid);
+        listener.onCheckpoint(written.end);
+    }
 
-            // Manual mapping instead of mapper
-            Deal deal = new Deal();
-            deal.setDealUniqueId(rDto.getDealUniqueId());
-            deal.setFromCurrencyIsoCode(rDto.getFromCurrencyIsoCode());
-            deal.setToCurrencyIsoCode(rDto.getToCurrencyIsoCode());
-            deal.setDealTimestamp(rDto.getDealTimestamp());
-            deal.setDealAmount(rDto.getDealAmount());
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
 
-            saveDeal(deal);
-            String msg = "Deal with id : " + deal.getDealUniqueId() + " created successfully";
-            log.info(msg);
-            deals.add(deal);
+    @Override
+    public ImportSummaryDTO bulkImportDeals(MultipartFile file) throws IOException {
+        String fingerprint = importBatches.fingerprint(file.getInputStream());
+        ImportSummaryDTO prior = importBatches.findCompleted(fingerprint);
+        if (prior != null) {
+            return repeated(file.getOriginalFilename(), prior);
+        }
+        ImportSummaryDTO summary = bulkImport(file);
+        importBatches.record(fingerprint, file.getOriginalFilename(), file.getSize(), summary);
+        return summary;
+    }
+
+    private ImportSummaryDTO bulkImport(MultipartFile file) throws IOException {
+        long start = System.nanoTime();
+        try (DealReader reader = open(file).dealReader(csvDelimiter)) {
+            ImportSummaryDTO summary = new ImportSummaryDTO();
+            ValidDealIterator deals = new ValidDealIterator(reader, summary);
+            List<Deal> inserted = new ArrayList<>(batchSize);
+            BulkLoadResult result;
+            try (DbConcurrencyLimiter.Permit permit = dbConcurrencyLimiter.acquire()) {
+                result = dealCopyRepository.copyAndMerge(deals, deal -> {
+                    inserted.add(deal);
+                    if (inserted.size() == batchSize) {
+                        notifyInserted(inserted);
+                        inserted.clear();
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            notifyInserted(inserted);
+            summary.setInserted(result.getInserted());
+            summary.setDuplicates(result.getStaged() - result.getInserted());
+            long elapsed = System.nanoTime() - start;
+            importMetrics.recordImport(true, elapsed);
+            importMetrics.recordRows(summary.getInserted(), summary.getDuplicates(), summary.getInvalid());
+            summary.setElapsedMillis(elapsed / 1_000_000);
+            log.info("Bulk import finished: " + summary.getInserted() + " inserted, " + summary.getDuplicates()
+                    + " duplicates, " + summary.getInvalid() + " invalid in " + summary.getElapsedMillis() + " ms");
+            return summary;
+        }
+    }
+
+    private void notifyInserted(List<Deal> deals) {
+        if (deals.isEmpty()) {
+            return;
         }
-        
-        bReader.close();
-        return deals;
+        List<Deal> stored = asStored(deals);
+        for (DealInsertListener listener : insertListeners) {
+            listener.onInserted(stored);
+        }
+    }
+
+    /**
+     * The deals as the table holds them: deal_amount rounds the parsed amount half up
+     * to two decimals, so read-side copies must not keep the input's scale. Rows
+     * returned by the bulk merge are already stored and are passed as they are.
+     */
+    static List<Deal> asStored(List<Deal> deals) {
+        List<Deal> stored = null;
+        for (int i = 0; i < deals.size(); i++) {
+            Deal deal = deals.get(i);
+            if (deal.getDealAmount().scale() != AMOUNT_SCALE) {
+                if (stored == null) {
+                    stored = new ArrayList<>(deals);
+                }
+                stored.set(i, new Deal(deal.getDealUniqueId(), deal.getFromCurrencyIsoCode(), deal.getToCurrencyIsoCode(),
+                        deal.getDealTimestamp(), deal.getDealAmount().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP)));
+            }
+        }
+        return stored != null ? stored : deals;
+    }
+
+    private static DealInput open(MultipartFile file) throws IOException {
+        return DealInput.open(file.getInputStream(), file.getContentType(), file.getOriginalFilename());
+    }
+
+    private static Deal toDeal(DealRecord record) {
+        return new Deal(record.getDealUniqueId(), record.getFromCurrencyIsoCode(), record.getToCurrencyIsoCode(),
+                record.getDealTimestamp(), record.getDealAmount());
+    }
+
+    /**
+     * @return the joined violation messages, or null when the row is valid
+     */
+    private String validate(DealRecord deal) {
+        return logInvalid(deal.getDealUniqueId(), dealValidator.validate(deal));
+    }
+
+    /**
+     * A row whose timestamp or amount cannot be parsed is invalid like one that fails
+     * validation, instead of failing the whole import.
+     *
+     * @return the error message of the row
+     */
+    private static String unparseable(String dealUniqueId, RuntimeException e) {
+        String error = e instanceof DateTimeParseException timestamp
+                ? "Deal timestamp must be an ISO-8601 date and time: '" + timestamp.getParsedString() + "'"
+                : "Deal amount must be a decimal number";
+        return logInvalid(dealUniqueId, error);
+    }
+
+    private static String logInvalid(String dealUniqueId, String errorMsg) {
+        if (errorMsg != null) {
+            String msg = "Error in Deal with id : " + dealUniqueId + " " + errorMsg;
+            log.warn(msg);
+        }
+        return errorMsg;
+    }
+
+    private void addError(ImportSummaryDTO summary, String error) {
+        if (summary.getErrors().size() < maxReportedErrors) {
+            summary.getErrors().add(error);
+        }
+    }
+
+    /**
+     * Checks the batch against the table in one query and inserts the new deals.
+     * Ids the id filter rules out are known to be new and are left out of the query.
+     *
+     * @return the outcome of every deal of the batch
+     */
+    private List<RowOutcomeDTO> writeChunk(List<Deal> batch, long[] batchLines) throws IOException {
+        List<RowOutcomeDTO> outcomes = new ArrayList<>(batch.size());
+        if (batch.isEmpty()) {
+            return outcomes;
+        }
+        Set<String> inserted;
+        try (DbConcurrencyLimiter.Permit permit = dbConcurrencyLimiter.acquire()) {
+            inserted = checkAndInsert(batch);
+        }
+        List<Deal> insertedDeals = new ArrayList<>(inserted.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String id = batch.get(i).getDealUniqueId();
+            if (inserted.contains(id)) {
+                insertedDeals.add(batch.get(i));
+                String msg = "Deal with id : " + id + " created successfully";
+                log.debug(msg);
+                outcomes.add(new RowOutcomeDTO(batchLines[i], id, RowOutcomeDTO.Status.IMPORTED, msg));
+            } else {
+                String msg = "Deal with id " + id + " already exists";
+                log.warn(msg);
+                outcomes.add(new RowOutcomeDTO(batchLines[i], id, RowOutcomeDTO.Status.DUPLICATE, msg));
+            }
+        }
+        notifyInserted(insertedDeals);
+        return outcomes;
+    }
+
+    /**
+     * Duplicate check and insert of one chunk, the part holding a database connection.
+     *
+     * @return the ids that were actually inserted
+     */
+    private Set<String> checkAndInsert(List<Deal> batch) {
+        long checkStart = System.nanoTime();
+        boolean filtering = dealIdFilter.isReady();
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Deal deal : batch) {
+            if (!filtering || dealIdFilter.mightContain(deal.getDealUniqueId())) {
+                ids.add(deal.getDealUniqueId());
+            }
+        }
+        Set<String> existing = ids.isEmpty() ? Set.of() : dealBatchRepository.findExistingIds(ids);
+        if (filtering) {
+            dealIdFilter.recordFalsePositives(ids.size() - existing.size());
+        }
+        importMetrics.recordDuplicateCheck(System.nanoTime() - checkStart);
+
+        List<Deal> fresh = batch;
+        if (!existing.isEmpty()) {
+            fresh = new ArrayList<>(batch.size() - existing.size());
+            for (Deal deal : batch) {
+                if (!existing.contains(deal.getDealUniqueId())) {
+                    fresh.add(deal);
+                }
+            }
+        }
+
+        // ON CONFLICT still guards against a concurrent import inserting the same id in between
+        long persistStart = System.nanoTime();
+        Set<String> inserted = fresh.isEmpty()
+                ? Set.of()
+                : dealBatchRepository.insertIgnoringDuplicates(fresh);
+        importMetrics.recordPersist(System.nanoTime() - persistStart);
+        return inserted;
     }
 
     @Override
-    public void saveDeal(Deal d) { 
-        dealRepository.save(d);
+    @CacheEvict(cacheNames = DealCacheConfig.DEALS_BY_ID, key = "#d.dealUniqueId")
+    public void saveDeal(Deal d) {
+        // Same statement as imports, so the id is claimed and the deal rolled up
+        List<Deal> deal = List.of(d);
+        if (!dealBatchRepository.insertIgnoringDuplicates(deal).isEmpty()) {
+            notifyInserted(deal);
+        }
     }
 
     @Override
-    public List<Deal> getAllDeals() {
-        return dealRepository.findAll();
+    public DealPageDTO getDeals(DealFilter filter, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        DealFilter normalized = normalize(filter);
+        List<Deal> deals;
+        if (cursor == null || cursor.isEmpty()) {
+            deals = dealQueryRepository.findPage(normalized, null, null, pageSize + 1);
+        } else {
+            String[] key = decodeCursor(cursor);
+            deals = dealQueryRepository.findPage(normalized, LocalDateTime.parse(key[0]), key[1], pageSize + 1);
+        }
+
+        // One extra row tells whether another page follows without a count query
+        String nextCursor = null;
+        if (deals.size() > pageSize) {
+            deals = deals.subList(0, pageSize);
+            Deal last = deals.get(pageSize - 1);
+            nextCursor = encodeCursor(last);
+        }
+        return new DealPageDTO(deals, nextCursor);
     }
 
     @Override
+    public long exportDeals(DealSink sink) throws IOException {
+        try {
+            return dealQueryRepository.streamAll(deal -> {
+                try {
+                    sink.accept(deal);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static DealFilter normalize(DealFilter filter) {
+        if (filter.getSince() != null && filter.getUntil() != null && !filter.getSince().isBefore(filter.getUntil())) {
+            throw new IllegalArgumentException("since must be before until");
+        }
+        return new DealFilter(upperCase(filter.getFromCurrencyIsoCode()), upperCase(filter.getToCurrencyIsoCode()),
+                filter.getSince(), filter.getUntil(), filter.getMinAmount());
+    }
+
+    private static String upperCase(String currencyIsoCode) {
+        return currencyIsoCode == null || currencyIsoCode.isEmpty() ? null : currencyIsoCode.toUpperCase(Locale.ROOT);
+    }
+
+    private static String encodeCursor(Deal deal) {
+        String key = deal.getDealTimestamp() + "|" + deal.getDealUniqueId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String timestamp = key.substring(0, separator);
+            LocalDateTime.parse(timestamp);
+            return new String[] {timestamp, key.substring(separator + 1)};
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    @Override
+    @Cacheable(cacheNames = DealCacheConfig.DEALS_BY_ID, sync = true)
     public Deal getDealById(String id) {
         return dealRepository.getDealByDealUniqueId(id);
     }
 
+    /**
+     * Lazily reads the rows, skipping (and counting) the ones that fail validation,
+     * so the bulk path never holds the file in memory. Rows stay DealRecords all the
+     * way into the COPY stream; no Deal is built for them.
+     */
+    private class ValidDealIterator implements Iterator<DealRecord> {
+
+        private final DealReader reader;
+        private final ImportSummaryDTO summary;
+        private DealRecord next;
+
+        ValidDealIterator(DealReader reader, ImportSummaryDTO summary) {
+            this.reader = reader;
+            this.summary = summary;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (!advance()) {
+                    return false;
+                }
+                DealRecord deal;
+                String error;
+                try {
+                    deal = reader.getRecord();
+                    error = validate(deal);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    deal = null;
+                    error = unparseable(reader.getDealUniqueId(), e);
+                }
+                if (error == null) {
+                    next = deal;
+                } else {
+                    summary.setInvalid(summary.getInvalid() + 1);
+                    addError(summary, "Line " + reader.getLineNumber() + ": " + error);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public DealRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DealRecord deal = next;
+            next = null;
+            return deal;
+        }
+
+        private boolean advance() {
+            try {
+                return reader.nextRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Valid deals of one chunk with their line numbers, plus the outcomes known so far:
+     * rejected rows once parsed, every row once written.
+     */
+    private static final class ParsedChunk {
+
+        private final List<Deal> deals;
+        private long[] lines;
+        private final List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        private final ImportCheckpoint end;
+
+        ParsedChunk(int capacity, ImportCheckpoint end) {
+            deals = new ArrayList<>(capacity);
+            lines = new long[Math.max(capacity, 1)];
+            this.end = end;
+        }
+
+        void add(Deal deal, long line) {
+            if (deals.size() == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            }
+            lines[deals.size()] = line;
+            deals.add(deal);
+        }
+    }
+
 }
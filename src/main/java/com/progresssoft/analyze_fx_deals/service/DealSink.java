@@ -0,0 +1,14 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.io.IOException;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+/**
+ * Receives exported deals one at a time, typically writing them to a response.
+ */
+@FunctionalInterface
+public interface DealSink {
+
+    void accept(Deal deal) throws IOException;
+}
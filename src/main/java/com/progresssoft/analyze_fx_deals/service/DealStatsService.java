@@ -0,0 +1,14 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.progresssoft.analyze_fx_deals.dto.DealStatsDTO;
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+
+public interface DealStatsService {
+
+    abstract List<DealStatsDTO> getStats(String fromCurrencyIsoCode, String toCurrencyIsoCode, StatsGranularity granularity,
+                                         LocalDateTime since, LocalDateTime until);
+
+}
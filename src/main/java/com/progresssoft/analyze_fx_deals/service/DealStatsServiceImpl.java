@@ -0,0 +1,244 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.progresssoft.analyze_fx_deals.dto.DealStatsDTO;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+import com.progresssoft.analyze_fx_deals.repository.DealStatsRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves currency-pair statistics from memory. The store mirrors the deal_stats
+ * rollup: it is loaded from the table at startup and then follows every committed
+ * insert, while the table itself is kept up to date by the insert statements.
+ */
+@Slf4j
+@Service
+public class DealStatsServiceImpl implements DealStatsService, DealInsertListener {
+
+    private static final int AVERAGE_SCALE = 4;
+
+    @Autowired
+    private DealStatsRepository dealStatsRepository;
+
+    @Value("${deals.stats.max-buckets:10000}")
+    private int maxBuckets;
+
+    // granularity -> "FROM/TO" -> bucket start -> totals
+    private volatile Map<StatsGranularity, ConcurrentMap<String, NavigableMap<LocalDateTime, Bucket>>> store = newStore();
+    // Deals reported while the table is loaded, by id, to be added onto what was loaded
+    // unless the loaded rollup already counts them
+    private ConcurrentMap<String, Deal> duringLoad;
+    // Shared by inserts, exclusive to start and finish a load, so that every insert
+    // reported during a load is in duringLoad when it is merged
+    private final ReadWriteLock loadLock = new ReentrantReadWriteLock();
+
+    /**
+     * Loads the rollup, first building it from the deals table if deals were stored
+     * before it existed. The current store keeps serving until the load is done. Deals
+     * reported meanwhile are added onto the loaded rollup, except those already stored
+     * in the snapshot it was read from.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadLock.writeLock().lock();
+        try {
+            duringLoad = new ConcurrentHashMap<>();
+        } finally {
+            loadLock.writeLock().unlock();
+        }
+        Map<StatsGranularity, ConcurrentMap<String, NavigableMap<LocalDateTime, Bucket>>> loaded = newStore();
+        long[] rows = {0};
+        try {
+            int rebuilt = dealStatsRepository.read(row -> {
+                bucket(loaded, row.getGranularity(), row.getFromCurrencyIsoCode(), row.getToCurrencyIsoCode(), row.getBucketStart())
+                        .add(row.getCount(), row.getSum(), row.getMin(), row.getMax());
+                rows[0]++;
+            }, storedIds -> {
+                loadLock.writeLock().lock();
+                try {
+                    Set<String> counted = storedIds.of(duringLoad.keySet());
+                    duringLoad.keySet().removeAll(counted);
+                    add(loaded, duringLoad.values());
+                    duringLoad = null;
+                    store = loaded;
+                } finally {
+                    loadLock.writeLock().unlock();
+                }
+            });
+            if (rebuilt > 0) {
+                log.info("Rebuilt deal_stats from existing deals: " + rebuilt + " rows");
+            }
+        } catch (RuntimeException e) {
+            loadLock.writeLock().lock();
+            try {
+                duringLoad = null;
+            } finally {
+                loadLock.writeLock().unlock();
+            }
+            throw e;
+        }
+        log.info("Loaded " + rows[0] + " deal_stats rows");
+    }
+
+    @Override
+    public void onInserted(List<Deal> inserted) {
+        loadLock.readLock().lock();
+        try {
+            add(store, inserted);
+            if (duringLoad != null) {
+                inserted.forEach(deal -> duringLoad.put(deal.getDealUniqueId(), deal));
+            }
+        } finally {
+            loadLock.readLock().unlock();
+        }
+    }
+
+    private static void add(Map<StatsGranularity, ConcurrentMap<String, NavigableMap<LocalDateTime, Bucket>>> store,
+                            Collection<Deal> inserted) {
+        for (Deal deal : inserted) {
+            for (StatsGranularity granularity : StatsGranularity.values()) {
+                bucket(store, granularity, deal.getFromCurrencyIsoCode(), deal.getToCurrencyIsoCode(),
+                        granularity.bucketStart(deal.getDealTimestamp()))
+                        .add(1, deal.getDealAmount(), deal.getDealAmount(), deal.getDealAmount());
+            }
+        }
+    }
+
+    /**
+     * Buckets whose start lies in [since, until), by pair and then by time. A missing
+     * currency matches every pair on that side.
+     */
+    @Override
+    public List<DealStatsDTO> getStats(String fromCurrencyIsoCode, String toCurrencyIsoCode, StatsGranularity granularity,
+                                       LocalDateTime since, LocalDateTime until) {
+        if (since != null && until != null && !since.isBefore(until)) {
+            throw new IllegalArgumentException("since must be before until");
+        }
+        String from = upperCase(fromCurrencyIsoCode);
+        String to = upperCase(toCurrencyIsoCode);
+        ConcurrentMap<String, NavigableMap<LocalDateTime, Bucket>> pairs = store.get(granularity);
+
+        Map<String, NavigableMap<LocalDateTime, Bucket>> matching = new TreeMap<>();
+        if (from != null && to != null) {
+            NavigableMap<LocalDateTime, Bucket> buckets = pairs.get(pairKey(from, to));
+            if (buckets != null) {
+                matching.put(pairKey(from, to), buckets);
+            }
+        } else {
+            pairs.forEach((pair, buckets) -> {
+                int separator = pair.indexOf('/');
+                if ((from == null || from.equals(pair.substring(0, separator)))
+                        && (to == null || to.equals(pair.substring(separator + 1)))) {
+                    matching.put(pair, buckets);
+                }
+            });
+        }
+
+        List<DealStatsDTO> stats = new ArrayList<>();
+        for (Map.Entry<String, NavigableMap<LocalDateTime, Bucket>> entry : matching.entrySet()) {
+            int separator = entry.getKey().indexOf('/');
+            String pairFrom = entry.getKey().substring(0, separator);
+            String pairTo = entry.getKey().substring(separator + 1);
+            for (Map.Entry<LocalDateTime, Bucket> bucket : range(entry.getValue(), since, until).entrySet()) {
+                DealStatsDTO dto = bucket.getValue().toDTO(pairFrom, pairTo, granularity, bucket.getKey());
+                if (dto == null) {
+                    continue;
+                }
+                if (stats.size() == maxBuckets) {
+                    throw new IllegalArgumentException("More than " + maxBuckets
+                            + " buckets match; narrow the range or use a coarser granularity");
+                }
+                stats.add(dto);
+            }
+        }
+        return stats;
+    }
+
+    private static NavigableMap<LocalDateTime, Bucket> range(NavigableMap<LocalDateTime, Bucket> buckets,
+                                                             LocalDateTime since, LocalDateTime until) {
+        if (since != null && until != null) {
+            return buckets.subMap(since, true, until, false);
+        }
+        if (since != null) {
+            return buckets.tailMap(since, true);
+        }
+        if (until != null) {
+            return buckets.headMap(until, false);
+        }
+        return buckets;
+    }
+
+    private static Bucket bucket(Map<StatsGranularity, ConcurrentMap<String, NavigableMap<LocalDateTime, Bucket>>> store,
+                                 StatsGranularity granularity, String from, String to, LocalDateTime bucketStart) {
+        return store.get(granularity)
+                .computeIfAbsent(pairKey(from, to), pair -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(bucketStart, start -> new Bucket());
+    }
+
+    private static Map<StatsGranularity, ConcurrentMap<String, NavigableMap<LocalDateTime, Bucket>>> newStore() {
+        Map<StatsGranularity, ConcurrentMap<String, NavigableMap<LocalDateTime, Bucket>>> store = new EnumMap<>(StatsGranularity.class);
+        for (StatsGranularity granularity : StatsGranularity.values()) {
+            store.put(granularity, new ConcurrentHashMap<>());
+        }
+        return store;
+    }
+
+    private static String pairKey(String from, String to) {
+        return from + "/" + to;
+    }
+
+    private static String upperCase(String currencyIsoCode) {
+        return currencyIsoCode == null || currencyIsoCode.isEmpty() ? null : currencyIsoCode.toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Bucket {
+
+        private long count;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+
+        synchronized void add(long count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+            this.count += count;
+            this.sum = this.sum.add(sum);
+            this.min = this.min == null || min.compareTo(this.min) < 0 ? min : this.min;
+            this.max = this.max == null || max.compareTo(this.max) > 0 ? max : this.max;
+        }
+
+        /**
+         * @return null while the bucket has just been created and nothing is added yet
+         */
+        synchronized DealStatsDTO toDTO(String from, String to, StatsGranularity granularity, LocalDateTime bucketStart) {
+            if (count == 0) {
+                return null;
+            }
+            BigDecimal average = sum.divide(BigDecimal.valueOf(count), AVERAGE_SCALE, RoundingMode.HALF_EVEN);
+            return new DealStatsDTO(from, to, granularity, bucketStart, count, sum, min, max, average);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.model.ImportBatch;
+import com.progresssoft.analyze_fx_deals.repository.ImportBatchRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Files imported to the end, in the import_batches table, so that a byte-identical
+ * re-upload is answered with the earlier summary after one read of the file, without
+ * parsing it or asking the database about its rows. Fingerprints are SHA-256 of the
+ * bytes as uploaded, before decompression. With {@code deals.import.batches.enabled}
+ * off, nothing is hashed or recorded.
+ */
+@Slf4j
+@Component
+public class ImportBatches {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final TypeReference<ArrayList<String>> ERRORS = new TypeReference<>() { };
+
+    @Autowired
+    private ImportBatchRepository importBatchRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${deals.import.batches.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * @return a digest to feed the file through, or null when batches are off
+     */
+    public MessageDigest newDigest() {
+        return enabled ? sha256() : null;
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the stream to the end and closes it.
+     *
+     * @return the fingerprint, or null when batches are off
+     */
+    public String fingerprint(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        if (digest == null) {
+            in.close();
+            return null;
+        }
+        try (in) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return toFingerprint(digest);
+    }
+
+    public static String toFingerprint(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the summary of the earlier import of the file, or null if there was none
+     */
+    public ImportSummaryDTO findCompleted(String fingerprint) {
+        if (fingerprint == null) {
+            return null;
+        }
+        return importBatchRepository.findById(fingerprint)
+                .map(batch -> new ImportSummaryDTO(batch.getInserted(), batch.getDuplicates(), batch.getInvalid(),
+                        batch.getElapsedMillis(), readErrors(batch.getErrors())))
+                .orElse(null);
+    }
+
+    private List<String> readErrors(String errors) {
+        if (errors == null || errors.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (errors.startsWith("[")) {
+            try {
+                return objectMapper.readValue(errors, ERRORS);
+            } catch (JsonProcessingException e) {
+                log.warn("Could not read recorded import errors: " + e.getOriginalMessage());
+            }
+        }
+        // Batches recorded before the errors were stored as JSON have one per line
+        return new ArrayList<>(Arrays.asList(errors.split("\n")));
+    }
+
+    /**
+     * Records a completed import, unless the file was recorded before: a later import of
+     * the same bytes, e.g. through the raw body endpoint, finds every row a duplicate and
+     * must not replace the first summary. Best effort: the deals are in by now, and
+     * failing here only means a re-upload is imported again.
+     */
+    public void record(String fingerprint, String fileName, long fileSize, ImportSummaryDTO summary) {
+        if (fingerprint == null) {
+            return;
+        }
+        try {
+            importBatchRepository.insertIfAbsent(new ImportBatch(fingerprint, fileName, fileSize, summary.getInserted(),
+                    summary.getDuplicates(), summary.getInvalid(), summary.getElapsedMillis(),
+                    objectMapper.writeValueAsString(summary.getErrors()), LocalDateTime.now()));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not record import batch of " + fileName + ": " + e.getMessage());
+        }
+    }
+}
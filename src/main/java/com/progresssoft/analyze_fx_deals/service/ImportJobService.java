@@ -0,0 +1,15 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.progresssoft.analyze_fx_deals.dto.ImportJobDTO;
+
+public interface ImportJobService {
+
+    abstract ImportJobDTO submit(MultipartFile file) throws Exception;
+
+    abstract ImportJobDTO resume(String jobId) throws Exception;
+
+    abstract ImportJobDTO getJob(String jobId);
+
+}
@@ -0,0 +1,471 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.progresssoft.analyze_fx_deals.dto.ImportJobDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.dto.RowOutcomeDTO;
+import com.progresssoft.analyze_fx_deals.model.ImportJob;
+import com.progresssoft.analyze_fx_deals.parser.DealFormat;
+import com.progresssoft.analyze_fx_deals.parser.DealInput;
+import com.progresssoft.analyze_fx_deals.parser.ImportCheckpoint;
+import com.progresssoft.analyze_fx_deals.repository.ImportJobRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class ImportJobServiceImpl implements ImportJobService {
+
+    private static final Set<ImportJob.Status> UNFINISHED = EnumSet.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING);
+    private static final Set<ImportJob.Status> RESUMABLE = EnumSet.of(ImportJob.Status.FAILED, ImportJob.Status.INTERRUPTED);
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private ImportBatches importBatches;
+
+    @Autowired
+    private ImportMetrics importMetrics;
+
+    @Autowired
+    @Qualifier("importJobExecutor")
+    private Executor importJobExecutor;
+
+    @Value("${deals.import.jobs.dir:${java.io.tmpdir}/deal-imports}")
+    private String jobsDir;
+
+    @Value("${deals.import.jobs.progress-interval-ms:1000}")
+    private long progressIntervalMillis;
+
+    @Value("${deals.import.jobs.spool-retention-hours:24}")
+    private long spoolRetentionHours;
+
+    // Jobs of this instance that are not finished yet; the table only has their last checkpoint
+    private final Map<String, RunningJob> running = new ConcurrentHashMap<>();
+
+    /**
+     * Copies the upload to the jobs directory, because the multipart temp file is
+     * deleted when the request completes, and queues the import. A compressed upload
+     * is spooled decompressed, so checkpoints are offsets into the records themselves.
+     * If the same file belongs to a job that failed or was interrupted, that job is
+     * resumed from its checkpoint instead of starting over. An upload whose bytes were
+     * imported before is not spooled; it gets a job completed with the earlier summary,
+     * see {@link ImportBatches}.
+     */
+    @Override
+    public ImportJobDTO submit(MultipartFile file) throws IOException {
+        String fingerprint = importBatches.fingerprint(file.getInputStream());
+        ImportSummaryDTO prior = importBatches.findCompleted(fingerprint);
+        if (prior != null) {
+            return repeated(file, prior);
+        }
+        Path dir = Paths.get(jobsDir);
+        Files.createDirectories(dir);
+        Path path;
+        String checksum;
+        try (DealInput input = DealInput.open(file.getInputStream(), file.getContentType(), file.getOriginalFilename())) {
+            path = dir.resolve(UUID.randomUUID() + input.getFormat().getExtension());
+            checksum = spool(input.getStream(), path);
+        }
+
+        ImportJob job = importJobRepository.findFirstByFileChecksumAndStatusInOrderByCreatedAtDesc(checksum, RESUMABLE)
+                .orElse(null);
+        Path previous = null;
+        if (job != null) {
+            previous = Paths.get(job.getFilePath());
+            job.setFilePath(path.toString());
+            log.info("Resuming import job " + job.getId() + " from line " + job.getCheckpointLine());
+        } else {
+            job = new ImportJob();
+            job.setId(UUID.randomUUID().toString());
+            job.setFileName(file.getOriginalFilename());
+            job.setFilePath(path.toString());
+            job.setFileChecksum(checksum);
+            job.setTotalBytes(Files.size(path));
+            job.setCreatedAt(LocalDateTime.now());
+            log.info("Queued import job " + job.getId() + " for " + file.getOriginalFilename() + " (" + job.getTotalBytes() + " bytes)");
+        }
+        ImportJobDTO queued;
+        try {
+            queued = queue(job, fingerprint, file.getSize());
+        } catch (IllegalArgumentException e) {
+            // Already queued by resume, which may be about to read the previous file
+            Files.deleteIfExists(path);
+            throw e;
+        } catch (RejectedExecutionException e) {
+            deleteReplaced(previous, path);
+            throw e;
+        }
+        deleteReplaced(previous, path);
+        return queued;
+    }
+
+    private static void deleteReplaced(Path previous, Path path) throws IOException {
+        if (previous != null && !previous.equals(path)) {
+            Files.deleteIfExists(previous);
+        }
+    }
+
+    /**
+     * Resumes a failed or interrupted job whose file is still spooled, e.g. after a restart.
+     *
+     * @return the queued job, or null if there is no such job
+     */
+    @Override
+    public ImportJobDTO resume(String jobId) throws IOException {
+        ImportJob job = importJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        if (running.containsKey(jobId) || !RESUMABLE.contains(job.getStatus())) {
+            throw new IllegalArgumentException("Import job " + jobId + " is " + job.getStatus() + " and cannot be resumed");
+        }
+        Path path = Paths.get(job.getFilePath());
+        if (!Files.exists(path) || !checksum(path).equals(job.getFileChecksum())) {
+            throw new IllegalArgumentException("The file of import job " + jobId + " is no longer available, re-submit it to resume");
+        }
+        log.info("Resuming import job " + jobId + " from line " + job.getCheckpointLine());
+        return queue(job, null, 0);
+    }
+
+    @Override
+    public ImportJobDTO getJob(String jobId) {
+        RunningJob runningJob = running.get(jobId);
+        if (runningJob != null) {
+            return toDTO(runningJob.snapshot(), runningJob.rowsAtStart, runningJob.bytesAtStart);
+        }
+        return importJobRepository.findById(jobId).map(job -> toDTO(job, 0, 0)).orElse(null);
+    }
+
+    /**
+     * Jobs left queued or running by a previous process are marked interrupted; their
+     * spooled files are kept so that they can be resumed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedJobs() {
+        for (ImportJob job : importJobRepository.findByStatusIn(UNFINISHED)) {
+            if (!running.containsKey(job.getId())) {
+                log.warn("Import job " + job.getId() + " was interrupted by a restart at line " + job.getCheckpointLine());
+                job.setStatus(ImportJob.Status.INTERRUPTED);
+                job.setFinishedAt(LocalDateTime.now());
+                importJobRepository.save(job);
+            }
+        }
+    }
+
+    /**
+     * Deletes the spooled files of failed and interrupted jobs that were not resumed
+     * within deals.import.jobs.spool-retention-hours; those jobs can then only be
+     * resumed by submitting the file again.
+     */
+    @Scheduled(cron = "${deals.import.jobs.spool-cleanup-cron:0 15 * * * *}")
+    public void deleteExpiredSpools() {
+        LocalDateTime expiry = LocalDateTime.now().minusHours(spoolRetentionHours);
+        for (ImportJob job : importJobRepository.findByStatusInAndFinishedAtBefore(RESUMABLE, expiry)) {
+            if (job.getFilePath() == null || running.containsKey(job.getId())) {
+                continue;
+            }
+            try {
+                if (Files.deleteIfExists(Paths.get(job.getFilePath()))) {
+                    log.info("Deleted spooled file of import job " + job.getId() + ", not resumed since " + job.getFinishedAt());
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete spooled import " + job.getFilePath() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private ImportJobDTO repeated(MultipartFile file, ImportSummaryDTO prior) {
+        LocalDateTime now = LocalDateTime.now();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), ImportJob.Status.COMPLETED, file.getOriginalFilename(),
+                null, null, file.getSize(), file.getSize(), prior.getInserted() + prior.getDuplicates() + prior.getInvalid(),
+                prior.getInserted(), prior.getDuplicates(), prior.getInvalid(), 0, 0, null, now, now, now);
+        importJobRepository.save(job);
+        importMetrics.recordRepeatedFile();
+        log.info("File " + file.getOriginalFilename() + " was imported before, import job " + job.getId()
+                + " completed with that import's summary");
+        return toDTO(job, 0, 0);
+    }
+
+    /**
+     * @param fingerprint the upload's, see {@link ImportBatches}, recorded when the job
+     *                    imports the whole file; null for a job resumed by id
+     */
+    private ImportJobDTO queue(ImportJob job, String fingerprint, long uploadSize) throws IOException {
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setErrorMessage(null);
+        job.setStartedAt(null);
+        job.setFinishedAt(null);
+        RunningJob runningJob = new RunningJob(job, fingerprint, uploadSize);
+        if (running.putIfAbsent(job.getId(), runningJob) != null) {
+            throw new IllegalArgumentException("Import job " + job.getId() + " is already queued");
+        }
+        importJobRepository.save(job);
+        try {
+            importJobExecutor.execute(() -> run(runningJob));
+        } catch (RejectedExecutionException e) {
+            running.remove(job.getId());
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setErrorMessage("Import queue is full");
+            job.setFinishedAt(LocalDateTime.now());
+            importJobRepository.save(job);
+            throw new RejectedExecutionException("Too many imports are queued, try again later", e);
+        }
+        return toDTO(runningJob.snapshot(), runningJob.rowsAtStart, runningJob.bytesAtStart);
+    }
+
+    private void run(RunningJob job) {
+        job.start();
+        flush(job);
+        Path path = Paths.get(job.filePath);
+        // Jobs spooled before other formats were accepted are all .csv
+        DealFormat format = Objects.requireNonNullElse(DealFormat.fromFileName(job.filePath), DealFormat.CSV);
+        ImportCheckpoint from = job.checkpointLine > 0 ? new ImportCheckpoint(job.checkpointLine, job.checkpointOffset) : null;
+        try (ProgressInputStream in = open(path, format, from)) {
+            job.input = in;
+            long[] lastFlush = {System.nanoTime()};
+            ImportSummaryDTO summary = dealService.importDealsFrom(new InputStreamReader(in, StandardCharsets.UTF_8), format, from, new ImportListener() {
+                @Override
+                public void onRow(RowOutcomeDTO outcome) {
+                    job.onRow(outcome);
+                }
+
+                @Override
+                public void onCheckpoint(ImportCheckpoint checkpoint) {
+                    job.checkpoint(checkpoint);
+                    long now = System.nanoTime();
+                    if (now - lastFlush[0] >= progressIntervalMillis * 1_000_000) {
+                        lastFlush[0] = now;
+                        flush(job);
+                    }
+                }
+            });
+            job.finish(ImportJob.Status.COMPLETED, null);
+            log.info("Import job " + job.id + " completed");
+            // A resumed job's summary only covers the rows after its checkpoint
+            if (from == null) {
+                importBatches.record(job.fingerprint, job.fileName, job.uploadSize, summary);
+            }
+        } catch (Exception e) {
+            log.error("Import job " + job.id + " failed at line " + job.checkpointLine, e);
+            job.finish(ImportJob.Status.FAILED, String.valueOf(e.getMessage()));
+        } finally {
+            flush(job);
+            running.remove(job.id);
+            // A failed job keeps its file to be resumed, until deleteExpiredSpools
+            if (job.status == ImportJob.Status.COMPLETED) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete spooled import " + path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the file, or for a resumed job its header line, if the format has one,
+     * followed by the rest of the file from the checkpoint, so that nothing before it
+     * is read again.
+     */
+    private static ProgressInputStream open(Path path, DealFormat format, ImportCheckpoint from) throws IOException {
+        if (from == null) {
+            return new ProgressInputStream(Files.newInputStream(path));
+        }
+        byte[] header = format.hasHeader() ? readHeaderLine(path) : new byte[0];
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(from.getOffset());
+        InputStream rest = new SequenceInputStream(new ByteArrayInputStream(header), Channels.newInputStream(channel));
+        return new ProgressInputStream(rest, from.getOffset() - header.length);
+    }
+
+    private static byte[] readHeaderLine(Path path) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                header.write(b);
+                if (b == '\n') {
+                    break;
+                }
+            }
+        }
+        return header.toByteArray();
+    }
+
+    private static String spool(InputStream upload, Path path) throws IOException {
+        MessageDigest digest = ImportBatches.sha256();
+        try (InputStream in = new DigestInputStream(upload, digest)) {
+            Files.copy(in, path);
+        }
+        return ImportBatches.toFingerprint(digest);
+    }
+
+    private static String checksum(Path path) throws IOException {
+        MessageDigest digest = ImportBatches.sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return ImportBatches.toFingerprint(digest);
+    }
+
+    // Progress is best effort: a failed update must not abort the import itself
+    private void flush(RunningJob job) {
+        try {
+            importJobRepository.save(job.snapshot());
+        } catch (RuntimeException e) {
+            log.warn("Could not save progress of import job " + job.id + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param rowsBefore rows and bytes already done before the current run, left out of the rate
+     */
+    private ImportJobDTO toDTO(ImportJob job, long rowsBefore, long bytesBefore) {
+        double rowsPerSecond = 0;
+        Long etaSeconds = null;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long elapsedMillis = Math.max(Duration.between(job.getStartedAt(), end).toMillis(), 1);
+            rowsPerSecond = (job.getRowsProcessed() - rowsBefore) * 1000.0 / elapsedMillis;
+            long bytesThisRun = job.getBytesRead() - bytesBefore;
+            if (job.getStatus() == ImportJob.Status.COMPLETED) {
+                etaSeconds = 0L;
+            } else if (job.getStatus() == ImportJob.Status.RUNNING && bytesThisRun > 0) {
+                long remaining = Math.max(job.getTotalBytes() - job.getBytesRead(), 0);
+                etaSeconds = (long) Math.ceil(elapsedMillis / 1000.0 * remaining / bytesThisRun);
+            }
+        }
+        return new ImportJobDTO(job.getId(), job.getStatus(), job.getFileName(), job.getTotalBytes(), job.getBytesRead(),
+                job.getRowsProcessed(), job.getInserted(), job.getDuplicates(), job.getInvalid(), job.getCheckpointLine(),
+                rowsPerSecond, etaSeconds, job.getErrorMessage(), job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+
+    /**
+     * Live state of a job, written only by the thread running it and read by status requests.
+     */
+    private static final class RunningJob {
+
+        private final String id;
+        private final String fileName;
+        private final String filePath;
+        private final String fileChecksum;
+        private final long totalBytes;
+        private final LocalDateTime createdAt;
+        private final long rowsAtStart;
+        private final long bytesAtStart;
+        private final String fingerprint;
+        private final long uploadSize;
+
+        private volatile ImportJob.Status status;
+        private volatile ProgressInputStream input;
+        private volatile long bytesRead;
+        private volatile long rowsProcessed;
+        private volatile long inserted;
+        private volatile long duplicates;
+        private volatile long invalid;
+        private volatile long checkpointLine;
+        private volatile long checkpointOffset;
+        private volatile String errorMessage;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        RunningJob(ImportJob job, String fingerprint, long uploadSize) {
+            this.fingerprint = fingerprint;
+            this.uploadSize = uploadSize;
+            id = job.getId();
+            fileName = job.getFileName();
+            filePath = job.getFilePath();
+            fileChecksum = job.getFileChecksum();
+            totalBytes = job.getTotalBytes();
+            createdAt = job.getCreatedAt();
+            status = job.getStatus();
+            // A resumed job continues from its checkpoint with the counters saved with it
+            checkpointLine = job.getCheckpointLine();
+            checkpointOffset = job.getCheckpointOffset();
+            bytesRead = job.getCheckpointOffset();
+            rowsProcessed = job.getRowsProcessed();
+            inserted = job.getInserted();
+            duplicates = job.getDuplicates();
+            invalid = job.getInvalid();
+            rowsAtStart = rowsProcessed;
+            bytesAtStart = bytesRead;
+        }
+
+        void start() {
+            startedAt = LocalDateTime.now();
+            status = ImportJob.Status.RUNNING;
+        }
+
+        void onRow(RowOutcomeDTO outcome) {
+            switch (outcome.getStatus()) {
+                case IMPORTED -> inserted++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+            }
+            rowsProcessed++;
+        }
+
+        void checkpoint(ImportCheckpoint checkpoint) {
+            checkpointLine = checkpoint.getLine();
+            checkpointOffset = checkpoint.getOffset();
+        }
+
+        void finish(ImportJob.Status finalStatus, String error) {
+            ProgressInputStream in = input;
+            if (in != null) {
+                bytesRead = in.getBytesRead();
+            }
+            errorMessage = error;
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        ImportJob snapshot() {
+            ProgressInputStream in = input;
+            long read = in != null && finishedAt == null ? in.getBytesRead() : bytesRead;
+            return new ImportJob(id, status, fileName, filePath, fileChecksum, totalBytes, read, rowsProcessed,
+                    inserted, duplicates, invalid, checkpointLine, checkpointOffset, errorMessage, createdAt, startedAt, finishedAt);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.io.IOException;
+
+import com.progresssoft.analyze_fx_deals.dto.RowOutcomeDTO;
+import com.progresssoft.analyze_fx_deals.parser.ImportCheckpoint;
+
+/**
+ * Receives the outcome of every data row of an import as soon as it is known.
+ */
+@FunctionalInterface
+public interface ImportListener {
+
+    ImportListener NONE = outcome -> { };
+
+    void onRow(RowOutcomeDTO outcome) throws IOException;
+
+    /**
+     * Called after the outcomes of each committed chunk, in file order: every row before
+     * the checkpoint has been reported and stored.
+     */
+    default void onCheckpoint(ImportCheckpoint checkpoint) throws IOException {
+    }
+}
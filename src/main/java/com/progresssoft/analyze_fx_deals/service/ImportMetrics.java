@@ -0,0 +1,105 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the import paths. Phases are timed per chunk rather than per row, so
+ * recording stays off the per-row cost:
+ * <ul>
+ *   <li>deals.import.phase{phase=parse|validate|duplicate_check|persist}: time spent
+ *   in each phase for one chunk, summed over the rows of the chunk</li>
+ *   <li>deals.import{mode=pipeline|bulk}: whole imports</li>
+ *   <li>deals.import.rows{outcome=imported|duplicate|invalid}: rows by outcome</li>
+ *   <li>deals.import.repeated.files: uploads answered from an earlier import of the same bytes</li>
+ * </ul>
+ * Comparing the phase totals tells whether a slow import is bound by parsing,
+ * validation or the database.
+ */
+@Component
+public class ImportMetrics {
+
+    private final Timer parse;
+    private final Timer validate;
+    private final Timer duplicateCheck;
+    private final Timer persist;
+    private final Timer pipelineImport;
+    private final Timer bulkImport;
+    private final Counter imported;
+    private final Counter duplicates;
+    private final Counter invalid;
+    private final Counter repeatedFiles;
+
+    public ImportMetrics(MeterRegistry registry) {
+        parse = phase(registry, "parse");
+        validate = phase(registry, "validate");
+        duplicateCheck = phase(registry, "duplicate_check");
+        persist = phase(registry, "persist");
+        pipelineImport = importTimer(registry, "pipeline");
+        bulkImport = importTimer(registry, "bulk");
+        imported = rows(registry, "imported");
+        duplicates = rows(registry, "duplicate");
+        invalid = rows(registry, "invalid");
+        repeatedFiles = Counter.builder("deals.import.repeated.files")
+                .description("Uploads answered from an earlier import of the same bytes")
+                .register(registry);
+    }
+
+    public void recordParse(long nanos) {
+        parse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordValidate(long nanos) {
+        validate.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDuplicateCheck(long nanos) {
+        duplicateCheck.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPersist(long nanos) {
+        persist.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordImport(boolean bulk, long nanos) {
+        (bulk ? bulkImport : pipelineImport).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRows(long importedRows, long duplicateRows, long invalidRows) {
+        imported.increment(importedRows);
+        duplicates.increment(duplicateRows);
+        invalid.increment(invalidRows);
+    }
+
+    public void recordRepeatedFile() {
+        repeatedFiles.increment();
+    }
+
+    private static Timer phase(MeterRegistry registry, String phase) {
+        return Timer.builder("deals.import.phase")
+                .tag("phase", phase)
+                .description("Time per import chunk spent in one phase")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer importTimer(MeterRegistry registry, String mode) {
+        return Timer.builder("deals.import")
+                .tag("mode", mode)
+                .description("Duration of whole imports")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter rows(MeterRegistry registry, String outcome) {
+        return Counter.builder("deals.import.rows")
+                .tag("outcome", outcome)
+                .description("Imported rows by outcome")
+                .register(registry);
+    }
+}
@@ -0,0 +1,55 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The directories on this host whose files may be imported by path, from
+ * {@code deals.import.local.dirs}; none by default. Paths are compared once symbolic
+ * links and {@code ..} are resolved, so a link inside an allowed directory does not
+ * reach a file outside it.
+ */
+@Component
+public class LocalImportFiles {
+
+    @Value("${deals.import.local.dirs:}")
+    private List<String> dirs;
+
+    /**
+     * @return the real path of the file
+     * @throws IllegalArgumentException if the file does not exist or is not in an
+     *                                  allowed directory
+     */
+    public Path resolve(String path) throws IOException {
+        Path real;
+        try {
+            real = Paths.get(path).toRealPath();
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("No such file: " + path);
+        }
+        for (Path dir : allowedDirs()) {
+            if (real.startsWith(dir) && Files.isRegularFile(real)) {
+                return real;
+            }
+        }
+        throw new IllegalArgumentException("Not a file in an allowed import directory: " + path);
+    }
+
+    private List<Path> allowedDirs() throws IOException {
+        List<Path> allowed = new ArrayList<>();
+        for (String dir : dirs) {
+            if (!dir.isBlank() && Files.isDirectory(Paths.get(dir.trim()))) {
+                allowed.add(Paths.get(dir.trim()).toRealPath());
+            }
+        }
+        return allowed;
+    }
+}
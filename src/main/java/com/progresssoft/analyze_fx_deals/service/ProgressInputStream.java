@@ -0,0 +1,55 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read so that another thread can report how far an import got.
+ */
+class ProgressInputStream extends FilterInputStream {
+
+    private volatile long bytesRead;
+
+    ProgressInputStream(InputStream in) {
+        this(in, 0);
+    }
+
+    /**
+     * @param initialCount bytes to report before anything is read, for a stream that
+     *                     continues a file from some offset
+     */
+    ProgressInputStream(InputStream in, long initialCount) {
+        super(in);
+        bytesRead = initialCount;
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            bytesRead += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        bytesRead += skipped;
+        return skipped;
+    }
+}
@@ -0,0 +1,27 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+/**
+ * The three-letter value must be an ISO 4217 currency code. Null and other lengths
+ * are left to {@code @NotBlank} and {@code @Size}.
+ */
+@Documented
+@Constraint(validatedBy = CurrencyCodeValidator.class)
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrencyCode {
+
+    String message() default "Currency code must be an ISO 4217 code";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
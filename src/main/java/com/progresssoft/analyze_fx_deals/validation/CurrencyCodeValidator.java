@@ -0,0 +1,12 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class CurrencyCodeValidator implements ConstraintValidator<CurrencyCode, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || value.length() != 3 || CurrencyCodes.isIsoCode(value);
+    }
+}
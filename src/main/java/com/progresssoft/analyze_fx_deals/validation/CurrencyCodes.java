@@ -0,0 +1,45 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import java.util.Currency;
+
+/**
+ * ISO 4217 codes known to the JDK, as a bit per three-letter upper-case combination:
+ * a lookup is three subtractions and a mask, with no hashing or allocation.
+ */
+public final class CurrencyCodes {
+
+    private static final long[] CODES = new long[(26 * 26 * 26 + 63) / 64];
+
+    static {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int key = key(currency.getCurrencyCode());
+            if (key >= 0) {
+                CODES[key >>> 6] |= 1L << key;
+            }
+        }
+    }
+
+    private CurrencyCodes() {
+    }
+
+    /**
+     * @return whether the value is an upper-case ISO 4217 currency code
+     */
+    public static boolean isIsoCode(String code) {
+        int key = key(code);
+        return key >= 0 && (CODES[key >>> 6] & (1L << key)) != 0;
+    }
+
+    private static int key(String code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+        int a = code.charAt(0) - 'A';
+        int b = code.charAt(1) - 'A';
+        int c = code.charAt(2) - 'A';
+        if (a < 0 || a >= 26 || b < 0 || b >= 26 || c < 0 || c >= 26) {
+            return -1;
+        }
+        return (a * 26 + b) * 26 + c;
+    }
+}
@@ -0,0 +1,139 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+
+import com.progresssoft.analyze_fx_deals.dto.RequestDTO;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+
+/**
+ * The constraints declared on {@link RequestDTO}, written out as plain checks for the
+ * import paths. Bean Validation walks reflective metadata and builds a violation set
+ * for every row; this does neither, and a valid row allocates nothing. The messages
+ * are those of the annotations, joined with ", " in field order.
+ * DealValidatorConformanceTest keeps the two in step: change both together.
+ */
+@Component
+public class DealValidator {
+
+    static final String ID_BLANK = "Deal ID cannot be blank";
+    static final String ID_SIZE = "Deal ID must be between 1 and 50 characters";
+    static final String FROM_BLANK = "From currency cannot be blank";
+    static final String TO_BLANK = "To currency cannot be blank";
+    static final String CURRENCY_SIZE = "Currency code must be exactly 3 letters";
+    static final String CURRENCY_ISO = "Currency code must be an ISO 4217 code";
+    static final String SAME_CURRENCY = "From and to currency must be different";
+    static final String TIMESTAMP_NULL = "Deal timestamp cannot be null";
+    static final String AMOUNT_NULL = "Deal amount cannot be null";
+    static final String AMOUNT_MIN = "Deal amount must be greater than 0";
+
+    private static final int MAX_ID_LENGTH = 50;
+    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
+    private static final long MIN_AMOUNT_UNSCALED = MIN_AMOUNT.unscaledValue().longValueExact();
+
+    /**
+     * @return the joined violation messages, or null when the deal is valid
+     */
+    public String validate(String dealUniqueId, String fromCurrencyIsoCode, String toCurrencyIsoCode,
+                           LocalDateTime dealTimestamp, BigDecimal dealAmount) {
+        if (isValid(dealUniqueId, fromCurrencyIsoCode, toCurrencyIsoCode, dealTimestamp, dealAmount)) {
+            return null;
+        }
+        StringBuilder errors = new StringBuilder();
+        if (isBlank(dealUniqueId)) {
+            append(errors, ID_BLANK);
+        }
+        if (dealUniqueId != null && (dealUniqueId.isEmpty() || dealUniqueId.length() > MAX_ID_LENGTH)) {
+            append(errors, ID_SIZE);
+        }
+        appendCurrencyErrors(errors, fromCurrencyIsoCode, FROM_BLANK);
+        appendCurrencyErrors(errors, toCurrencyIsoCode, TO_BLANK);
+        if (fromCurrencyIsoCode != null && fromCurrencyIsoCode.equals(toCurrencyIsoCode)) {
+            append(errors, SAME_CURRENCY);
+        }
+        if (dealTimestamp == null) {
+            append(errors, TIMESTAMP_NULL);
+        }
+        if (dealAmount == null) {
+            append(errors, AMOUNT_NULL);
+        } else if (dealAmount.compareTo(MIN_AMOUNT) < 0) {
+            append(errors, AMOUNT_MIN);
+        }
+        return errors.toString();
+    }
+
+    public String validate(Deal deal) {
+        return validate(deal.getDealUniqueId(), deal.getFromCurrencyIsoCode(), deal.getToCurrencyIsoCode(),
+                deal.getDealTimestamp(), deal.getDealAmount());
+    }
+
+    /**
+     * Checks the record as it is; only a failing one has its timestamp and amount
+     * created for the messages.
+     */
+    public String validate(DealRecord record) {
+        if (!isBlank(record.getDealUniqueId())
+                && record.getDealUniqueId().length() <= MAX_ID_LENGTH
+                && CurrencyCodes.isIsoCode(record.getFromCurrencyIsoCode())
+                && CurrencyCodes.isIsoCode(record.getToCurrencyIsoCode())
+                && !record.getFromCurrencyIsoCode().equals(record.getToCurrencyIsoCode())
+                && record.compareAmountTo(MIN_AMOUNT_UNSCALED, MIN_AMOUNT.scale()) >= 0) {
+            return null;
+        }
+        return validate(record.getDealUniqueId(), record.getFromCurrencyIsoCode(), record.getToCurrencyIsoCode(),
+                record.getDealTimestamp(), record.getDealAmount());
+    }
+
+    public String validate(RequestDTO request) {
+        return validate(request.getDealUniqueId(), request.getFromCurrencyIsoCode(), request.getToCurrencyIsoCode(),
+                request.getDealTimestamp(), request.getDealAmount());
+    }
+
+    private static boolean isValid(String dealUniqueId, String fromCurrencyIsoCode, String toCurrencyIsoCode,
+                                   LocalDateTime dealTimestamp, BigDecimal dealAmount) {
+        return !isBlank(dealUniqueId)
+                && dealUniqueId.length() <= MAX_ID_LENGTH
+                && CurrencyCodes.isIsoCode(fromCurrencyIsoCode)
+                && CurrencyCodes.isIsoCode(toCurrencyIsoCode)
+                && !fromCurrencyIsoCode.equals(toCurrencyIsoCode)
+                && dealTimestamp != null
+                && dealAmount != null
+                && dealAmount.compareTo(MIN_AMOUNT) >= 0;
+    }
+
+    private static void appendCurrencyErrors(StringBuilder errors, String code, String blankMessage) {
+        if (isBlank(code)) {
+            append(errors, blankMessage);
+        }
+        if (code != null && code.length() != 3) {
+            append(errors, CURRENCY_SIZE);
+        } else if (code != null && !CurrencyCodes.isIsoCode(code)) {
+            append(errors, CURRENCY_ISO);
+        }
+    }
+
+    /**
+     * Same as {@code @NotBlank}: null, or nothing left after {@link String#trim()}.
+     */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void append(StringBuilder errors, String message) {
+        if (errors.length() > 0) {
+            errors.append(", ");
+        }
+        errors.append(message);
+    }
+}
@@ -0,0 +1,27 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+/**
+ * A deal must exchange one currency for another. Missing currencies are left to
+ * {@code @NotBlank}.
+ */
+@Documented
+@Constraint(validatedBy = DifferentCurrenciesValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DifferentCurrencies {
+
+    String message() default "From and to currency must be different";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,15 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import com.progresssoft.analyze_fx_deals.dto.RequestDTO;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class DifferentCurrenciesValidator implements ConstraintValidator<DifferentCurrencies, RequestDTO> {
+
+    @Override
+    public boolean isValid(RequestDTO value, ConstraintValidatorContext context) {
+        return value.getFromCurrencyIsoCode() == null || value.getToCurrencyIsoCode() == null
+                || !value.getFromCurrencyIsoCode().equals(value.getToCurrencyIsoCode());
+    }
+}
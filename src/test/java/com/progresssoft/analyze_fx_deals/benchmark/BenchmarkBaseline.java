@@ -0,0 +1,101 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result with the committed baseline and fails when any benchmark
+ * got slower than the tolerance allows. Benchmarks missing from either side are listed
+ * but never fail the check. Arguments: baseline, result, tolerance (0.2 = 20%).
+ */
+public final class BenchmarkBaseline {
+
+    private BenchmarkBaseline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkBaseline <baseline.json> <result.json> [tolerance]");
+            System.exit(2);
+        }
+        Path baselinePath = Path.of(args[0]);
+        Path resultPath = Path.of(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+        if (!Files.exists(baselinePath)) {
+            System.out.println("No baseline at " + baselinePath + "; record one by copying " + resultPath);
+            return;
+        }
+        if (!Files.exists(resultPath)) {
+            System.out.println("No benchmark result at " + resultPath + ", nothing to compare");
+            return;
+        }
+        List<String> regressions = compare(read(baselinePath), read(resultPath), tolerance);
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " benchmark(s) regressed by more than "
+                    + Math.round(tolerance * 100) + "% against " + baselinePath);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints one line per benchmark of the result.
+     *
+     * @return the keys of the benchmarks that regressed beyond the tolerance
+     */
+    static List<String> compare(Map<String, Score> baseline, Map<String, Score> result, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : result.entrySet()) {
+            Score current = entry.getValue();
+            Score base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("  NEW        %-70s %14.3f %s%n", entry.getKey(), current.getValue(), current.getUnit());
+                continue;
+            }
+            // Positive is worse: less throughput, or more time per operation
+            double change = current.isHigherIsBetter()
+                    ? (base.getValue() - current.getValue()) / base.getValue()
+                    : (current.getValue() - base.getValue()) / base.getValue();
+            boolean regressed = change > tolerance;
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+            System.out.printf("  %-10s %-70s %14.3f %s (baseline %.3f, %+.1f%%)%n", regressed ? "REGRESSED" : "ok",
+                    entry.getKey(), current.getValue(), current.getUnit(), base.getValue(), -change * 100);
+        }
+        for (String key : baseline.keySet()) {
+            if (!result.containsKey(key)) {
+                System.out.printf("  NOT RUN    %s%n", key);
+            }
+        }
+        return regressions;
+    }
+
+    static Map<String, Score> read(Path path) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            JsonNode metric = run.path("primaryMetric");
+            scores.put(key.toString(), new Score(metric.path("score").asDouble(), metric.path("scoreUnit").asText(),
+                    "thrpt".equals(run.path("mode").asText())));
+        }
+        return scores;
+    }
+
+    @Value
+    static class Score {
+        double value;
+        String unit;
+        boolean higherIsBetter;
+    }
+}
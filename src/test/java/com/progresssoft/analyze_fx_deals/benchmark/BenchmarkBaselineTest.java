@@ -0,0 +1,59 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkBaselineTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void read_ShouldKeyRunsByBenchmarkAndParams() throws IOException {
+        // Given
+        Path result = dir.resolve("result.json");
+        Files.writeString(result, """
+                [{"benchmark": "a.Import.bulk", "mode": "ss", "params": {"rows": "10000"},
+                  "primaryMetric": {"score": 120.5, "scoreUnit": "ms/op"}},
+                 {"benchmark": "a.Parser.parse", "mode": "thrpt",
+                  "primaryMetric": {"score": 2000000.0, "scoreUnit": "ops/s"}}]
+                """);
+
+        // When
+        Map<String, BenchmarkBaseline.Score> scores = BenchmarkBaseline.read(result);
+
+        // Then
+        assertEquals(new BenchmarkBaseline.Score(120.5, "ms/op", false), scores.get("a.Import.bulk rows=10000"));
+        assertTrue(scores.get("a.Parser.parse").isHigherIsBetter());
+    }
+
+    @Test
+    void compare_ShouldFlagOnlyChangesBeyondToleranceInTheWorseDirection() {
+        // Given
+        Map<String, BenchmarkBaseline.Score> baseline = Map.of(
+                "thrpt.slower", new BenchmarkBaseline.Score(1000, "ops/s", true),
+                "thrpt.faster", new BenchmarkBaseline.Score(1000, "ops/s", true),
+                "time.slower", new BenchmarkBaseline.Score(100, "ms/op", false),
+                "time.noise", new BenchmarkBaseline.Score(100, "ms/op", false));
+        Map<String, BenchmarkBaseline.Score> result = Map.of(
+                "thrpt.slower", new BenchmarkBaseline.Score(700, "ops/s", true),
+                "thrpt.faster", new BenchmarkBaseline.Score(2000, "ops/s", true),
+                "time.slower", new BenchmarkBaseline.Score(150, "ms/op", false),
+                "time.noise", new BenchmarkBaseline.Score(110, "ms/op", false),
+                "new.one", new BenchmarkBaseline.Score(1, "ops/s", true));
+
+        // When
+        List<String> regressions = BenchmarkBaseline.compare(baseline, result, 0.2);
+
+        // Then
+        assertEquals(List.of("thrpt.slower", "time.slower"), regressions.stream().sorted().toList());
+    }
+}
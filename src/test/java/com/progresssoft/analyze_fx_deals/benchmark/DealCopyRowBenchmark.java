@@ -0,0 +1,86 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealCsvParser;
+import com.progresssoft.analyze_fx_deals.parser.DealCsvWriter;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+import com.progresssoft.analyze_fx_deals.validation.DealValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of the bulk import up to the COPY stream, without the database:
+ * parse, validate and write each row as COPY text, once through a {@link Deal} with
+ * its LocalDateTime and BigDecimal and once through a {@link DealRecord}. Add
+ * {@code -prof gc} to compare allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DealCopyRowBenchmark {
+
+    static final int ROWS = 100_000;
+
+    private String csv;
+    private DealValidator dealValidator;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        csv = SyntheticDeals.csv(ROWS);
+        dealValidator = new DealValidator();
+        buffer = new StringBuilder(1 << 16);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void viaDeal(Blackhole bh) throws IOException {
+        DealCsvParser parser = new DealCsvParser(new StringReader(csv));
+        while (parser.nextRecord()) {
+            Deal deal = new Deal(parser.getDealUniqueId(), parser.getFromCurrencyIsoCode(),
+                    parser.getToCurrencyIsoCode(), parser.getDealTimestamp(), parser.getDealAmount());
+            if (dealValidator.validate(deal) == null) {
+                DealCsvWriter.appendRow(buffer, deal);
+            }
+            flush(bh);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void viaRecord(Blackhole bh) throws IOException {
+        DealCsvParser parser = new DealCsvParser(new StringReader(csv));
+        while (parser.nextRecord()) {
+            DealRecord record = parser.getRecord();
+            if (dealValidator.validate(record) == null) {
+                DealCsvWriter.appendRow(buffer, record);
+            }
+            flush(bh);
+        }
+    }
+
+    // Like DealCopyRepository, which hands the buffer to COPY once it is full
+    private void flush(Blackhole bh) {
+        if (buffer.length() > 60_000) {
+            bh.consume(buffer.length());
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import com.progresssoft.analyze_fx_deals.parser.DealCsvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of the import CSV parsing: the original {@code String.split}
+ * loop against {@link DealCsvParser}, on data shaped like sample-data/deals.csv.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DealCsvParserBenchmark {
+
+    static final int ROWS = 100_000;
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        csv = SyntheticDeals.csv(ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void splitBaseline(Blackhole bh) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(csv));
+        String line;
+        boolean firstLine = true;
+        while ((line = reader.readLine()) != null) {
+            if (firstLine) {
+                firstLine = false;
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Invalid row format");
+            }
+            bh.consume(fields[0]);
+            bh.consume(fields[1]);
+            bh.consume(fields[2]);
+            bh.consume(LocalDateTime.parse(fields[3]));
+            bh.consume(new BigDecimal(fields[4]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void dealCsvParser(Blackhole bh) throws IOException {
+        DealCsvParser parser = new DealCsvParser(new StringReader(csv));
+        while (parser.nextRecord()) {
+            bh.consume(parser.getDealUniqueId());
+            bh.consume(parser.getFromCurrencyIsoCode());
+            bh.consume(parser.getToCurrencyIsoCode());
+            bh.consume(parser.getDealTimestamp());
+            bh.consume(parser.getDealAmount());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import com.progresssoft.analyze_fx_deals.AnalyzeFxDealsApplication;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.service.DealService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall time of whole imports, pipeline and COPY, against a real PostgreSQL with the
+ * application context started around it. Every iteration imports fresh ids into an
+ * emptied table, so point it at a scratch database: its deals and deal_stats are
+ * truncated. Not part of the default run, e.g.
+ * {@code DEALS_BENCH_JDBC_URL=jdbc:postgresql://localhost:5433/fxdeals_bench DEALS_BENCH_JDBC_USER=fxuser
+ * DEALS_BENCH_JDBC_PASSWORD=fxpass123 mvn -Pbenchmark test -Djmh.args="DealImport -p rows=1000000"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DealImportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private DealService dealService;
+    private JdbcTemplate jdbcTemplate;
+    private int iteration;
+    private String csv;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        String url = System.getenv("DEALS_BENCH_JDBC_URL");
+        if (url == null || url.isEmpty()) {
+            throw new IllegalStateException("DealImportBenchmark needs DEALS_BENCH_JDBC_URL, _USER and _PASSWORD");
+        }
+        context = new SpringApplicationBuilder(AnalyzeFxDealsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.datasource.username=" + System.getenv("DEALS_BENCH_JDBC_USER"),
+                        "spring.datasource.password=" + System.getenv("DEALS_BENCH_JDBC_PASSWORD"),
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.progresssoft=WARN",
+                        "logging.file.name=target/benchmark.log")
+                .run();
+        dealService = context.getBean(DealService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute(Files.readString(Path.of("init-db.sql")));
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareIteration() {
+        jdbcTemplate.execute("TRUNCATE deals, deal_stats, deal_ids");
+        // New ids each time, so read-side structures fed by earlier iterations see no repeats
+        csv = SyntheticDeals.csv(rows, "BENCH" + iteration++ + "-");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        if (context != null) {
+            jdbcTemplate.execute("TRUNCATE deals, deal_stats, deal_ids");
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public ImportSummaryDTO pipelineImport() throws IOException {
+        return dealService.importDealsFrom(new StringReader(csv), outcome -> { });
+    }
+
+    @Benchmark
+    public ImportSummaryDTO bulkImport() throws Exception {
+        return dealService.bulkImportDeals(new MockMultipartFile("file", "deals.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
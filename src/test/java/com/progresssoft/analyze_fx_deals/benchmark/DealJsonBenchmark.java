@@ -0,0 +1,63 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progresssoft.analyze_fx_deals.dto.DealPageDTO;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deals per second serialized to JSON the way the API writes them: a page of
+ * {@code GET /deals} and one object per line for the NDJSON export. The mapper is
+ * configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DealJsonBenchmark {
+
+    static final int ROWS = 1_000;
+
+    private ObjectMapper objectMapper;
+    private List<Deal> deals;
+    private DealPageDTO page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        deals = SyntheticDeals.deals(ROWS);
+        page = new DealPageDTO(deals, "MjAyNC0wMS0xNVQxMDozMHxERUFMMDAx");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public byte[] page() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void ndjson(Blackhole bh) throws IOException {
+        for (Deal deal : deals) {
+            bh.consume(objectMapper.writeValueAsBytes(deal));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import com.progresssoft.analyze_fx_deals.dto.RequestDTO;
+import com.progresssoft.analyze_fx_deals.mapper.DealMapper;
+import com.progresssoft.analyze_fx_deals.mapper.DealMapperImpl;
+import com.progresssoft.analyze_fx_deals.validation.DealValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of the per-row import steps after parsing: Bean Validation of
+ * {@link RequestDTO} against the precompiled {@link DealValidator} the imports use,
+ * and the {@link DealMapper} conversion to the entity. Add {@code -prof gc} to
+ * compare allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DealRowBenchmark {
+
+    static final int ROWS = 10_000;
+
+    private List<RequestDTO> requests;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private DealValidator dealValidator;
+    private DealMapper mapper;
+
+    @Setup
+    public void setUp() {
+        requests = SyntheticDeals.requests(ROWS);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        dealValidator = new DealValidator();
+        mapper = new DealMapperImpl();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void validate(Blackhole bh) {
+        for (RequestDTO request : requests) {
+            bh.consume(validator.validate(request));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void validateCompiled(Blackhole bh) {
+        for (RequestDTO request : requests) {
+            bh.consume(dealValidator.validate(request));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void map(Blackhole bh) {
+        for (RequestDTO request : requests) {
+            bh.consume(mapper.toEntity(request));
+        }
+    }
+}
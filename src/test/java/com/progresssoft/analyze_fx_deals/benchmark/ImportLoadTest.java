@@ -0,0 +1,128 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import lombok.Value;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of POST /api/v1/deals/import against a running application: many clients
+ * each uploading small files with fresh ids, as fast as the server answers. Prints
+ * throughput and latency percentiles, so the platform-thread and the virtual-thread
+ * setup can be compared on the same database, e.g.
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.progresssoft.analyze_fx_deals.benchmark.ImportLoadTest
+ * -Dexec.args="http://localhost:8080 2000 10000 20"}.
+ * Arguments: base URL, concurrent clients (500), uploads (5000), rows per upload (20).
+ */
+public final class ImportLoadTest {
+
+    private static final String BOUNDARY = "deal-load-test-boundary";
+
+    private ImportLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create((args.length > 0 ? args[0] : "http://localhost:8080") + "/api/v1/deals/import");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int uploads = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        String run = Long.toString(System.currentTimeMillis(), 36);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        // A warm-up round, so JIT and connection pools are not part of the measurement
+        runRound(client, uri, Math.min(clients, 50), Math.min(uploads, 500), rows, "WARM" + run);
+        Result result = runRound(client, uri, clients, uploads, rows, "LOAD" + run);
+        result.print(clients, rows);
+        System.exit(0);
+    }
+
+    private static Result runRound(HttpClient client, URI uri, int clients, int uploads, int rows, String prefix)
+            throws InterruptedException {
+        long[] latencies = new long[uploads];
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            pool.execute(() -> {
+                try {
+                    for (int i = next.getAndIncrement(); i < uploads; i = next.getAndIncrement()) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .timeout(Duration.ofMinutes(2))
+                                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(body(rows, prefix + "-" + i + "-")))
+                                .build();
+                        long sent = System.nanoTime();
+                        String status;
+                        try {
+                            status = Integer.toString(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                        } catch (IOException e) {
+                            status = e.getClass().getSimpleName();
+                        }
+                        latencies[i] = System.nanoTime() - sent;
+                        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        return new Result(latencies, statuses, elapsed);
+    }
+
+    private static byte[] body(int rows, String idPrefix) {
+        return ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"deals.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + SyntheticDeals.csv(rows, idPrefix)
+                + "\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Value
+    private static class Result {
+        long[] latencies;
+        Map<String, LongAdder> statuses;
+        long elapsedNanos;
+
+        void print(int clients, int rows) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("uploads      %d x %d rows, %d clients, %.1f s%n", sorted.length, rows, clients, seconds);
+            System.out.printf("throughput   %.1f uploads/s, %.0f rows/s%n", sorted.length / seconds, sorted.length * rows / seconds);
+            System.out.printf("latency ms   p50 %.1f  p95 %.1f  p99 %.1f  max %.1f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+            System.out.println("responses    " + new TreeMap<>(statuses));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.progresssoft.analyze_fx_deals.benchmark;
+
+import com.progresssoft.analyze_fx_deals.dto.RequestDTO;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic deal rows in the import CSV format for benchmarks. Also a generator of
+ * import files:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.progresssoft.analyze_fx_deals.benchmark.SyntheticDeals
+ * -Dexec.args="sample-data/deals-1m.csv 1000000"}
+ */
+public final class SyntheticDeals {
+
+    static final String HEADER = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount";
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CHF", "AUD", "CAD", "NZD"};
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final long SEED = 42;
+    private static final int ROWS_PER_WRITE = 4096;
+
+    private SyntheticDeals() {
+    }
+
+    /**
+     * Writes a CSV file of the given number of deals, with ids DEAL0 upwards.
+     * Arguments: path, rows (10000 by default).
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: SyntheticDeals <path> [rows]");
+            System.exit(2);
+        }
+        Path path = Path.of(args[0]);
+        long rows = args.length > 1 ? Long.parseLong(args[1].replace("_", "")) : 10_000;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        long start = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(writer, rows, "DEAL");
+        }
+        System.out.println("Wrote " + rows + " deals (" + Files.size(path) / 1024 / 1024 + " MiB) to " + path
+                + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    static String csv(int rows) {
+        return csv(rows, "DEAL");
+    }
+
+    static String csv(int rows, String idPrefix) {
+        StringBuilder sb = new StringBuilder(rows * 48);
+        sb.append(HEADER).append('\n');
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < rows; i++) {
+            appendRow(sb, idPrefix, i, random);
+        }
+        return sb.toString();
+    }
+
+    static void write(Writer writer, long rows, String idPrefix) throws IOException {
+        StringBuilder sb = new StringBuilder(ROWS_PER_WRITE * 48);
+        sb.append(HEADER).append('\n');
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long i = 0; i < rows; i++) {
+            appendRow(sb, idPrefix, i, random);
+            if (sb.length() >= ROWS_PER_WRITE * 40) {
+                writer.append(sb);
+                sb.setLength(0);
+            }
+        }
+        writer.append(sb);
+    }
+
+    static List<RequestDTO> requests(int rows) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<RequestDTO> requests = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            requests.add(request("DEAL", i, random));
+        }
+        return requests;
+    }
+
+    static List<Deal> deals(int rows) {
+        List<Deal> deals = new ArrayList<>(rows);
+        for (RequestDTO request : requests(rows)) {
+            deals.add(new Deal(request.getDealUniqueId(), request.getFromCurrencyIsoCode(),
+                    request.getToCurrencyIsoCode(), request.getDealTimestamp(), request.getDealAmount()));
+        }
+        return deals;
+    }
+
+    private static RequestDTO request(String idPrefix, long i, SplittableRandom random) {
+        int from = random.nextInt(CURRENCIES.length);
+        int to = (from + 1 + random.nextInt(CURRENCIES.length - 1)) % CURRENCIES.length;
+        return new RequestDTO(idPrefix + i, CURRENCIES[from], CURRENCIES[to], START.plusSeconds(i * 7),
+                BigDecimal.valueOf(random.nextLong(100, 1_000_000_000), 2));
+    }
+
+    private static void appendRow(StringBuilder sb, String idPrefix, long i, SplittableRandom random) {
+        RequestDTO request = request(idPrefix, i, random);
+        sb.append(request.getDealUniqueId()).append(',')
+                .append(request.getFromCurrencyIsoCode()).append(',')
+                .append(request.getToCurrencyIsoCode()).append(',')
+                .append(request.getDealTimestamp()).append(',')
+                .append(request.getDealAmount().toPlainString())
+                .append('\n');
+    }
+}
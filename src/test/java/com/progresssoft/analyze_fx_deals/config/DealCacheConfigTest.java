@@ -0,0 +1,149 @@
+package com.progresssoft.analyze_fx_deals.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.repository.DealBatchRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealCopyRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealQueryRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealRepository;
+import com.progresssoft.analyze_fx_deals.service.DbConcurrencyLimiter;
+import com.progresssoft.analyze_fx_deals.service.DealCacheListener;
+import com.progresssoft.analyze_fx_deals.service.DealIdFilter;
+import com.progresssoft.analyze_fx_deals.service.DealService;
+import com.progresssoft.analyze_fx_deals.service.DealServiceImpl;
+import com.progresssoft.analyze_fx_deals.service.ImportBatches;
+import com.progresssoft.analyze_fx_deals.service.ImportMetrics;
+import com.progresssoft.analyze_fx_deals.validation.DealValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(classes = {DealCacheConfig.class, DealServiceImpl.class, DealCacheListener.class})
+class DealCacheConfigTest {
+
+    @MockitoBean
+    private DealRepository dealRepository;
+
+    @MockitoBean
+    private DealBatchRepository dealBatchRepository;
+
+    @MockitoBean
+    private DealCopyRepository dealCopyRepository;
+
+    @MockitoBean
+    private DealQueryRepository dealQueryRepository;
+
+    @MockitoBean
+    private DealValidator dealValidator;
+
+    @MockitoBean
+    private DealIdFilter dealIdFilter;
+
+    @MockitoBean
+    private ImportMetrics importMetrics;
+
+    @MockitoBean
+    private DbConcurrencyLimiter dbConcurrencyLimiter;
+
+    @MockitoBean
+    private ImportBatches importBatches;
+
+    @MockitoBean(name = "importWorkerExecutor")
+    private ExecutorService importWorkerExecutor;
+
+    @MockitoBean(name = "importWriterExecutor")
+    private ExecutorService importWriterExecutor;
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private DealCacheListener dealCacheListener;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private static Deal deal(String id) {
+        return new Deal(id, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("1000.00"));
+    }
+
+    private CacheStats stats() {
+        return ((CaffeineCache) cacheManager.getCache(DealCacheConfig.DEALS_BY_ID)).getNativeCache().stats();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(DealCacheConfig.DEALS_BY_ID).clear();
+    }
+
+    @Test
+    void getDealById_ShouldReadThroughOnce() {
+        // Given
+        when(dealRepository.getDealByDealUniqueId("DEAL001")).thenReturn(deal("DEAL001"));
+
+        // When
+        Deal first = dealService.getDealById("DEAL001");
+        Deal second = dealService.getDealById("DEAL001");
+
+        // Then
+        assertEquals("DEAL001", second.getDealUniqueId());
+        assertSame(first, second);
+        verify(dealRepository, times(1)).getDealByDealUniqueId("DEAL001");
+        assertTrue(stats().hitCount() >= 1);
+    }
+
+    @Test
+    void getDealById_WithMissingId_ShouldCacheMissUntilImported() {
+        // Given
+        when(dealRepository.getDealByDealUniqueId("DEAL404")).thenReturn(null);
+
+        // When
+        assertNull(dealService.getDealById("DEAL404"));
+        assertNull(dealService.getDealById("DEAL404"));
+        dealCacheListener.onInserted(List.of(deal("DEAL404")));
+
+        // Then
+        assertEquals("DEAL404", dealService.getDealById("DEAL404").getDealUniqueId());
+        verify(dealRepository, times(1)).getDealByDealUniqueId("DEAL404");
+    }
+
+    @Test
+    void saveDeal_ShouldEvictCachedEntry() {
+        // Given
+        when(dealRepository.getDealByDealUniqueId("DEAL001")).thenReturn(null, deal("DEAL001"));
+        assertNull(dealService.getDealById("DEAL001"));
+
+        // When
+        dealService.saveDeal(deal("DEAL001"));
+
+        // Then
+        assertNotNull(dealService.getDealById("DEAL001"));
+        verify(dealRepository, times(2)).getDealByDealUniqueId("DEAL001");
+    }
+
+    @Test
+    void dealExpiry_ShouldExpireMissesSooner() {
+        // Given
+        DealCacheConfig.DealExpiry expiry = new DealCacheConfig.DealExpiry(Duration.ofMinutes(10), Duration.ofSeconds(30));
+
+        // When/Then
+        assertEquals(Duration.ofMinutes(10).toNanos(), expiry.expireAfterCreate("DEAL001", deal("DEAL001"), 0));
+        assertEquals(Duration.ofSeconds(30).toNanos(), expiry.expireAfterCreate("DEAL404", NullValue.INSTANCE, 0));
+        assertEquals(Duration.ofSeconds(30).toNanos(), expiry.expireAfterUpdate("DEAL404", NullValue.INSTANCE, 0, 5));
+        assertEquals(5, expiry.expireAfterRead("DEAL001", deal("DEAL001"), 0, 5));
+    }
+}
@@ -1,25 +1,50 @@
 package com.progresssoft.analyze_fx_deals.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progresssoft.analyze_fx_deals.dto.DealPageDTO;
+import com.progresssoft.analyze_fx_deals.dto.DealScanDTO;
+import com.progresssoft.analyze_fx_deals.dto.DealStatsDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportJobDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.dto.RowOutcomeDTO;
 import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.model.ImportJob;
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+import com.progresssoft.analyze_fx_deals.repository.DealFilter;
+import com.progresssoft.analyze_fx_deals.service.DealColumnStore;
 import com.progresssoft.analyze_fx_deals.service.DealService;
+import com.progresssoft.analyze_fx_deals.service.DealSink;
+import com.progresssoft.analyze_fx_deals.service.DealStatsService;
+import com.progresssoft.analyze_fx_deals.service.ImportJobService;
+import com.progresssoft.analyze_fx_deals.service.ImportListener;
+import com.progresssoft.analyze_fx_deals.service.LocalImportFiles;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +53,21 @@ class DealControllerTest {
     @Mock
     private DealService dealService;
 
+    @Mock
+    private ImportJobService importJobService;
+
+    @Mock
+    private DealStatsService dealStatsService;
+
+    @Mock
+    private DealColumnStore dealColumnStore;
+
+    @Mock
+    private LocalImportFiles localImportFiles;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private DealController dealController;
 
@@ -54,14 +94,15 @@ class DealControllerTest {
                 csvContent.getBytes()
         );
         
-        List<Deal> deals = Arrays.asList(testDeal);
-        when(dealService.importDeals(any())).thenReturn(deals);
+        ImportSummaryDTO summary = new ImportSummaryDTO(1, 0, 0, 5, new ArrayList<>());
+        when(dealService.importDeals(any(), any())).thenReturn(summary);
 
-        ResponseEntity<List<Deal>> response = dealController.importDealsFile(file);
+        ResponseEntity<ImportSummaryDTO> response = dealController.importDealsFile(file);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(dealService, times(1)).importDeals(any());
+        assertEquals(1, response.getBody().getInserted());
+        verify(dealService, times(1)).importDeals(any(), eq(ImportListener.NONE));
     }
 
     @Test
@@ -73,36 +114,287 @@ class DealControllerTest {
                 new byte[0]
         );
 
-        when(dealService.importDeals(any())).thenReturn(Collections.emptyList());
+        when(dealService.importDeals(any(), any())).thenReturn(new ImportSummaryDTO());
 
-        ResponseEntity<List<Deal>> response = dealController.importDealsFile(emptyFile);
+        ResponseEntity<ImportSummaryDTO> response = dealController.importDealsFile(emptyFile);
 
         assertNotNull(response);
-        verify(dealService, times(1)).importDeals(any());
+        verify(dealService, times(1)).importDeals(any(), any());
+    }
+
+    @Test
+    void importDealsBody_ShouldPassRequestBodyToService() throws Exception {
+        InputStream body = new ByteArrayInputStream("DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00".getBytes());
+        ImportSummaryDTO summary = new ImportSummaryDTO(1, 0, 0, 5, new ArrayList<>());
+        when(dealService.importDeals(body, "text/csv", "deals.csv", ImportListener.NONE)).thenReturn(summary);
+
+        ResponseEntity<ImportSummaryDTO> response = dealController.importDealsBody(body, "text/csv", "deals.csv");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getInserted());
+    }
+
+    @Test
+    void importLocalFile_ShouldImportResolvedPath() throws Exception {
+        Path file = Path.of("/data/eod/deals.csv");
+        ImportSummaryDTO summary = new ImportSummaryDTO(1, 0, 0, 5, new ArrayList<>());
+        when(localImportFiles.resolve("/data/eod/deals.csv")).thenReturn(file);
+        when(dealService.importFile(file, ImportListener.NONE)).thenReturn(summary);
+
+        ResponseEntity<ImportSummaryDTO> response = dealController.importLocalFile("/data/eod/deals.csv");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getInserted());
+    }
+
+    @Test
+    void streamImportDeals_ShouldWriteOneJsonLinePerRowThenSummary() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n".getBytes()
+        );
+        when(dealService.importDeals(any(), any())).thenAnswer(inv -> {
+            ImportListener listener = inv.getArgument(1);
+            listener.onRow(new RowOutcomeDTO(2, "DEAL001", RowOutcomeDTO.Status.IMPORTED, "ok"));
+            listener.onRow(new RowOutcomeDTO(3, "DEAL002", RowOutcomeDTO.Status.DUPLICATE, "dup"));
+            return new ImportSummaryDTO(1, 1, 0, 3, new ArrayList<>());
+        });
+
+        ResponseEntity<StreamingResponseBody> response = dealController.streamImportDealsFile(file);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(DealController.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"status\":\"IMPORTED\""));
+        assertTrue(lines[1].contains("\"line\":3"));
+        assertTrue(lines[2].contains("\"inserted\":1"));
+    }
+
+    @Test
+    void streamImportDeals_WhenImportFails_ShouldWriteErrorLine() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", new byte[0]);
+        when(dealService.importDeals(any(), any())).thenThrow(new IllegalArgumentException("Invalid row format"));
+
+        ResponseEntity<StreamingResponseBody> response = dealController.streamImportDealsFile(file);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals("{\"error\":\"Invalid row format\"}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void bulkImportDeals_ShouldReturnSummary() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n".getBytes()
+        );
+        ImportSummaryDTO summary = new ImportSummaryDTO(10, 2, 1, 42, new ArrayList<>());
+        when(dealService.bulkImportDeals(any())).thenReturn(summary);
+
+        ResponseEntity<ImportSummaryDTO> response = dealController.bulkImportDealsFile(file);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(summary, response.getBody());
+        verify(dealService, times(1)).bulkImportDeals(file);
+    }
+
+    @Test
+    void submitImportJob_ShouldReturnAcceptedWithJobLocation() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n".getBytes()
+        );
+        ImportJobDTO job = new ImportJobDTO();
+        job.setId("job-1");
+        job.setStatus(ImportJob.Status.QUEUED);
+        when(importJobService.submit(file)).thenReturn(job);
+
+        ResponseEntity<ImportJobDTO> response = dealController.submitImportJob(file);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/api/v1/deals/import/job-1", response.getHeaders().getLocation().toString());
+        assertEquals(job, response.getBody());
+        verifyNoInteractions(dealService);
     }
 
     @Test
-    void getAllDeals_ShouldReturnListOfDeals() {
-        List<Deal> deals = Arrays.asList(testDeal);
-        when(dealService.getAllDeals()).thenReturn(deals);
+    void resumeImportJob_ShouldReturnAccepted() throws Exception {
+        ImportJobDTO job = new ImportJobDTO();
+        job.setId("job-1");
+        job.setCheckpointLine(5001);
+        when(importJobService.resume("job-1")).thenReturn(job);
 
-        ResponseEntity<List<Deal>> response = dealController.getAllDeals();
+        ResponseEntity<ImportJobDTO> response = dealController.resumeImportJob("job-1");
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(5001, response.getBody().getCheckpointLine());
+    }
+
+    @Test
+    void resumeImportJob_WithUnknownId_ShouldReturnNotFound() throws Exception {
+        when(importJobService.resume("missing")).thenReturn(null);
+
+        ResponseEntity<ImportJobDTO> response = dealController.resumeImportJob("missing");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getImportJob_ShouldReturnJob() {
+        ImportJobDTO job = new ImportJobDTO();
+        job.setId("job-1");
+        job.setRowsProcessed(500);
+        when(importJobService.getJob("job-1")).thenReturn(job);
+
+        ResponseEntity<ImportJobDTO> response = dealController.getImportJob("job-1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(500, response.getBody().getRowsProcessed());
+    }
+
+    @Test
+    void getImportJob_WithUnknownId_ShouldReturnNotFound() {
+        when(importJobService.getJob("missing")).thenReturn(null);
+
+        ResponseEntity<ImportJobDTO> response = dealController.getImportJob("missing");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getDeals_ShouldReturnPage() {
+        DealPageDTO page = new DealPageDTO(Arrays.asList(testDeal), "next");
+        when(dealService.getDeals(DealFilter.NONE, "cursor", 50)).thenReturn(page);
+
+        ResponseEntity<DealPageDTO> response = dealController.getDeals(null, null, null, null, null, "cursor", 50);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(1, response.getBody().size());
-        verify(dealService, times(1)).getAllDeals();
+        assertEquals(1, response.getBody().getDeals().size());
+        assertEquals("next", response.getBody().getNextCursor());
+        verify(dealService, times(1)).getDeals(DealFilter.NONE, "cursor", 50);
+    }
+
+    @Test
+    void getDeals_WithFilters_ShouldPassThemToService() {
+        // Given
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        DealFilter filter = new DealFilter("USD", "EUR", since, null, new BigDecimal("1000"));
+        when(dealService.getDeals(filter, null, 10)).thenReturn(new DealPageDTO(Arrays.asList(testDeal), null));
+
+        // When
+        ResponseEntity<DealPageDTO> response = dealController.getDeals("USD", "EUR", since, null, new BigDecimal("1000"), null, 10);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getDeals().size());
     }
 
     @Test
-    void getAllDeals_WhenEmpty_ShouldReturnEmptyList() {
-        when(dealService.getAllDeals()).thenReturn(Collections.emptyList());
+    void getStats_ShouldReturnBucketsFromStatsService() {
+        // Given
+        LocalDateTime since = LocalDateTime.of(2024, 1, 15, 0, 0);
+        DealStatsDTO bucket = new DealStatsDTO("USD", "EUR", StatsGranularity.HOUR, LocalDateTime.of(2024, 1, 15, 10, 0),
+                2, new BigDecimal("3000.00"), new BigDecimal("1000.00"), new BigDecimal("2000.00"), new BigDecimal("1500.0000"));
+        when(dealStatsService.getStats("USD", "EUR", StatsGranularity.HOUR, since, null)).thenReturn(List.of(bucket));
 
-        ResponseEntity<List<Deal>> response = dealController.getAllDeals();
+        // When
+        ResponseEntity<List<DealStatsDTO>> response = dealController.getStats("USD", "EUR", StatsGranularity.HOUR, since, null);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(bucket), response.getBody());
+        verifyNoInteractions(dealService);
+    }
+
+    @Test
+    void scanDeals_ShouldReturnAggregateFromColumnStore() {
+        // Given
+        DealScanDTO scan = new DealScanDTO(2, new BigDecimal("3000.00"), new BigDecimal("1000.00"), new BigDecimal("2000.00"), 10);
+        when(dealColumnStore.isAvailable()).thenReturn(true);
+        when(dealColumnStore.scan("USD", "EUR", null, null)).thenReturn(scan);
+
+        // When
+        ResponseEntity<DealScanDTO> response = dealController.scanDeals("USD", "EUR", null, null);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(scan, response.getBody());
+    }
+
+    @Test
+    void scanDeals_WhenColumnStoreUnavailable_ShouldReturnServiceUnavailable() {
+        // Given
+        when(dealColumnStore.isAvailable()).thenReturn(false);
+
+        // When
+        ResponseEntity<DealScanDTO> response = dealController.scanDeals("USD", "EUR", null, null);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verify(dealColumnStore, never()).scan(any(), any(), any(), any());
+    }
+
+    @Test
+    void getDeals_WhenEmpty_ShouldReturnEmptyPage() {
+        when(dealService.getDeals(DealFilter.NONE, null, null)).thenReturn(new DealPageDTO(Collections.emptyList(), null));
+
+        ResponseEntity<DealPageDTO> response = dealController.getDeals(null, null, null, null, null, null, null);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(response.getBody().isEmpty());
+        assertTrue(response.getBody().getDeals().isEmpty());
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void exportDeals_AsNdjson_ShouldWriteOneLinePerDeal() throws Exception {
+        when(dealService.exportDeals(any())).thenAnswer(invocation -> {
+            DealSink sink = invocation.getArgument(0);
+            sink.accept(testDeal);
+            sink.accept(testDeal);
+            return 2L;
+        });
+
+        ResponseEntity<StreamingResponseBody> response = dealController.exportDeals("ndjson");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(DealController.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(testDeal, objectMapper.readValue(lines[0], Deal.class));
+    }
+
+    @Test
+    void exportDeals_AsCsv_ShouldWriteHeaderAndRows() throws Exception {
+        when(dealService.exportDeals(any())).thenAnswer(invocation -> {
+            DealSink sink = invocation.getArgument(0);
+            sink.accept(testDeal);
+            return 1L;
+        });
+
+        ResponseEntity<StreamingResponseBody> response = dealController.exportDeals("csv");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(DealController.TEXT_CSV, response.getHeaders().getContentType());
+        assertEquals("dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n"
+                + "\"DEAL001\",\"USD\",\"EUR\",2024-01-15T10:30,1000.00\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportDeals_WithUnknownFormat_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> dealController.exportDeals("xml"));
+        verifyNoInteractions(dealService);
     }
 
     @Test
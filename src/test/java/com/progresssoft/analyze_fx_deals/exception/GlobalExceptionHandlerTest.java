@@ -1,10 +1,14 @@
 package com.progresssoft.analyze_fx_deals.exception;
 
+import com.progresssoft.analyze_fx_deals.service.DbConcurrencyLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -94,6 +98,42 @@ class GlobalExceptionHandlerTest {
         assertNotNull(response.getBody());
     }
 
+    @Test
+    void handleRejectedExecution_ShouldReturnServiceUnavailable() {
+        // Given
+        RejectedExecutionException exception = new RejectedExecutionException("Too many imports are queued, try again later");
+
+        // When
+        ResponseEntity<ProblemDetail> response = exceptionHandler.handleRejectedExecution(exception);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Server Busy", response.getBody().getTitle());
+        assertEquals("Too many imports are queued, try again later", response.getBody().getDetail());
+        assertTrue(response.getBody().getProperties().containsKey("timestamp"));
+    }
+
+    @Test
+    void handleRejectedExecution_WhenNoDatabaseSlotFrees_ShouldReportTheLimiter() throws Exception {
+        // Given
+        DbConcurrencyLimiter limiter = new DbConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "maxConcurrency", 1);
+        ReflectionTestUtils.setField(limiter, "acquireTimeoutMs", 10L);
+        limiter.init();
+        DbConcurrencyLimiter.Permit taken = limiter.acquire();
+        RejectedExecutionException exception = assertThrows(RejectedExecutionException.class, limiter::acquire);
+
+        // When
+        ResponseEntity<ProblemDetail> response = exceptionHandler.handleRejectedExecution(exception);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Server Busy", response.getBody().getTitle());
+        assertEquals("No database slot free within 10 ms", response.getBody().getDetail());
+        taken.close();
+    }
+
     @Test
     void problemDetail_ShouldHaveCorrectStatusCode() {
         // Given
@@ -0,0 +1,156 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealChunkSplitterTest {
+
+    private static final String HEADER = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n";
+
+    @Test
+    void next_ShouldSplitIntoChunksReportingOriginalLineNumbers() throws IOException {
+        // Given
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 5; i++) {
+            csv.append("DEAL").append(i).append(",USD,EUR,2024-01-15T10:30:00,").append(i).append('\n');
+        }
+        DealChunkSplitter splitter = new DealChunkSplitter(new StringReader(csv.toString()), 2);
+
+        // When/Then
+        int row = 0;
+        for (int sequence = 0; sequence < 3; sequence++) {
+            DealChunkSplitter.Chunk chunk = splitter.next();
+            assertNotNull(chunk);
+            assertEquals(sequence, chunk.getSequence());
+            assertEquals(2 + 2L * sequence, chunk.getFirstLine());
+            DealCsvParser parser = chunk.parser(',');
+            while (parser.nextRecord()) {
+                assertEquals("DEAL" + row, parser.getDealUniqueId());
+                assertEquals(row + 2, parser.getLineNumber());
+                row++;
+            }
+        }
+        assertEquals(5, row);
+        assertNull(splitter.next());
+    }
+
+    @Test
+    void next_ShouldNotCutInsideQuotedField() throws IOException {
+        // Given
+        DealChunkSplitter splitter = new DealChunkSplitter(new StringReader(HEADER
+                + "\"multi\nline\",USD,EUR,2024-01-15T10:30:00,1\n"
+                + "DEAL002,USD,EUR,2024-01-15T10:30:00,2"), 1);
+
+        // When
+        DealChunkSplitter.Chunk first = splitter.next();
+        DealChunkSplitter.Chunk second = splitter.next();
+
+        // Then
+        DealCsvParser parser = first.parser(',');
+        assertTrue(parser.nextRecord());
+        assertEquals("multi\nline", parser.getDealUniqueId());
+        assertFalse(parser.nextRecord());
+
+        assertEquals(4, second.getFirstLine());
+        parser = second.parser(',');
+        assertTrue(parser.nextRecord());
+        assertEquals("DEAL002", parser.getDealUniqueId());
+        assertEquals(new BigDecimal("2"), parser.getDealAmount());
+        assertEquals(4, parser.getLineNumber());
+        assertNull(splitter.next());
+    }
+
+    @Test
+    void next_ShouldKeepReorderedHeaderInEveryChunk() throws IOException {
+        // Given
+        DealChunkSplitter splitter = new DealChunkSplitter(new StringReader(
+                "dealAmount,dealTimestamp,toCurrencyIsoCode,fromCurrencyIsoCode,dealUniqueId\n"
+                        + "1,2024-01-15T10:30:00,EUR,USD,DEAL001\n"
+                        + "2,2024-01-15T10:30:00,JPY,GBP,DEAL002\n"), 1);
+
+        // When
+        splitter.next();
+        DealCsvParser parser = splitter.next().parser(',');
+
+        // Then
+        assertTrue(parser.nextRecord());
+        assertEquals("DEAL002", parser.getDealUniqueId());
+        assertEquals("GBP", parser.getFromCurrencyIsoCode());
+    }
+
+    @Test
+    void chunkEnd_ShouldBeUtf8ByteOffsetOfNextLine() throws IOException {
+        // Given
+        String first = "\"D\u00e9al\u20ac\ud83d\ude00\",USD,EUR,2024-01-15T10:30:00,1\n";
+        String second = "DEAL002,USD,EUR,2024-01-15T10:30:00,2\n";
+        DealChunkSplitter splitter = new DealChunkSplitter(new StringReader(HEADER + first + second), 1);
+
+        // When
+        ImportCheckpoint afterFirst = splitter.next().getEnd();
+        ImportCheckpoint afterSecond = splitter.next().getEnd();
+
+        // Then
+        long headerBytes = HEADER.getBytes(StandardCharsets.UTF_8).length;
+        long firstBytes = first.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(new ImportCheckpoint(3, headerBytes + firstBytes), afterFirst);
+        assertEquals(new ImportCheckpoint(4, headerBytes + firstBytes + second.length()), afterSecond);
+    }
+
+    @Test
+    void next_FromCheckpoint_ShouldContinueLineNumbersAndOffsets() throws IOException {
+        // Given
+        String rest = "DEAL007,USD,EUR,2024-01-15T10:30:00,7\n";
+        DealChunkSplitter splitter = new DealChunkSplitter(new StringReader(HEADER + rest), DealFormat.CSV, 10,
+                new ImportCheckpoint(8, 1000));
+
+        // When
+        DealChunkSplitter.Chunk chunk = splitter.next();
+
+        // Then
+        assertEquals(8, chunk.getFirstLine());
+        assertEquals(new ImportCheckpoint(9, 1000 + rest.length()), chunk.getEnd());
+        DealCsvParser parser = chunk.parser(',');
+        assertTrue(parser.nextRecord());
+        assertEquals(8, parser.getLineNumber());
+        assertEquals("DEAL007", parser.getDealUniqueId());
+    }
+
+    @Test
+    void next_WithNdjson_ShouldSplitWithoutHeaderOrQuoteTracking() throws IOException {
+        // Given
+        String first = "{\"dealUniqueId\":\"DE\\\"AL1\",\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1}\n";
+        String second = "{\"dealUniqueId\":\"DEAL2\",\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":2}\n";
+        DealChunkSplitter splitter = new DealChunkSplitter(new StringReader(first + second), DealFormat.NDJSON, 1,
+                new ImportCheckpoint(5, 100));
+
+        // When
+        DealChunkSplitter.Chunk chunk = splitter.next();
+
+        // Then
+        assertEquals(5, chunk.getFirstLine());
+        assertEquals(new ImportCheckpoint(6, 100 + first.length()), chunk.getEnd());
+        DealReader reader = chunk.reader(',');
+        assertTrue(reader.nextRecord());
+        assertEquals(5, reader.getLineNumber());
+        assertEquals("DE\"AL1", reader.getRecord().getDealUniqueId());
+        assertFalse(reader.nextRecord());
+
+        reader = splitter.next().reader(',');
+        assertTrue(reader.nextRecord());
+        assertEquals(6, reader.getLineNumber());
+        assertEquals("DEAL2", reader.getRecord().getDealUniqueId());
+        assertNull(splitter.next());
+    }
+
+    @Test
+    void next_WithEmptyInputOrOnlyHeader_ShouldReturnNull() throws IOException {
+        assertNull(new DealChunkSplitter(new StringReader(""), 10).next());
+        assertNull(new DealChunkSplitter(new StringReader(HEADER), 10).next());
+    }
+}
@@ -0,0 +1,233 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealCsvParserTest {
+
+    private static final String HEADER = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n";
+
+    private static DealCsvParser parser(String csv) {
+        return new DealCsvParser(new StringReader(csv));
+    }
+
+    @Test
+    void nextRecord_ShouldReadAllFieldsAfterHeader() throws IOException {
+        // Given
+        DealCsvParser parser = parser(HEADER + "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n");
+
+        // When/Then
+        assertTrue(parser.nextRecord());
+        assertEquals(2, parser.getLineNumber());
+        assertEquals("DEAL001", parser.getDealUniqueId());
+        assertEquals("USD", parser.getFromCurrencyIsoCode());
+        assertEquals("EUR", parser.getToCurrencyIsoCode());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), parser.getDealTimestamp());
+        assertEquals(new BigDecimal("1000.00"), parser.getDealAmount());
+        assertFalse(parser.nextRecord());
+    }
+
+    @Test
+    void nextRecord_WithOnlyHeader_ShouldReturnFalse() throws IOException {
+        assertFalse(parser(HEADER).nextRecord());
+        assertFalse(parser("").nextRecord());
+    }
+
+    @Test
+    void nextRecord_WithWrongFieldCount_ShouldThrowException() throws IOException {
+        DealCsvParser parser = parser(HEADER + "DEAL001,USD,EUR");
+
+        assertThrows(IllegalArgumentException.class, parser::nextRecord);
+    }
+
+    @Test
+    void nextRecord_ShouldHandleQuotedFields() throws IOException {
+        // Given
+        DealCsvParser parser = parser(HEADER
+                + "\"DEAL,\"\"1\"\"\",USD,EUR,2024-01-15T10:30:00,\"1000.00\"\n"
+                + "\"multi\nline\",USD,EUR,2024-01-15T10:30:00,1\n"
+                + "DEAL003,USD,EUR,2024-01-15T10:30:00,1\n");
+
+        // When/Then
+        assertTrue(parser.nextRecord());
+        assertEquals("DEAL,\"1\"", parser.getDealUniqueId());
+        assertEquals(new BigDecimal("1000.00"), parser.getDealAmount());
+        assertTrue(parser.nextRecord());
+        assertEquals("multi\nline", parser.getDealUniqueId());
+        assertEquals(3, parser.getLineNumber());
+        assertTrue(parser.nextRecord());
+        assertEquals(5, parser.getLineNumber());
+    }
+
+    @Test
+    void nextRecord_WithUnterminatedQuote_ShouldThrowException() throws IOException {
+        DealCsvParser parser = parser(HEADER + "\"DEAL001,USD,EUR,2024-01-15T10:30:00,1");
+
+        assertThrows(IllegalArgumentException.class, parser::nextRecord);
+    }
+
+    @Test
+    void nextRecord_ShouldSkipBlankLinesAndAcceptCrLf() throws IOException {
+        // Given
+        DealCsvParser parser = parser(HEADER.replace("\n", "\r\n")
+                + "\r\n"
+                + "DEAL001,USD,EUR,2024-01-15T10:30:00,1\r\n"
+                + "\n"
+                + "DEAL002,USD,EUR,2024-01-15T10:30:00,2");
+
+        // When/Then
+        assertTrue(parser.nextRecord());
+        assertEquals(3, parser.getLineNumber());
+        assertEquals(new BigDecimal("1"), parser.getDealAmount());
+        assertTrue(parser.nextRecord());
+        assertEquals(5, parser.getLineNumber());
+        assertEquals("DEAL002", parser.getDealUniqueId());
+        assertFalse(parser.nextRecord());
+    }
+
+    @Test
+    void nextRecord_ShouldMapReorderedHeaderColumns() throws IOException {
+        // Given
+        DealCsvParser parser = new DealCsvParser(new StringReader(
+                "dealAmount;dealTimestamp;toCurrencyIsoCode;fromCurrencyIsoCode;dealUniqueId\n"
+                        + "12.5;2024-01-15T10:30;EUR;USD;DEAL001\n"), ';', true);
+
+        // When/Then
+        assertTrue(parser.nextRecord());
+        assertEquals("DEAL001", parser.getDealUniqueId());
+        assertEquals("USD", parser.getFromCurrencyIsoCode());
+        assertEquals("EUR", parser.getToCurrencyIsoCode());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), parser.getDealTimestamp());
+        assertEquals(new BigDecimal("12.5"), parser.getDealAmount());
+    }
+
+    @Test
+    void nextRecord_WithoutHeader_ShouldReadFirstLineAsData() throws IOException {
+        DealCsvParser parser = new DealCsvParser(
+                new StringReader("DEAL001,USD,EUR,2024-01-15T10:30:00,1\n"), ',', false);
+
+        assertTrue(parser.nextRecord());
+        assertEquals(1, parser.getLineNumber());
+        assertEquals("DEAL001", parser.getDealUniqueId());
+    }
+
+    @Test
+    void nextRecord_WithTinyBuffer_ShouldCompactAndGrow() throws IOException {
+        // Given
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 100; i++) {
+            csv.append("\"DEAL").append(i).append("\"\"x\",USD,EUR,2024-01-15T10:30:00,").append(i).append(".25\n");
+        }
+        DealCsvParser parser = new DealCsvParser(new StringReader(csv.toString()), ',', true, 8);
+
+        // When/Then
+        for (int i = 0; i < 100; i++) {
+            assertTrue(parser.nextRecord());
+            assertEquals("DEAL" + i + "\"x", parser.getDealUniqueId());
+            assertEquals(new BigDecimal(i + ".25"), parser.getDealAmount());
+            assertEquals(i + 2, parser.getLineNumber());
+        }
+        assertFalse(parser.nextRecord());
+    }
+
+    @Test
+    void getCurrency_ShouldReuseInstancesForIsoCodes() throws IOException {
+        // Given
+        DealCsvParser parser = parser(HEADER
+                + "DEAL001,USD,EUR,2024-01-15T10:30:00,1\n"
+                + "DEAL002,USD,usd,2024-01-15T10:30:00,1\n");
+
+        // When
+        parser.nextRecord();
+        String first = parser.getFromCurrencyIsoCode();
+        parser.nextRecord();
+
+        // Then
+        assertSame(first, parser.getFromCurrencyIsoCode());
+        assertEquals("usd", parser.getToCurrencyIsoCode());
+    }
+
+    @Test
+    void parseTimestamp_ShouldMatchLocalDateTimeParse() {
+        String[] valid = {
+                "2024-01-15T10:30", "2024-01-15T10:30:45", "2024-01-15T10:30:45.1",
+                "2024-02-29T23:59:59.123456789", "1999-12-31T00:00:00.000"
+        };
+        for (String text : valid) {
+            assertEquals(LocalDateTime.parse(text), DealCsvParser.parseTimestamp(text.toCharArray(), 0, text.length()), text);
+        }
+
+        String[] invalid = {
+                "INVALID_DATE", "2024-01-15", "2024-01-15 10:30:00", "2024-13-15T10:30:00",
+                "2023-02-29T10:30:00", "2024-01-15T10:30:4", "2024-01-15T10:30:00Z",
+                "2024-01-15T10:30:00.1234567890", "2024-01-1xT10:30:00"
+        };
+        for (String text : invalid) {
+            assertThrows(DateTimeParseException.class, () -> LocalDateTime.parse(text), text);
+            assertThrows(DateTimeParseException.class,
+                    () -> DealCsvParser.parseTimestamp(text.toCharArray(), 0, text.length()), text);
+        }
+
+        // LocalDateTime.parse takes a dot without fraction digits; the import does not
+        String emptyFraction = "2024-01-15T10:30:00.";
+        assertThrows(DateTimeParseException.class,
+                () -> DealCsvParser.parseTimestamp(emptyFraction.toCharArray(), 0, emptyFraction.length()));
+    }
+
+    @Test
+    void parseAmount_ShouldMatchBigDecimal() {
+        String[] valid = {"1000.00", "0.01", "-5", "+7.5", "123456789012345678", "1234567890123456789.5", "1E+3", ".5", "5."};
+        for (String text : valid) {
+            assertEquals(new BigDecimal(text), DealCsvParser.parseAmount(text.toCharArray(), 0, text.length()), text);
+        }
+
+        String[] invalid = {"", "-", "INVALID_AMOUNT", "1.2.3", "1,5"};
+        for (String text : invalid) {
+            assertThrows(NumberFormatException.class,
+                    () -> DealCsvParser.parseAmount(text.toCharArray(), 0, text.length()), text);
+        }
+    }
+
+    @Test
+    void getRecord_ShouldMatchSingleGetters() throws IOException {
+        // Given
+        DealCsvParser parser = parser(HEADER
+                + "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n"
+                + "DEAL002,GBP,JPY,2024-02-29T23:59:59.123456789,-5\n"
+                + "DEAL003,EUR,USD,0999-01-01T00:00:00.5,1234567890123456789.5\n"
+                + "DEAL004,CHF,USD,2024-01-15T10:30,1E+3\n");
+
+        // When/Then
+        while (parser.nextRecord()) {
+            DealRecord record = parser.getRecord();
+            assertEquals(parser.getDealUniqueId(), record.getDealUniqueId());
+            assertEquals(parser.getFromCurrencyIsoCode(), record.getFromCurrencyIsoCode());
+            assertEquals(parser.getToCurrencyIsoCode(), record.getToCurrencyIsoCode());
+            assertEquals(parser.getDealTimestamp(), record.getDealTimestamp());
+            assertEquals(parser.getDealAmount(), record.getDealAmount());
+        }
+    }
+
+    @Test
+    void getRecord_WithInvalidFields_ShouldThrowLikeGetters() throws IOException {
+        DealCsvParser badTimestamp = parser(HEADER + "DEAL001,USD,EUR,2023-02-29T10:30:00,1000.00\n");
+        DealCsvParser badAmount = parser(HEADER + "DEAL001,USD,EUR,2024-01-15T10:30:00,1.2.3\n");
+        badTimestamp.nextRecord();
+        badAmount.nextRecord();
+
+        assertThrows(DateTimeParseException.class, badTimestamp::getRecord);
+        assertThrows(NumberFormatException.class, badAmount::getRecord);
+    }
+
+    @Test
+    void constructor_WithQuoteDelimiter_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new DealCsvParser(new StringReader(""), '"', true));
+    }
+}
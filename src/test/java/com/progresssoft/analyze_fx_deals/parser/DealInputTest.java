@@ -0,0 +1,94 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealInputTest {
+
+    private static final String CSV = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n"
+            + "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n";
+    private static final String NDJSON = "{\"dealUniqueId\":\"DEAL001\",\"fromCurrencyIsoCode\":\"USD\","
+            + "\"toCurrencyIsoCode\":\"EUR\",\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1000.00}\n";
+
+    private static DealInput open(byte[] bytes, String contentType, String fileName) throws IOException {
+        return DealInput.open(new ByteArrayInputStream(bytes), contentType, fileName);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String readAll(DealInput input) throws IOException {
+        return new String(input.getStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void open_WithPlainCsv_ShouldReadItAsIs() throws IOException {
+        // When
+        DealInput input = open(CSV.getBytes(StandardCharsets.UTF_8), "text/csv", "deals.csv");
+
+        // Then
+        assertEquals(DealFormat.CSV, input.getFormat());
+        assertEquals(CSV, readAll(input));
+    }
+
+    @Test
+    void open_WithGzip_ShouldDecompressWhateverTheFileIsCalled() throws IOException {
+        // When
+        DealInput input = open(gzip(CSV), "application/octet-stream", "upload.bin");
+
+        // Then
+        assertEquals(DealFormat.CSV, input.getFormat());
+        assertEquals(CSV, readAll(input));
+    }
+
+    @Test
+    void open_WithZstdNdjson_ShouldDecompressAndDetectFromFileName() throws IOException {
+        // When
+        DealInput input = open(Zstd.compress(NDJSON.getBytes(StandardCharsets.UTF_8)), "application/zstd", "deals.ndjson.zst");
+
+        // Then
+        assertEquals(DealFormat.NDJSON, input.getFormat());
+        DealReader reader = input.dealReader(',');
+        assertTrue(reader.nextRecord());
+        assertEquals("DEAL001", reader.getRecord().getDealUniqueId());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void open_ShouldPreferContentTypeOverFileName() throws IOException {
+        // When
+        DealInput input = open(NDJSON.getBytes(StandardCharsets.UTF_8), "application/x-ndjson; charset=utf-8", "deals.csv");
+
+        // Then
+        assertEquals(DealFormat.NDJSON, input.getFormat());
+    }
+
+    @Test
+    void open_WithoutHints_ShouldTellNdjsonByItsFirstCharacter() throws IOException {
+        assertEquals(DealFormat.NDJSON, open(gzip("\n" + NDJSON), null, null).getFormat());
+        assertEquals(DealFormat.CSV, open(CSV.getBytes(StandardCharsets.UTF_8), null, "deals").getFormat());
+        assertEquals(DealFormat.CSV, open(new byte[0], null, null).getFormat());
+    }
+
+    @Test
+    void open_WithParquet_ShouldRefuseIt() {
+        byte[] parquet = "PAR1\u0015\u0000".getBytes(StandardCharsets.ISO_8859_1);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> open(parquet, "application/octet-stream", "deals.parquet"));
+        assertTrue(e.getMessage().contains("Parquet"));
+    }
+}
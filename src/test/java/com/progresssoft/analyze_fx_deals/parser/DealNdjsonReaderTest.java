@@ -0,0 +1,106 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealNdjsonReaderTest {
+
+    private static DealNdjsonReader reader(String ndjson) {
+        return new DealNdjsonReader(new StringReader(ndjson));
+    }
+
+    @Test
+    void nextRecord_ShouldReadOneDealPerLine() throws IOException {
+        // Given
+        DealNdjsonReader reader = reader(
+                "{\"dealUniqueId\":\"DEAL001\",\"fromCurrencyIsoCode\":\"USD\",\"toCurrencyIsoCode\":\"EUR\","
+                        + "\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1000.00}\n"
+                        + "\n"
+                        + "{\"dealAmount\":\"2.5\",\"dealTimestamp\":\"2024-01-15T11:00\",\"toCurrencyIsoCode\":\"JPY\","
+                        + "\"fromCurrencyIsoCode\":\"GBP\",\"dealUniqueId\":\"DEAL002\"}\n");
+
+        // When/Then
+        assertTrue(reader.nextRecord());
+        assertEquals(1, reader.getLineNumber());
+        assertEquals(DealRecord.of("DEAL001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30),
+                new BigDecimal("1000.00")), reader.getRecord());
+        assertTrue(reader.nextRecord());
+        assertEquals(3, reader.getLineNumber());
+        DealRecord second = reader.getRecord();
+        assertEquals("DEAL002", second.getDealUniqueId());
+        assertEquals("GBP", second.getFromCurrencyIsoCode());
+        assertEquals(new BigDecimal("2.5"), second.getDealAmount());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void nextRecord_ShouldSkipUnknownFieldsAndUnescapeText() throws IOException {
+        // Given
+        DealNdjsonReader reader = reader("{\"dealUniqueId\":\"DE\\\"AL\\n1\",\"note\":{\"a\":[1,2]},"
+                + "\"fromCurrencyIsoCode\":\"USD\",\"toCurrencyIsoCode\":\"EUR\","
+                + "\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1}");
+
+        // When/Then
+        assertTrue(reader.nextRecord());
+        assertEquals("DE\"AL\n1", reader.getRecord().getDealUniqueId());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void nextRecord_WithMissingTextField_ShouldLeaveItToValidation() throws IOException {
+        // Given
+        DealNdjsonReader reader = reader("{\"dealUniqueId\":null,\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1}");
+
+        // When
+        assertTrue(reader.nextRecord());
+        DealRecord record = reader.getRecord();
+
+        // Then
+        assertNull(record.getDealUniqueId());
+        assertNull(record.getFromCurrencyIsoCode());
+    }
+
+    @Test
+    void nextRecord_WithoutAmount_ShouldThrowException() {
+        DealNdjsonReader reader = reader("{\"dealUniqueId\":\"DEAL001\",\"dealTimestamp\":\"2024-01-15T10:30:00\"}");
+
+        assertThrows(IllegalArgumentException.class, reader::nextRecord);
+    }
+
+    @Test
+    void nextRecord_WithMalformedJson_ShouldReportLine() throws IOException {
+        // Given
+        DealNdjsonReader reader = new DealNdjsonReader(new StringReader(
+                "{\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1}\n{\"dealUniqueId\":"), 10);
+        assertTrue(reader.nextRecord());
+        assertEquals(10, reader.getLineNumber());
+
+        // When
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::nextRecord);
+
+        // Then
+        assertTrue(e.getMessage().startsWith("Invalid JSON on line 11"), e.getMessage());
+    }
+
+    @Test
+    void nextRecord_WithArrayInsteadOfObject_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> reader("[1,2]").nextRecord());
+    }
+
+    @Test
+    void getRecord_WithInvalidTimestamp_ShouldFailLikeCsv() throws IOException {
+        // Given
+        DealNdjsonReader reader = reader("{\"dealTimestamp\":\"15/01/2024\",\"dealAmount\":1}");
+        assertTrue(reader.nextRecord());
+
+        // When/Then
+        assertThrows(DateTimeParseException.class, reader::getRecord);
+    }
+}
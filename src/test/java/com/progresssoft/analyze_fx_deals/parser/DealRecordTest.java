@@ -0,0 +1,78 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealRecordTest {
+
+    private static final LocalDateTime[] TIMESTAMPS = {
+            LocalDateTime.of(2024, 1, 15, 10, 30), LocalDateTime.of(2024, 1, 15, 10, 30, 45),
+            LocalDateTime.of(2024, 1, 15, 10, 30, 0, 100_000_000), LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_789),
+            LocalDateTime.of(2024, 1, 15, 10, 30, 0, 120_000), LocalDateTime.of(999, 12, 31, 0, 0, 0, 1),
+            LocalDateTime.of(9999, 12, 31, 23, 59)
+    };
+    private static final String[] AMOUNTS = {
+            "1000.00", "0.01", "0.009", "-5", "-0.05", "0", "123456789012345678", "1234567890123456789.5",
+            "0.000000000000000001", "1E+3", "1E-20", "-922337203685477580.8", "4611686018427387904"
+    };
+
+    private static DealRecord record(LocalDateTime timestamp, String amount) {
+        return DealRecord.of("DEAL001", "USD", "EUR", timestamp, new BigDecimal(amount));
+    }
+
+    @Test
+    void of_ShouldKeepTimestampAndAmount() {
+        for (LocalDateTime timestamp : TIMESTAMPS) {
+            for (String amount : AMOUNTS) {
+                DealRecord record = record(timestamp, amount);
+
+                assertEquals(timestamp, record.getDealTimestamp());
+                assertEquals(new BigDecimal(amount), record.getDealAmount());
+            }
+        }
+    }
+
+    @Test
+    void of_WithFiveDigitYear_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> record(LocalDateTime.of(10000, 1, 1, 0, 0), "1"));
+    }
+
+    @Test
+    void appendTimestampAndAmount_ShouldWriteLikeToStringAndToPlainString() {
+        for (LocalDateTime timestamp : TIMESTAMPS) {
+            for (String amount : AMOUNTS) {
+                // Given
+                DealRecord record = record(timestamp, amount);
+                StringBuilder buffer = new StringBuilder();
+
+                // When
+                record.appendTimestamp(buffer);
+                buffer.append(',');
+                record.appendAmount(buffer);
+
+                // Then
+                assertEquals(timestamp + "," + new BigDecimal(amount).toPlainString(), buffer.toString());
+            }
+        }
+    }
+
+    @Test
+    void compareAmountTo_ShouldMatchBigDecimalCompareTo() {
+        long[] unscaled = {0, 1, -1, 5, 100, 1_000_000, Long.MAX_VALUE, Long.MIN_VALUE + 1};
+        int[] scales = {0, 1, 2, 5, 18, 19, 30};
+        for (String amount : AMOUNTS) {
+            DealRecord record = record(TIMESTAMPS[0], amount);
+            for (long value : unscaled) {
+                for (int scale : scales) {
+                    assertEquals(Integer.signum(new BigDecimal(amount).compareTo(BigDecimal.valueOf(value, scale))),
+                            Integer.signum(record.compareAmountTo(value, scale)), amount + " vs " + value + "E-" + scale);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.progresssoft.analyze_fx_deals.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedDealChunkSplitterTest {
+
+    private static final String HEADER = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void next_ShouldSplitIntoChunksReportingOriginalLineNumbers() throws IOException {
+        // Given
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 5; i++) {
+            csv.append("DEAL").append(i).append(",USD,EUR,2024-01-15T10:30:00,").append(i).append('\n');
+        }
+
+        // When/Then
+        try (MappedDealChunkSplitter splitter = splitter(csv.toString(), DealFormat.CSV, 2, 1 << 20)) {
+            int row = 0;
+            for (int sequence = 0; sequence < 3; sequence++) {
+                DealChunkSplitter.Chunk chunk = splitter.next();
+                assertNotNull(chunk);
+                assertEquals(sequence, chunk.getSequence());
+                assertEquals(2 + 2L * sequence, chunk.getFirstLine());
+                DealReader reader = chunk.reader(',');
+                while (reader.nextRecord()) {
+                    assertEquals("DEAL" + row, reader.getRecord().getDealUniqueId());
+                    assertEquals(row + 2, reader.getLineNumber());
+                    row++;
+                }
+            }
+            assertEquals(5, row);
+            assertNull(splitter.next());
+        }
+    }
+
+    @Test
+    void next_WithSmallWindow_ShouldRemapAtChunkStart() throws IOException {
+        // Given
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 20; i++) {
+            csv.append("DEAL").append(i).append(",USD,EUR,2024-01-15T10:30:00,").append(i).append('\n');
+        }
+
+        // When
+        int rows = 0;
+        long lastEnd = 0;
+        try (MappedDealChunkSplitter splitter = splitter(csv.toString(), DealFormat.CSV, 3, 200)) {
+            DealChunkSplitter.Chunk chunk;
+            while ((chunk = splitter.next()) != null) {
+                DealReader reader = chunk.reader(',');
+                while (reader.nextRecord()) {
+                    assertEquals("DEAL" + rows, reader.getRecord().getDealUniqueId());
+                    rows++;
+                }
+                lastEnd = chunk.getEnd().getOffset();
+            }
+        }
+
+        // Then
+        assertEquals(20, rows);
+        assertEquals(csv.length(), lastEnd);
+    }
+
+    @Test
+    void next_WhenChunkExceedsWindow_ShouldThrowException() throws IOException {
+        // Given
+        String csv = HEADER + "DEAL001,USD,EUR,2024-01-15T10:30:00,1\n";
+
+        // When/Then
+        try (MappedDealChunkSplitter splitter = splitter(csv, DealFormat.CSV, 1, 20)) {
+            assertThrows(IllegalArgumentException.class, splitter::next);
+        }
+    }
+
+    @Test
+    void next_ShouldDecodeUtf8AndNotCutInsideQuotedField() throws IOException {
+        // Given
+        String first = "\"D\u00e9al\u20ac\ud83d\ude00\nx\",USD,EUR,2024-01-15T10:30:00,1\n";
+        String second = "DEAL002,USD,EUR,2024-01-15T10:30:00,2";
+
+        // When
+        try (MappedDealChunkSplitter splitter = splitter(HEADER + first + second, DealFormat.CSV, 1, 1 << 20)) {
+            DealChunkSplitter.Chunk chunk = splitter.next();
+            DealChunkSplitter.Chunk last = splitter.next();
+
+            // Then
+            long firstEnd = (HEADER + first).getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(new ImportCheckpoint(4, firstEnd), chunk.getEnd());
+            DealReader reader = chunk.reader(',');
+            assertTrue(reader.nextRecord());
+            assertEquals("D\u00e9al\u20ac\ud83d\ude00\nx", reader.getRecord().getDealUniqueId());
+            assertFalse(reader.nextRecord());
+
+            assertEquals(new ImportCheckpoint(5, firstEnd + second.length()), last.getEnd());
+            reader = last.reader(',');
+            assertTrue(reader.nextRecord());
+            assertEquals(4, reader.getLineNumber());
+            assertEquals("DEAL002", reader.getRecord().getDealUniqueId());
+            assertNull(splitter.next());
+        }
+    }
+
+    @Test
+    void next_WithNdjson_ShouldSplitWithoutHeader() throws IOException {
+        // Given
+        String ndjson = "{\"dealUniqueId\":\"DEAL1\",\"fromCurrencyIsoCode\":\"USD\",\"toCurrencyIsoCode\":\"EUR\","
+                + "\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1}\n"
+                + "{\"dealUniqueId\":\"DEAL2\",\"fromCurrencyIsoCode\":\"USD\",\"toCurrencyIsoCode\":\"EUR\","
+                + "\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":2}\n";
+
+        // When
+        try (MappedDealChunkSplitter splitter = splitter(ndjson, DealFormat.NDJSON, 1, 1 << 20)) {
+            splitter.next();
+            DealChunkSplitter.Chunk chunk = splitter.next();
+
+            // Then
+            assertEquals(2, chunk.getFirstLine());
+            DealReader reader = chunk.reader(',');
+            assertTrue(reader.nextRecord());
+            assertEquals(2, reader.getLineNumber());
+            assertEquals("DEAL2", reader.getRecord().getDealUniqueId());
+            assertNull(splitter.next());
+        }
+    }
+
+    @Test
+    void next_WithOnlyHeader_ShouldReturnNull() throws IOException {
+        try (MappedDealChunkSplitter splitter = splitter(HEADER, DealFormat.CSV, 10, 1 << 20)) {
+            assertNull(splitter.next());
+        }
+    }
+
+    private MappedDealChunkSplitter splitter(String content, DealFormat format, int lines, long windowSize)
+            throws IOException {
+        Path file = Files.writeString(dir.resolve("deals" + format.getExtension()), content);
+        return new MappedDealChunkSplitter(FileChannel.open(file, StandardOpenOption.READ), format, lines, windowSize);
+    }
+}
@@ -0,0 +1,186 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealBatchRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DealPartitionRepository dealPartitionRepository;
+
+    @InjectMocks
+    private DealBatchRepository dealBatchRepository;
+
+    private static Deal deal(String id) {
+        return new Deal(id, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("1000.00"));
+    }
+
+    @Test
+    void insertIgnoringDuplicates_ShouldIssueOneMultiRowStatement() {
+        // Given
+        List<Deal> deals = List.of(deal("DEAL001"), deal("DEAL002"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("DEAL001"));
+
+        // When
+        Set<String> inserted = dealBatchRepository.insertIgnoringDuplicates(deals);
+
+        // Then
+        assertEquals(Set.of("DEAL001"), inserted);
+        verify(jdbcTemplate, times(1)).queryForList(
+                argThatSql("VALUES (?, ?, ?, CAST(? AS TIMESTAMP), CAST(? AS NUMERIC)), "
+                        + "(?, ?, ?, CAST(? AS TIMESTAMP), CAST(? AS NUMERIC))), "),
+                eq(String.class),
+                any(Object[].class));
+    }
+
+    @Test
+    void insertIgnoringDuplicates_ShouldRollUpInsertedRowsInSameStatement() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("DEAL001"));
+
+        // When
+        dealBatchRepository.insertIgnoringDuplicates(List.of(deal("DEAL001")));
+
+        // Then
+        verify(jdbcTemplate).queryForList(
+                argThat(sql -> sql.startsWith("WITH v (")
+                        && sql.contains("claimed AS (INSERT INTO deal_ids ")
+                        && sql.contains("ins AS (INSERT INTO deals ")
+                        && sql.contains("JOIN claimed USING (deal_unique_id)")
+                        && sql.contains("rollup AS (INSERT INTO deal_stats ")
+                        && sql.contains("FROM ins s CROSS JOIN")
+                        && sql.endsWith("SELECT deal_unique_id FROM ins")),
+                eq(String.class),
+                any(Object[].class));
+    }
+
+    @Test
+    void insertIgnoringDuplicates_WithRepeatedId_ShouldOnlyBindFirstOccurrence() {
+        // Given
+        Deal first = deal("DEAL001");
+        Deal repeated = new Deal("DEAL001", "GBP", "JPY", LocalDateTime.of(2024, 1, 16, 9, 0), new BigDecimal("5.00"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("DEAL001"));
+
+        // When
+        dealBatchRepository.insertIgnoringDuplicates(List.of(first, repeated, deal("DEAL002")));
+
+        // Then
+        verify(jdbcTemplate).queryForList(anyString(), eq(String.class), eq(new Object[]{
+                "DEAL001", "USD", "EUR", first.getDealTimestamp(), first.getDealAmount(),
+                "DEAL002", "USD", "EUR", first.getDealTimestamp(), first.getDealAmount()}));
+    }
+
+    @Test
+    void insertIgnoringDuplicates_ShouldEnsurePartitionsOfTheMonthsBeforeInserting() {
+        // Given
+        Deal february = new Deal("DEAL002", "USD", "EUR", LocalDateTime.of(2024, 2, 1, 0, 0), new BigDecimal("1.00"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        dealBatchRepository.insertIgnoringDuplicates(List.of(deal("DEAL001"), february, deal("DEAL003")));
+
+        // Then
+        InOrder inOrder = inOrder(dealPartitionRepository, jdbcTemplate);
+        inOrder.verify(dealPartitionRepository).ensurePartitions(Set.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        inOrder.verify(jdbcTemplate).queryForList(anyString(), eq(String.class), any(Object[].class));
+    }
+
+    @Test
+    void insertIgnoringDuplicates_WithMoreRowsThanParameterLimit_ShouldSplitStatements() {
+        // Given
+        List<Deal> deals = new ArrayList<>();
+        for (int i = 0; i < DealBatchRepository.MAX_ROWS_PER_STATEMENT + 1; i++) {
+            deals.add(deal("DEAL" + i));
+        }
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        dealBatchRepository.insertIgnoringDuplicates(deals);
+
+        // Then
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(String.class), any(Object[].class));
+    }
+
+    @Test
+    void insertIgnoringDuplicates_WithNoDeals_ShouldNotTouchDatabase() {
+        // When
+        Set<String> inserted = dealBatchRepository.insertIgnoringDuplicates(Collections.emptyList());
+
+        // Then
+        assertTrue(inserted.isEmpty());
+        verifyNoInteractions(jdbcTemplate, dealPartitionRepository);
+    }
+
+    @Test
+    void backfillIds_ShouldClaimIdsOfStoredDeals() {
+        // Given
+        when(jdbcTemplate.update(anyString())).thenReturn(3);
+
+        // When
+        int added = dealBatchRepository.backfillIds();
+
+        // Then
+        assertEquals(3, added);
+        verify(jdbcTemplate).update(argThatSql("INSERT INTO deal_ids (deal_unique_id) SELECT deal_unique_id FROM deals"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findExistingIds_ShouldQueryAllIdsAtOnce() {
+        // Given
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of("DEAL002"));
+
+        // When
+        Set<String> existing = dealBatchRepository.findExistingIds(List.of("DEAL001", "DEAL002", "DEAL003"));
+
+        // Then
+        assertEquals(Set.of("DEAL002"), existing);
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+    }
+
+    @Test
+    void findExistingIds_WithNoIds_ShouldNotTouchDatabase() {
+        // When
+        Set<String> existing = dealBatchRepository.findExistingIds(Collections.emptyList());
+
+        // Then
+        assertTrue(existing.isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static String argThatSql(String fragment) {
+        return argThat(sql -> sql.contains(fragment));
+    }
+}
@@ -0,0 +1,84 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the COPY path against a real PostgreSQL with the schema from init-db.sql, e.g.
+ * {@code DEALS_TEST_JDBC_URL=jdbc:postgresql://localhost:5433/fxdeals DEALS_TEST_JDBC_USER=fxuser DEALS_TEST_JDBC_PASSWORD=fxpass123 mvn test}
+ * with the docker-compose database up.
+ */
+@EnabledIfEnvironmentVariable(named = "DEALS_TEST_JDBC_URL", matches = ".+")
+class DealCopyRepositoryPostgresTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private DealCopyRepository dealCopyRepository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv("DEALS_TEST_JDBC_URL"),
+                System.getenv("DEALS_TEST_JDBC_USER"),
+                System.getenv("DEALS_TEST_JDBC_PASSWORD"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(Files.readString(Path.of("init-db.sql")));
+        cleanUp();
+
+        DealPartitionRepository dealPartitionRepository = new DealPartitionRepository();
+        ReflectionTestUtils.setField(dealPartitionRepository, "jdbcTemplate", jdbcTemplate);
+        dealCopyRepository = new DealCopyRepository();
+        ReflectionTestUtils.setField(dealCopyRepository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(dealCopyRepository, "dealPartitionRepository", dealPartitionRepository);
+        ReflectionTestUtils.setField(dealCopyRepository, "fetchSize", 1000);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM deals WHERE deal_unique_id LIKE 'COPYTEST%'");
+        jdbcTemplate.update("DELETE FROM deal_ids WHERE deal_unique_id LIKE 'COPYTEST%'");
+    }
+
+    private static DealRecord deal(String id, String from) {
+        return DealRecord.of(id, from, "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("1000.00"));
+    }
+
+    @Test
+    void copyAndMerge_ShouldInsertNewRowsAndSkipDuplicates() {
+        // Given
+        jdbcTemplate.update("INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount) "
+                + "VALUES ('COPYTEST1', 'USD', 'EUR', now(), 1)");
+        jdbcTemplate.update("INSERT INTO deal_ids (deal_unique_id) VALUES ('COPYTEST1')");
+
+        // When
+        List<Deal> inserted = new ArrayList<>();
+        BulkLoadResult result = dealCopyRepository.copyAndMerge(List.of(
+                deal("COPYTEST1", "USD"),
+                deal("COPYTEST2", "GBP"),
+                deal("COPYTEST2", "JPY"),
+                deal("COPYTEST3", "CHF")).iterator(), inserted::add);
+
+        // Then
+        assertEquals(4, result.getStaged());
+        assertEquals(2, result.getInserted());
+        assertEquals("GBP", jdbcTemplate.queryForObject(
+                "SELECT from_currency_iso_code FROM deals WHERE deal_unique_id = 'COPYTEST2'", String.class));
+        assertEquals(List.of("COPYTEST2", "COPYTEST3"), inserted.stream().map(Deal::getDealUniqueId).sorted().toList());
+    }
+}
@@ -0,0 +1,196 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DealCopyRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    @Mock
+    private CopyIn copyIn;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Mock
+    private DealPartitionRepository dealPartitionRepository;
+
+    @InjectMocks
+    private DealCopyRepository dealCopyRepository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(inv -> inv.getArgument(0, ConnectionCallback.class).doInConnection(connection));
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(statement.executeUpdate(anyString())).thenReturn(1);
+    }
+
+    private static Deal deal(String id) {
+        return new Deal(id, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("1000.00"));
+    }
+
+    private static DealRecord record(String id) {
+        return DealRecord.of(id, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("1000.00"));
+    }
+
+    @Test
+    void copyAndMerge_ShouldStageAllRowsAndReportInserted() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(dealCopyRepository, "fetchSize", 500);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn("DEAL002");
+        when(resultSet.getString(2)).thenReturn("USD");
+        when(resultSet.getString(3)).thenReturn("EUR");
+        when(resultSet.getObject(4, LocalDateTime.class)).thenReturn(LocalDateTime.of(2024, 1, 15, 10, 30));
+        when(resultSet.getBigDecimal(5)).thenReturn(new BigDecimal("1000.00"));
+        List<Deal> inserted = new ArrayList<>();
+
+        // When
+        BulkLoadResult result = dealCopyRepository.copyAndMerge(List.of(record("DEAL001"), record("DEAL002")).iterator(), inserted::add);
+
+        // Then
+        assertEquals(2, result.getStaged());
+        assertEquals(1, result.getInserted());
+        assertEquals(List.of(deal("DEAL002")), inserted);
+        verify(statement).setFetchSize(500);
+        verify(statement).execute(argThat(sql -> sql.startsWith("CREATE TEMP TABLE deals_staging")));
+        verify(copyIn, times(1)).writeToCopy(any(byte[].class), eq(0), anyInt());
+        InOrder order = inOrder(copyIn, dealPartitionRepository, connection, statement);
+        order.verify(copyIn).endCopy();
+        order.verify(dealPartitionRepository).ensurePartitions(Set.of(YearMonth.of(2024, 1)));
+        order.verify(connection).setAutoCommit(false);
+        order.verify(statement).executeUpdate(argThat(sql -> sql.contains("claimed AS (INSERT INTO deal_ids ")
+                && sql.contains("JOIN claimed USING (deal_unique_id)")
+                && sql.contains("rollup AS (INSERT INTO deal_stats ")
+                && sql.endsWith("INSERT INTO deals_merged SELECT * FROM ins")));
+        order.verify(connection).commit();
+        order.verify(statement).executeQuery(argThat(sql -> sql.endsWith("FROM deals_merged")));
+        order.verify(connection).commit();
+        order.verify(connection).setAutoCommit(true);
+        order.verify(statement).execute("DROP TABLE IF EXISTS deals_staging, deals_merged");
+    }
+
+    @Test
+    void copyAndMerge_WhenMergeFails_ShouldRollbackAndNotReportRows() throws Exception {
+        // Given
+        when(statement.executeUpdate(anyString())).thenThrow(new SQLException("could not attach partition"));
+        List<Deal> inserted = new ArrayList<>();
+
+        // When/Then
+        assertThrows(SQLException.class, () -> dealCopyRepository.copyAndMerge(List.of(record("DEAL001")).iterator(), inserted::add));
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(statement, never()).executeQuery(anyString());
+        verify(statement).execute("DROP TABLE IF EXISTS deals_staging, deals_merged");
+        assertTrue(inserted.isEmpty());
+    }
+
+    @Test
+    void copyAndMerge_WhenRowsFail_ShouldCancelCopyAndRollback() throws Exception {
+        // Given
+        when(copyIn.isActive()).thenReturn(true);
+        Iterator<DealRecord> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public DealRecord next() {
+                throw new IllegalArgumentException("Invalid row format");
+            }
+        };
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> dealCopyRepository.copyAndMerge(failing, deal -> { }));
+        verify(copyIn).cancelCopy();
+        verify(connection, never()).commit();
+        verify(statement, never()).executeUpdate(anyString());
+        verify(dealPartitionRepository, never()).ensurePartitions(any());
+        verify(statement).execute("DROP TABLE IF EXISTS deals_staging, deals_merged");
+    }
+
+    @Test
+    void copyAndMerge_InsideExistingTransaction_ShouldNotCommit() throws Exception {
+        // Given
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        // When
+        dealCopyRepository.copyAndMerge(List.of(record("DEAL001")).iterator(), deal -> { });
+
+        // Then
+        verify(connection, never()).commit();
+        verify(connection, never()).setAutoCommit(anyBoolean());
+        verify(statement).execute("DROP TABLE IF EXISTS deals_staging, deals_merged");
+    }
+
+    @Test
+    void appendCsvRow_ShouldQuoteTextFields() {
+        // Given
+        StringBuilder buffer = new StringBuilder();
+        DealRecord deal = record("DE\"AL,1");
+
+        // When
+        DealCopyRepository.appendCsvRow(buffer, deal);
+
+        // Then
+        assertEquals("\"DE\"\"AL,1\",\"USD\",\"EUR\",2024-01-15T10:30,1000.00\n", buffer.toString());
+    }
+}
@@ -0,0 +1,86 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealPartitionRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private DealPartitionRepository dealPartitionRepository;
+
+    @Test
+    void createSql_WithDefaultPartition_ShouldMoveItsRowsBeforeAttaching() {
+        // When
+        List<String> statements = DealPartitionRepository.createSql("deals_2024_12", YearMonth.of(2024, 12), true);
+
+        // Then
+        assertEquals(List.of(
+                "LOCK TABLE deals_default IN ACCESS EXCLUSIVE MODE",
+                "CREATE TABLE deals_2024_12 (LIKE deals INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+                "INSERT INTO deals_2024_12 SELECT * FROM deals_default "
+                        + "WHERE deal_timestamp >= '2024-12-01' AND deal_timestamp < '2025-01-01'",
+                "DELETE FROM deals_default WHERE deal_timestamp >= '2024-12-01' AND deal_timestamp < '2025-01-01'",
+                "ALTER TABLE deals ATTACH PARTITION deals_2024_12 FOR VALUES FROM ('2024-12-01') TO ('2025-01-01')"),
+                statements);
+    }
+
+    @Test
+    void createSql_WithoutDefaultPartition_ShouldOnlyCreateAndAttach() {
+        // When
+        List<String> statements = DealPartitionRepository.createSql("deals_2024_01", YearMonth.of(2024, 1), false);
+
+        // Then
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0).startsWith("CREATE TABLE deals_2024_01 "));
+        assertTrue(statements.get(1).startsWith("ALTER TABLE deals ATTACH PARTITION deals_2024_01 "));
+    }
+
+    @Test
+    void ensurePartitions_OnPlainTable_ShouldNotCreateAnything() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(false);
+
+        // When
+        dealPartitionRepository.ensurePartitions(List.of(YearMonth.of(2024, 1)));
+
+        // Then
+        assertFalse(dealPartitionRepository.isPartitioned());
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    }
+
+    @Test
+    void ensurePartitions_ShouldOnlyCreateMissingMonthsOnce() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("deals_2024_01", "deals_default"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyString())).thenReturn(false);
+
+        // When
+        dealPartitionRepository.ensurePartitions(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        dealPartitionRepository.ensurePartitions(List.of(YearMonth.of(2024, 2)));
+
+        // Then
+        verify(jdbcTemplate, times(1)).execute(any(ConnectionCallback.class));
+        verify(jdbcTemplate).queryForObject(anyString(), eq(Boolean.class), eq("deals_2024_02"));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Boolean.class), eq("deals_2024_01"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the plans of filtered page queries against a real PostgreSQL with the
+ * schema from init-db.sql, e.g.
+ * {@code DEALS_TEST_JDBC_URL=jdbc:postgresql://localhost:5433/fxdeals DEALS_TEST_JDBC_USER=fxuser DEALS_TEST_JDBC_PASSWORD=fxpass123 mvn test}
+ * with the docker-compose database up.
+ */
+@EnabledIfEnvironmentVariable(named = "DEALS_TEST_JDBC_URL", matches = ".+")
+class DealQueryRepositoryPostgresTest {
+
+    // XTS and XXX are the ISO 4217 codes reserved for testing and "no currency"
+    private static final String FROM = "XTS";
+    private static final String TO = "XXX";
+
+    // Indexes that ATTACH PARTITION or PARTITION OF create on a partition are named after the columns
+    private static final Pattern PAIR_INDEX =
+            Pattern.compile("idx_deals_pair_timestamp|deals_\\w+_from_currency_iso_code_to_currency_iso_code_\\w*idx");
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DealQueryRepository dealQueryRepository;
+    private boolean partitioned;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataSource = new SingleConnectionDataSource(
+                System.getenv("DEALS_TEST_JDBC_URL"),
+                System.getenv("DEALS_TEST_JDBC_USER"),
+                System.getenv("DEALS_TEST_JDBC_PASSWORD"),
+                true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(Files.readString(Path.of("init-db.sql")));
+        deleteTestRows();
+        DealPartitionRepository dealPartitionRepository = new DealPartitionRepository();
+        ReflectionTestUtils.setField(dealPartitionRepository, "jdbcTemplate", jdbcTemplate);
+        dealPartitionRepository.ensurePartitions(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        partitioned = dealPartitionRepository.isPartitioned();
+
+        // Many rows of other pairs, a few of the queried one, so only the pair index is selective
+        jdbcTemplate.update("INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount) "
+                + "SELECT 'PLANTEST' || i, 'XAU', 'XAG', TIMESTAMP '2024-01-01' + i * INTERVAL '1 minute', i "
+                + "FROM generate_series(1, 20000) AS i");
+        jdbcTemplate.update("INSERT INTO deals (deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount) "
+                + "SELECT 'PLANTEST-PAIR' || i, ?, ?, TIMESTAMP '2024-01-01' + i * INTERVAL '1 hour', i * 100 "
+                + "FROM generate_series(1, 50) AS i", FROM, TO);
+        jdbcTemplate.execute("ANALYZE deals");
+
+        dealQueryRepository = new DealQueryRepository();
+        ReflectionTestUtils.setField(dealQueryRepository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        deleteTestRows();
+        dataSource.destroy();
+    }
+
+    private void deleteTestRows() {
+        jdbcTemplate.update("DELETE FROM deals WHERE deal_unique_id LIKE 'PLANTEST%'");
+    }
+
+    private String explain(DealFilter filter, LocalDateTime afterTimestamp, String afterId) {
+        List<Object> args = new ArrayList<>();
+        String sql = DealQueryRepository.pageSql(filter, afterTimestamp, afterId, args);
+        args.add(101);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args.toArray()));
+    }
+
+    @Test
+    void pairAndRangeQuery_ShouldScanPairIndexInPageOrderWithoutSort() {
+        // Given
+        DealFilter filter = new DealFilter(FROM, TO,
+                LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 2, 12, 0), null);
+
+        // When
+        String plan = explain(filter, LocalDateTime.of(2024, 1, 1, 15, 0), "PLANTEST-PAIR15");
+
+        // Then
+        assertTrue(PAIR_INDEX.matcher(plan).find(), plan);
+        assertFalse(plan.contains("Sort"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void pairQueryWithMinAmount_ShouldStillUsePairIndex() {
+        // When
+        String plan = explain(new DealFilter(FROM, TO, null, null, new BigDecimal("1000")), null, null);
+
+        // Then
+        assertTrue(PAIR_INDEX.matcher(plan).find(), plan);
+        if (!partitioned) {
+            // Across partitions the planner may as well sort the few matches of each one
+            assertFalse(plan.contains("Sort"), plan);
+        }
+    }
+
+    @Test
+    void rangeQuery_OnPartitionedDeals_ShouldOnlyScanMonthsInRange() {
+        assumeTrue(partitioned);
+
+        // Given
+        DealFilter filter = new DealFilter(null, null,
+                LocalDateTime.of(2024, 1, 10, 0, 0), LocalDateTime.of(2024, 1, 11, 0, 0), null);
+
+        // When
+        String plan = explain(filter, null, null);
+
+        // Then
+        assertTrue(plan.contains("deals_2024_01"), plan);
+        assertFalse(plan.contains("deals_2024_02"), plan);
+        assertFalse(plan.contains("deals_default"), plan);
+    }
+
+    @Test
+    void findPage_WithFilter_ShouldReturnOnlyMatchingDealsInKeyOrder() {
+        // Given
+        DealFilter filter = new DealFilter(FROM, TO,
+                LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 1, 20, 0), new BigDecimal("1500"));
+
+        // When
+        List<Deal> first = dealQueryRepository.findPage(filter, null, null, 3);
+        Deal last = first.get(first.size() - 1);
+        List<Deal> rest = dealQueryRepository.findPage(filter, last.getDealTimestamp(), last.getDealUniqueId(), 100);
+
+        // Then
+        assertEquals(List.of("PLANTEST-PAIR15", "PLANTEST-PAIR16", "PLANTEST-PAIR17"),
+                first.stream().map(Deal::getDealUniqueId).toList());
+        assertEquals(2, rest.size());
+        assertEquals("PLANTEST-PAIR19", rest.get(1).getDealUniqueId());
+    }
+}
@@ -0,0 +1,192 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealQueryRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @InjectMocks
+    private DealQueryRepository dealQueryRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dealQueryRepository, "fetchSize", 500);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runConnectionCallbacks() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+                invocation.getArgument(0, ConnectionCallback.class).doInConnection(connection));
+    }
+
+    @Test
+    void findPage_WithoutCursor_ShouldReadFirstPageInKeyOrder() {
+        // When
+        dealQueryRepository.findPage(DealFilter.NONE, null, null, 11);
+
+        // Then
+        verify(jdbcTemplate).query(
+                eq("SELECT deal_unique_id, from_currency_iso_code, to_currency_iso_code, deal_timestamp, deal_amount FROM deals"
+                        + " ORDER BY deal_timestamp, deal_unique_id LIMIT ?"),
+                eq(DealQueryRepository.DEAL_ROW_MAPPER), eq(11));
+    }
+
+    @Test
+    void findPage_WithCursor_ShouldSeekPastLastKey() {
+        // Given
+        LocalDateTime after = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+        // When
+        dealQueryRepository.findPage(DealFilter.NONE, after, "DEAL001", 11);
+
+        // Then
+        verify(jdbcTemplate).query(
+                argThatContains("WHERE (deal_timestamp, deal_unique_id) > (?, ?) ORDER BY deal_timestamp, deal_unique_id LIMIT ?"),
+                eq(DealQueryRepository.DEAL_ROW_MAPPER), eq(Timestamp.valueOf(after)), eq("DEAL001"), eq(11));
+    }
+
+    @Test
+    void findPage_WithFilter_ShouldBindConditionsBeforeKeyAndLimit() {
+        // Given
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime until = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime after = LocalDateTime.of(2024, 1, 15, 10, 30);
+        DealFilter filter = new DealFilter("USD", "EUR", since, until, new BigDecimal("1000"));
+
+        // When
+        dealQueryRepository.findPage(filter, after, "DEAL001", 11);
+
+        // Then
+        verify(jdbcTemplate).query(
+                argThatContains(" WHERE from_currency_iso_code = ? AND to_currency_iso_code = ?"
+                        + " AND deal_timestamp >= ? AND deal_timestamp < ? AND deal_amount >= ?"
+                        + " AND (deal_timestamp, deal_unique_id) > (?, ?) ORDER BY deal_timestamp, deal_unique_id LIMIT ?"),
+                eq(DealQueryRepository.DEAL_ROW_MAPPER), eq("USD"), eq("EUR"), eq(Timestamp.valueOf(since)),
+                eq(Timestamp.valueOf(until)), eq(new BigDecimal("1000")), eq(Timestamp.valueOf(after)), eq("DEAL001"), eq(11));
+    }
+
+    @Test
+    void pageSql_WithOnlyTimeRange_ShouldNotRestrictPair() {
+        // Given
+        List<Object> args = new ArrayList<>();
+
+        // When
+        String sql = DealQueryRepository.pageSql(
+                new DealFilter(null, null, LocalDateTime.of(2024, 1, 1, 0, 0), null, null), null, null, args);
+
+        // Then
+        assertTrue(sql.endsWith(" FROM deals WHERE deal_timestamp >= ? ORDER BY deal_timestamp, deal_unique_id LIMIT ?"));
+        assertEquals(List.of(Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0))), args);
+    }
+
+    @Test
+    void streamAll_ShouldUseForwardOnlyCursorInsideTransaction() throws SQLException {
+        // Given
+        runConnectionCallbacks();
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn("DEAL001", "DEAL002");
+        when(resultSet.getString(2)).thenReturn("USD");
+        when(resultSet.getString(3)).thenReturn("EUR");
+        when(resultSet.getObject(4, LocalDateTime.class)).thenReturn(LocalDateTime.of(2024, 1, 15, 10, 30));
+        when(resultSet.getBigDecimal(5)).thenReturn(new BigDecimal("1000.00"));
+        List<Deal> streamed = new ArrayList<>();
+
+        // When
+        long count = dealQueryRepository.streamAll(streamed::add);
+
+        // Then
+        assertEquals(2, count);
+        assertEquals("DEAL002", streamed.get(1).getDealUniqueId());
+        verify(statement).setFetchSize(500);
+        verify(connection).setAutoCommit(false);
+        verify(connection).commit();
+        verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    void streamAll_WhenConsumerFails_ShouldRollBack() throws SQLException {
+        // Given
+        runConnectionCallbacks();
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+
+        // When/Then
+        assertThrows(IllegalStateException.class, () -> dealQueryRepository.streamAll(deal -> {
+            throw new IllegalStateException("client went away");
+        }));
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    void streamIds_ShouldReadOnlyIdColumnThroughCursor() throws SQLException {
+        // Given
+        runConnectionCallbacks();
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(eq("SELECT deal_unique_id FROM deals"), eq(ResultSet.TYPE_FORWARD_ONLY),
+                eq(ResultSet.CONCUR_READ_ONLY))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn("DEAL001", "DEAL002");
+        List<String> ids = new ArrayList<>();
+
+        // When
+        long count = dealQueryRepository.streamIds(ids::add);
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(List.of("DEAL001", "DEAL002"), ids);
+        verify(statement).setFetchSize(500);
+        verify(connection).commit();
+        verify(resultSet, never()).getString(2);
+    }
+
+    private static String argThatContains(String fragment) {
+        return argThat(sql -> sql != null && sql.contains(fragment));
+    }
+}
@@ -0,0 +1,82 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads the rollup against a real PostgreSQL with the schema from init-db.sql, e.g.
+ * {@code DEALS_TEST_JDBC_URL=jdbc:postgresql://localhost:5433/fxdeals DEALS_TEST_JDBC_USER=fxuser DEALS_TEST_JDBC_PASSWORD=fxpass123 mvn test}
+ * with the docker-compose database up.
+ */
+@EnabledIfEnvironmentVariable(named = "DEALS_TEST_JDBC_URL", matches = ".+")
+class DealStatsRepositoryPostgresTest {
+
+    // XTS and XXX are the ISO 4217 codes reserved for testing and "no currency"
+    private static final String FROM = "XTS";
+    private static final String TO = "XXX";
+
+    private JdbcTemplate jdbcTemplate;
+    private DealStatsRepository dealStatsRepository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv("DEALS_TEST_JDBC_URL"),
+                System.getenv("DEALS_TEST_JDBC_USER"),
+                System.getenv("DEALS_TEST_JDBC_PASSWORD"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(Files.readString(Path.of("init-db.sql")));
+        cleanUp();
+
+        dealStatsRepository = new DealStatsRepository();
+        ReflectionTestUtils.setField(dealStatsRepository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM deal_stats WHERE from_currency_iso_code = ? AND to_currency_iso_code = ?", FROM, TO);
+        jdbcTemplate.update("DELETE FROM deal_ids WHERE deal_unique_id LIKE 'STATSTEST%'");
+    }
+
+    @Test
+    void read_ShouldLookUpIdsInTheSnapshotOfTheRowsRead() {
+        // Given
+        jdbcTemplate.update("INSERT INTO deal_stats (granularity, from_currency_iso_code, to_currency_iso_code, bucket_start, "
+                + "deal_count, amount_sum, amount_min, amount_max) VALUES ('HOUR', ?, ?, TIMESTAMP '2024-01-15 10:00', 1, 5, 5, 5)",
+                FROM, TO);
+        jdbcTemplate.update("INSERT INTO deal_ids (deal_unique_id) VALUES ('STATSTEST1')");
+
+        // When
+        List<DealStatsRow> rows = new ArrayList<>();
+        Set<String> stored = new HashSet<>();
+        int rebuilt = dealStatsRepository.read(row -> {
+            if (FROM.equals(row.getFromCurrencyIsoCode()) && TO.equals(row.getToCurrencyIsoCode())) {
+                rows.add(row);
+                // Committed by another connection after the snapshot was taken
+                jdbcTemplate.update("INSERT INTO deal_ids (deal_unique_id) VALUES ('STATSTEST2')");
+            }
+        }, storedIds -> stored.addAll(storedIds.of(List.of("STATSTEST1", "STATSTEST2", "STATSTEST3"))));
+
+        // Then
+        assertEquals(0, rebuilt);
+        assertEquals(1, rows.size());
+        assertEquals(1, rows.get(0).getCount());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM deal_ids WHERE deal_unique_id = 'STATSTEST2'", Integer.class));
+        assertEquals(Set.of("STATSTEST1"), stored);
+    }
+}
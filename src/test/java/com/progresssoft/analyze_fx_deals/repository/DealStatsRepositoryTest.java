@@ -0,0 +1,64 @@
+package com.progresssoft.analyze_fx_deals.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealStatsRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private DealStatsRepository dealStatsRepository;
+
+    @Test
+    void deltaSql_ShouldGroupByGranularityPairAndBucketInKeyOrder() {
+        // When
+        String sql = DealStatsRepository.deltaSql("ins");
+
+        // Then
+        assertTrue(sql.contains("date_trunc(lower(g.granularity), s.deal_timestamp) AS bucket_start"));
+        assertTrue(sql.contains("FROM ins s CROSS JOIN (VALUES ('MINUTE'), ('HOUR'), ('DAY')) AS g(granularity)"));
+        assertTrue(sql.endsWith("GROUP BY 1, 2, 3, 4 ORDER BY 1, 2, 3, 4"));
+    }
+
+    @Test
+    void upsertSql_ShouldAccumulateOnConflict() {
+        // When
+        String sql = DealStatsRepository.upsertSql("SELECT * FROM delta");
+
+        // Then
+        assertTrue(sql.startsWith("INSERT INTO deal_stats (granularity, "));
+        assertTrue(sql.contains("deal_count = deal_stats.deal_count + EXCLUDED.deal_count"));
+        assertTrue(sql.contains("amount_min = LEAST(deal_stats.amount_min, EXCLUDED.amount_min)"));
+        assertTrue(sql.contains("amount_max = GREATEST(deal_stats.amount_max, EXCLUDED.amount_max)"));
+    }
+
+    @Test
+    void rebuild_ShouldRollUpWholeDealsTable() {
+        assertTrue(DealStatsRepository.REBUILD.startsWith("INSERT INTO deal_stats"));
+        assertTrue(DealStatsRepository.REBUILD.contains("FROM deals s"));
+    }
+
+    @Test
+    void isEmpty_ShouldProbeSingleRow() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(1));
+
+        // When/Then
+        assertFalse(dealStatsRepository.isEmpty());
+        verify(jdbcTemplate).queryForList(eq("SELECT 1 FROM deal_stats LIMIT 1"), eq(Integer.class));
+    }
+}
@@ -0,0 +1,74 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DbConcurrencyLimiterTest {
+
+    private DbConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new DbConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "maxConcurrency", 2);
+        ReflectionTestUtils.setField(limiter, "acquireTimeoutMs", 50L);
+        limiter.init();
+    }
+
+    @Test
+    void acquire_WhenAllSlotsTaken_ShouldRejectAfterTimeout() throws InterruptedIOException {
+        // Given
+        DbConcurrencyLimiter.Permit first = limiter.acquire();
+        DbConcurrencyLimiter.Permit second = limiter.acquire();
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, limiter::acquire);
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void acquire_AfterPermitClosed_ShouldHandOutTheSlotAgain() throws InterruptedIOException {
+        // Given
+        limiter.acquire();
+        try (DbConcurrencyLimiter.Permit permit = limiter.acquire()) {
+            assertNotNull(permit);
+        }
+
+        // When & Then
+        assertNotNull(limiter.acquire());
+    }
+
+    @Test
+    void acquire_WhenInterrupted_ShouldThrowInterruptedIOException() throws InterruptedIOException {
+        // Given
+        limiter.acquire();
+        limiter.acquire();
+        Thread.currentThread().interrupt();
+
+        // When & Then
+        assertThrows(InterruptedIOException.class, limiter::acquire);
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    void bindTo_ShouldExposeSlotsInUse() throws InterruptedIOException {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+
+        // When
+        limiter.acquire();
+
+        // Then
+        assertEquals(1.0, registry.get("deals.db.limiter.in.use").gauge().value());
+        assertEquals(0.0, registry.get("deals.db.limiter.waiting").gauge().value());
+    }
+}
@@ -0,0 +1,177 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import com.progresssoft.analyze_fx_deals.dto.DealScanDTO;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.repository.DealQueryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealColumnStoreTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 1, 15, 0, 0);
+
+    @Mock
+    private DealQueryRepository dealQueryRepository;
+
+    @InjectMocks
+    private DealColumnStore dealColumnStore;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dealColumnStore, "enabled", true);
+    }
+
+    private static Deal deal(String id, String from, String to, LocalDateTime timestamp, String amount) {
+        return new Deal(id, from, to, timestamp, new BigDecimal(amount));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadFrom(List<Deal> deals) {
+        when(dealQueryRepository.streamAll(any())).thenAnswer(inv -> {
+            deals.forEach(inv.getArgument(0, Consumer.class));
+            return (long) deals.size();
+        });
+        dealColumnStore.load();
+    }
+
+    @Test
+    void scan_ShouldAggregateMatchingPairAndRange() {
+        // Given
+        loadFrom(List.of(
+                deal("DEAL001", "USD", "EUR", MONDAY.plusHours(1), "1000.00"),
+                deal("DEAL002", "USD", "EUR", MONDAY.plusDays(3), "250.50"),
+                deal("DEAL003", "USD", "EUR", MONDAY.plusDays(7), "99999.00"),
+                deal("DEAL004", "GBP", "EUR", MONDAY.plusHours(2), "5.00")));
+
+        // When
+        DealScanDTO week = dealColumnStore.scan("usd", "EUR", MONDAY, MONDAY.plusDays(7));
+
+        // Then
+        assertEquals(2, week.getCount());
+        assertEquals(new BigDecimal("1250.50"), week.getSum());
+        assertEquals(new BigDecimal("250.50"), week.getMin());
+        assertEquals(new BigDecimal("1000.00"), week.getMax());
+        assertEquals(4, week.getRowsScanned());
+    }
+
+    @Test
+    void scan_WithoutFilters_ShouldCoverEveryRowAcrossSegments() {
+        // Given
+        List<Deal> deals = new ArrayList<>();
+        for (int i = 0; i < DealColumnStore.SEGMENT_SIZE + 10; i++) {
+            deals.add(deal("DEAL" + i, i % 2 == 0 ? "USD" : "GBP", "EUR", MONDAY.plusSeconds(i), "1.25"));
+        }
+        loadFrom(deals);
+
+        // When
+        DealScanDTO all = dealColumnStore.scan(null, null, null, null);
+        DealScanDTO usd = dealColumnStore.scan("USD", null, null, null);
+
+        // Then
+        assertEquals(DealColumnStore.SEGMENT_SIZE + 10, all.getCount());
+        assertEquals(new BigDecimal("1.25").multiply(BigDecimal.valueOf(DealColumnStore.SEGMENT_SIZE + 10)), all.getSum());
+        assertEquals(DealColumnStore.SEGMENT_SIZE / 2 + 5, usd.getCount());
+    }
+
+    @Test
+    void onInserted_ShouldAppendAfterLoad() {
+        // Given
+        loadFrom(List.of(deal("DEAL001", "USD", "EUR", MONDAY, "1.00")));
+
+        // When
+        dealColumnStore.onInserted(List.of(deal("DEAL002", "USD", "EUR", MONDAY, "2.00")));
+
+        // Then
+        assertEquals(2, dealColumnStore.size());
+        assertEquals(new BigDecimal("3.00"), dealColumnStore.scan("USD", "EUR", null, null).getSum());
+    }
+
+    @Test
+    void scan_WithUnknownCurrency_ShouldMatchNothing() {
+        // Given
+        loadFrom(List.of(deal("DEAL001", "USD", "EUR", MONDAY, "1.00")));
+
+        // When
+        DealScanDTO scan = dealColumnStore.scan("CHF", null, null, null);
+
+        // Then
+        assertEquals(0, scan.getCount());
+        assertNull(scan.getMin());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void load_ShouldAppendDealsInsertedMeanwhileOnce() {
+        // Given
+        Deal committedBeforeCursor = deal("DEAL002", "USD", "EUR", MONDAY.plusHours(2), "2.00");
+        Deal committedAfterCursor = deal("DEAL000", "USD", "EUR", MONDAY, "4.00");
+        when(dealQueryRepository.streamAll(any())).thenAnswer(inv -> {
+            Consumer<Deal> consumer = inv.getArgument(0, Consumer.class);
+            consumer.accept(deal("DEAL001", "USD", "EUR", MONDAY.plusHours(1), "1.00"));
+            dealColumnStore.onInserted(List.of(committedBeforeCursor, committedAfterCursor));
+            consumer.accept(committedBeforeCursor);
+            return 2L;
+        });
+
+        // When
+        dealColumnStore.load();
+        dealColumnStore.onInserted(List.of(deal("DEAL003", "USD", "EUR", MONDAY, "8.00")));
+
+        // Then
+        assertEquals(4, dealColumnStore.size());
+        assertEquals(new BigDecimal("15.00"), dealColumnStore.scan(null, null, null, null).getSum());
+    }
+
+    @Test
+    void append_WithAmountOutOfRange_ShouldSkipOnlyThatDeal() {
+        // Given
+        loadFrom(List.of(deal("DEAL001", "USD", "EUR", MONDAY, "1.00")));
+
+        // When
+        dealColumnStore.onInserted(List.of(
+                deal("DEAL002", "USD", "EUR", MONDAY, "99999999999999999.99"),
+                deal("DEAL003", "USD", "EUR", MONDAY, "2.00")));
+
+        // Then
+        assertTrue(dealColumnStore.isAvailable());
+        assertEquals(2, dealColumnStore.size());
+        assertEquals(new BigDecimal("3.00"), dealColumnStore.scan(null, null, null, null).getSum());
+    }
+
+    @Test
+    void whenDisabled_ShouldNeitherLoadNorAppend() {
+        // Given
+        ReflectionTestUtils.setField(dealColumnStore, "enabled", false);
+
+        // When
+        dealColumnStore.load();
+        dealColumnStore.onInserted(List.of(deal("DEAL001", "USD", "EUR", MONDAY, "1.00")));
+
+        // Then
+        assertFalse(dealColumnStore.isAvailable());
+        assertEquals(0, dealColumnStore.size());
+        verifyNoInteractions(dealQueryRepository);
+    }
+
+    @Test
+    void scaled_ShouldRoundLikeDecimalColumn() {
+        assertEquals(101, DealColumnStore.scaled(new BigDecimal("1.005")));
+        assertEquals(-250, DealColumnStore.scaled(new BigDecimal("-2.5")));
+    }
+}
@@ -0,0 +1,136 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.repository.DealQueryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealIdFilterTest {
+
+    private static final int IDS = 20_000;
+
+    @Mock
+    private DealQueryRepository dealQueryRepository;
+
+    @InjectMocks
+    private DealIdFilter dealIdFilter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dealIdFilter, "enabled", true);
+        ReflectionTestUtils.setField(dealIdFilter, "expectedIds", (long) IDS);
+        ReflectionTestUtils.setField(dealIdFilter, "falsePositiveProbability", 0.01);
+        dealIdFilter.init();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadIds(int count) {
+        when(dealQueryRepository.streamIds(any())).thenAnswer(inv -> {
+            Consumer<String> consumer = inv.getArgument(0, Consumer.class);
+            for (int i = 0; i < count; i++) {
+                consumer.accept("DEAL" + i);
+            }
+            return (long) count;
+        });
+        dealIdFilter.load();
+    }
+
+    @Test
+    void mightContain_ShouldNeverRuleOutLoadedOrInsertedIds() {
+        // Given
+        loadIds(IDS - 1);
+        dealIdFilter.onInserted(List.of(new Deal("LATE001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30),
+                new BigDecimal("1.00"))));
+
+        // When/Then
+        for (int i = 0; i < IDS - 1; i++) {
+            assertTrue(dealIdFilter.mightContain("DEAL" + i));
+        }
+        assertTrue(dealIdFilter.mightContain("LATE001"));
+    }
+
+    @Test
+    void mightContain_ShouldStayNearConfiguredFalsePositiveRate() {
+        // Given
+        loadIds(IDS);
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (dealIdFilter.mightContain("NEW" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_BeforeLoad_ShouldReportEveryIdAsPossiblyPresent() {
+        // When/Then
+        assertFalse(dealIdFilter.isReady());
+        assertTrue(dealIdFilter.mightContain("DEAL001"));
+    }
+
+    @Test
+    void whenDisabled_ShouldNotLoad() {
+        // Given
+        ReflectionTestUtils.setField(dealIdFilter, "enabled", false);
+
+        // When
+        dealIdFilter.load();
+
+        // Then
+        assertFalse(dealIdFilter.isReady());
+        verifyNoInteractions(dealQueryRepository);
+    }
+
+    @Test
+    void bindTo_ShouldPublishObservedFalsePositiveRate() {
+        // Given
+        loadIds(10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        dealIdFilter.bindTo(registry);
+        for (int i = 0; i < 100; i++) {
+            dealIdFilter.mightContain("NEW" + i);
+        }
+        long definitelyNew = (long) registry.get("deals.id.filter.checks").tag("result", "definitely_new")
+                .functionCounter().count();
+
+        // When
+        dealIdFilter.recordFalsePositives(100 - definitelyNew);
+
+        // Then
+        assertEquals((100.0 - definitelyNew) / 100, registry.get("deals.id.filter.false.positive.rate").gauge().value());
+        assertEquals(10, registry.get("deals.id.filter.ids").gauge().value());
+    }
+
+    @Test
+    void bitsFor_ShouldSizeHundredMillionIdsAtOnePercent() {
+        // When
+        long bits = DealIdFilter.bitsFor(100_000_000L, 0.01);
+
+        // Then
+        assertEquals(114, bits / 8 / 1024 / 1024);
+        assertEquals(7, DealIdFilter.hashesFor(bits, 100_000_000L));
+        assertEquals(0, bits % Long.SIZE);
+        assertThrows(IllegalArgumentException.class, () -> DealIdFilter.bitsFor(1000, 1.5));
+    }
+}
@@ -0,0 +1,190 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.dto.InboxReportDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealInboxTest {
+
+    private static final String CSV = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n"
+            + "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n";
+
+    @Mock
+    private DealService dealService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private DealInbox dealInbox;
+
+    @TempDir
+    Path inbox;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(dealInbox, "dir", inbox.toString());
+        ReflectionTestUtils.setField(dealInbox, "stableMillis", 1000L);
+        ReflectionTestUtils.setField(dealInbox, "importInboxExecutor", (Executor) Runnable::run);
+        assertTrue(dealInbox.open());
+    }
+
+    @Test
+    void submitReady_WhenFileUnchangedForStablePeriod_ShouldImportAndMoveToProcessed() throws Exception {
+        // Given
+        Path file = Files.writeString(inbox.resolve("deals.csv"), CSV);
+        when(dealService.importFile(file, ImportListener.NONE)).thenReturn(new ImportSummaryDTO(1, 0, 0, 5, new ArrayList<>()));
+        dealInbox.offer(file);
+
+        // When
+        dealInbox.submitReady(0);
+        dealInbox.submitReady(999);
+        verify(dealService, never()).importFile(any(), any());
+        dealInbox.submitReady(1000);
+
+        // Then
+        verify(dealService).importFile(file, ImportListener.NONE);
+        assertFalse(Files.exists(file));
+        assertEquals(CSV, Files.readString(inbox.resolve("processed/deals.csv")));
+        InboxReportDTO report = objectMapper.readValue(
+                inbox.resolve("processed/deals.csv" + DealInbox.REPORT_SUFFIX).toFile(), InboxReportDTO.class);
+        assertEquals(InboxReportDTO.Status.PROCESSED, report.getStatus());
+        assertEquals("deals.csv", report.getFileName());
+        assertEquals(1, report.getSummary().getInserted());
+        assertNull(report.getError());
+    }
+
+    @Test
+    void submitReady_WhenFileStillGrowing_ShouldWait() throws Exception {
+        // Given
+        Path file = Files.writeString(inbox.resolve("deals.csv"), CSV);
+        dealInbox.offer(file);
+        dealInbox.submitReady(0);
+
+        // When
+        Files.writeString(file, CSV + "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n");
+        dealInbox.submitReady(1000);
+
+        // Then
+        verify(dealService, never()).importFile(any(), any());
+        dealInbox.submitReady(2000);
+        verify(dealService).importFile(file, ImportListener.NONE);
+    }
+
+    @Test
+    void submitReady_WithDoneMarker_ShouldImportAtOnceAndRemoveMarker() throws Exception {
+        // Given
+        Path file = Files.writeString(inbox.resolve("deals.csv"), CSV);
+        Path marker = Files.createFile(inbox.resolve("deals.csv" + DealInbox.DONE_SUFFIX));
+        when(dealService.importFile(file, ImportListener.NONE)).thenReturn(new ImportSummaryDTO());
+        dealInbox.offer(marker);
+
+        // When
+        dealInbox.submitReady(0);
+
+        // Then
+        verify(dealService).importFile(file, ImportListener.NONE);
+        assertFalse(Files.exists(marker));
+        assertTrue(Files.exists(inbox.resolve("processed/deals.csv")));
+    }
+
+    @Test
+    void importFile_WhenImportFails_ShouldMoveToFailedWithError() throws Exception {
+        // Given
+        Path file = Files.writeString(inbox.resolve("deals.csv"), "garbage");
+        when(dealService.importFile(file, ImportListener.NONE)).thenThrow(new IllegalArgumentException("Invalid row format on line 2"));
+
+        // When
+        dealInbox.importFile(file);
+
+        // Then
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(inbox.resolve("failed/deals.csv")));
+        InboxReportDTO report = objectMapper.readValue(
+                inbox.resolve("failed/deals.csv" + DealInbox.REPORT_SUFFIX).toFile(), InboxReportDTO.class);
+        assertEquals(InboxReportDTO.Status.FAILED, report.getStatus());
+        assertEquals("Invalid row format on line 2", report.getError());
+        assertNull(report.getSummary());
+    }
+
+    @Test
+    void importFile_WhenDatabaseBusy_ShouldLeaveFileAndRetry() throws Exception {
+        // Given
+        Path file = Files.writeString(inbox.resolve("deals.csv"), CSV);
+        Files.createFile(inbox.resolve("deals.csv" + DealInbox.DONE_SUFFIX));
+        when(dealService.importFile(file, ImportListener.NONE))
+                .thenThrow(new RejectedExecutionException("busy"))
+                .thenReturn(new ImportSummaryDTO());
+        dealInbox.offer(file);
+
+        // When
+        dealInbox.submitReady(0);
+
+        // Then
+        assertTrue(Files.exists(file));
+        dealInbox.submitReady(1);
+        verify(dealService, times(2)).importFile(file, ImportListener.NONE);
+        assertTrue(Files.exists(inbox.resolve("processed/deals.csv")));
+    }
+
+    @Test
+    void importFile_WhenNameAlreadyProcessed_ShouldKeepBothFiles() throws Exception {
+        // Given
+        Files.writeString(inbox.resolve("processed/deals.csv"), "earlier");
+        Path file = Files.writeString(inbox.resolve("deals.csv"), CSV);
+        when(dealService.importFile(file, ImportListener.NONE)).thenReturn(new ImportSummaryDTO());
+
+        // When
+        dealInbox.importFile(file);
+
+        // Then
+        List<String> names;
+        try (var files = Files.list(inbox.resolve(DealInbox.PROCESSED))) {
+            names = files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+        assertEquals(3, names.size());
+        assertTrue(names.contains("deals.csv"));
+        assertEquals("earlier", Files.readString(inbox.resolve("processed/deals.csv")));
+    }
+
+    @Test
+    void scan_ShouldSkipTemporaryFilesReportsAndDirectories() throws Exception {
+        // Given
+        Files.writeString(inbox.resolve("deals.csv.part"), CSV);
+        Files.writeString(inbox.resolve(".deals.csv"), CSV);
+        Files.writeString(inbox.resolve("deals.csv.tmp"), CSV);
+        Path file = Files.writeString(inbox.resolve("eod.csv"), CSV);
+        when(dealService.importFile(file, ImportListener.NONE)).thenReturn(new ImportSummaryDTO());
+
+        // When
+        dealInbox.scan();
+        dealInbox.submitReady(0);
+        dealInbox.submitReady(1000);
+
+        // Then
+        verify(dealService, times(1)).importFile(any(), any());
+        verify(dealService).importFile(file, ImportListener.NONE);
+    }
+}
@@ -0,0 +1,91 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import com.progresssoft.analyze_fx_deals.repository.DealBatchRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealPartitionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealPartitionMaintenanceTest {
+
+    @Mock
+    private DealPartitionRepository dealPartitionRepository;
+
+    @Mock
+    private DealBatchRepository dealBatchRepository;
+
+    @InjectMocks
+    private DealPartitionMaintenance dealPartitionMaintenance;
+
+    @Test
+    void createUpcomingPartitions_ShouldEnsureCurrentAndNextMonths() {
+        // Given
+        ReflectionTestUtils.setField(dealPartitionMaintenance, "monthsAhead", 2);
+        when(dealPartitionRepository.isPartitioned()).thenReturn(true);
+        YearMonth current = YearMonth.now();
+
+        // When
+        dealPartitionMaintenance.createUpcomingPartitions();
+
+        // Then
+        verify(dealPartitionRepository).refresh();
+        verify(dealPartitionRepository).ensurePartitions(List.of(current, current.plusMonths(1), current.plusMonths(2)));
+    }
+
+    @Test
+    void createUpcomingPartitions_OnPlainTable_ShouldNotEnsureAnything() {
+        // Given
+        when(dealPartitionRepository.isPartitioned()).thenReturn(false);
+
+        // When
+        dealPartitionMaintenance.createUpcomingPartitions();
+
+        // Then
+        verify(dealPartitionRepository, never()).ensurePartitions(any());
+    }
+
+    @Test
+    void createUpcomingPartitions_WhenDatabaseFails_ShouldOnlyLog() {
+        // Given
+        doThrow(new DataAccessResourceFailureException("down")).when(dealPartitionRepository).refresh();
+
+        // When & Then
+        assertDoesNotThrow(() -> dealPartitionMaintenance.createUpcomingPartitions());
+    }
+
+    @Test
+    void onStartup_WithEmptyDealIds_ShouldBackfillThem() {
+        // Given
+        when(dealBatchRepository.hasNoIds()).thenReturn(true);
+
+        // When
+        dealPartitionMaintenance.onStartup();
+
+        // Then
+        verify(dealBatchRepository).backfillIds();
+    }
+
+    @Test
+    void onStartup_WithDealIds_ShouldNotBackfill() {
+        // Given
+        when(dealBatchRepository.hasNoIds()).thenReturn(false);
+
+        // When
+        dealPartitionMaintenance.onStartup();
+
+        // Then
+        verify(dealBatchRepository, never()).backfillIds();
+    }
+}
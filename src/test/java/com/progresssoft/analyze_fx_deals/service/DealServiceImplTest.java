@@ -1,31 +1,69 @@
 package com.progresssoft.analyze_fx_deals.service;
 
+import com.progresssoft.analyze_fx_deals.dto.DealPageDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
 import com.progresssoft.analyze_fx_deals.dto.RequestDTO;
+import com.progresssoft.analyze_fx_deals.dto.RowOutcomeDTO;
 import com.progresssoft.analyze_fx_deals.mapper.DealMapper;
 import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.parser.DealFormat;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+import com.progresssoft.analyze_fx_deals.parser.ImportCheckpoint;
+import com.progresssoft.analyze_fx_deals.repository.BulkLoadResult;
+import com.progresssoft.analyze_fx_deals.repository.DealBatchRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealCopyRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealFilter;
+import com.progresssoft.analyze_fx_deals.repository.DealQueryRepository;
 import com.progresssoft.analyze_fx_deals.repository.DealRepository;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
+import com.progresssoft.analyze_fx_deals.validation.DealValidator;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,20 +72,59 @@ class DealServiceImplTest {
     @Mock
     private DealRepository dealRepository;
 
+    @Mock
+    private DealBatchRepository dealBatchRepository;
+
+    @Mock
+    private DealCopyRepository dealCopyRepository;
+
+    @Mock
+    private DealQueryRepository dealQueryRepository;
+
+    @Mock
+    private DealInsertListener insertListener;
+
+    @Mock
+    private DealIdFilter dealIdFilter;
+
+    @Mock
+    private ImportMetrics importMetrics;
+
+    @Mock
+    private DbConcurrencyLimiter dbConcurrencyLimiter;
+
     @Mock
     private DealMapper mapper;
 
     @Mock
-    private Validator validator;
+    private DealValidator dealValidator;
+
+    @Mock
+    private ImportBatches importBatches;
 
     @InjectMocks
     private DealServiceImpl dealService;
 
     private Deal testDeal;
     private RequestDTO testDTO;
+    private ExecutorService workers;
+    private ExecutorService writers;
 
     @BeforeEach
     void setUp() {
+        workers = Executors.newFixedThreadPool(2);
+        writers = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(dealService, "batchSize", 1000);
+        ReflectionTestUtils.setField(dealService, "maxReportedErrors", 100);
+        ReflectionTestUtils.setField(dealService, "csvDelimiter", ',');
+        ReflectionTestUtils.setField(dealService, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(dealService, "maxPageSize", 1000);
+        ReflectionTestUtils.setField(dealService, "writerThreads", 2);
+        ReflectionTestUtils.setField(dealService, "maxChunksInFlight", 4);
+        ReflectionTestUtils.setField(dealService, "importWorkerExecutor", workers);
+        ReflectionTestUtils.setField(dealService, "importWriterExecutor", writers);
+        ReflectionTestUtils.setField(dealService, "insertListeners", List.of(insertListener));
+
         testDeal = new Deal();
         testDeal.setDealUniqueId("DEAL001");
         testDeal.setFromCurrencyIsoCode("USD");
@@ -63,6 +140,12 @@ class DealServiceImplTest {
         testDTO.setDealAmount(new BigDecimal("1000.00"));
     }
 
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+        writers.shutdownNow();
+    }
+
     @Test
     void importDeals_WithValidFile_ShouldImportDeals() throws IOException {
         // Given
@@ -76,19 +159,22 @@ class DealServiceImplTest {
                 csvContent.getBytes()
         );
 
-        when(mapper.toEntity(any(RequestDTO.class))).thenReturn(testDeal);
-        when(validator.validate(any(RequestDTO.class))).thenReturn(Collections.emptySet());
-        when(dealRepository.existsByDealUniqueId(anyString())).thenReturn(false);
-        when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001", "DEAL002"));
 
         // When
-        List<Deal> result = dealService.importDeals(file);
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(dealRepository, times(2)).save(any(Deal.class));
-        verify(validator, times(2)).validate(any(RequestDTO.class));
+        assertEquals(2, result.getInserted());
+        assertEquals(0, result.getDuplicates());
+        assertEquals(0, result.getInvalid());
+        assertEquals(2, outcomes.size());
+        verify(dealBatchRepository, times(1)).insertIgnoringDuplicates(anyList());
+        verify(dealRepository, never()).save(any(Deal.class));
+        verify(dealValidator, times(2)).validate(any(DealRecord.class));
     }
 
     @Test
@@ -104,7 +190,7 @@ class DealServiceImplTest {
         );
 
         // When/Then
-        assertThrows(IllegalArgumentException.class, () -> dealService.importDeals(file));
+        assertThrows(IllegalArgumentException.class, () -> dealService.importDeals(file, ImportListener.NONE));
         verify(dealRepository, never()).save(any(Deal.class));
     }
 
@@ -121,25 +207,24 @@ class DealServiceImplTest {
                 csvContent.getBytes()
         );
 
-        ConstraintViolation<RequestDTO> violation = mock(ConstraintViolation.class);
-        when(violation.getMessage()).thenReturn("Invalid currency code");
-        Set<ConstraintViolation<RequestDTO>> violations = new HashSet<>();
-        violations.add(violation);
-
-        when(mapper.toEntity(any(RequestDTO.class))).thenReturn(testDeal);
-        when(validator.validate(any(RequestDTO.class)))
-                .thenReturn(violations) 
-                .thenReturn(Collections.emptySet());  
-        when(dealRepository.existsByDealUniqueId(anyString())).thenReturn(false);
-        when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
+        when(dealValidator.validate(any(DealRecord.class)))
+                .thenReturn("Invalid currency code")
+                .thenReturn(null);
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL002"));
 
         // When
-        List<Deal> result = dealService.importDeals(file);
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size()); 
-        verify(dealRepository, times(1)).save(any(Deal.class));
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getInvalid());
+        assertEquals(List.of("Line 2: Invalid currency code"), result.getErrors());
+        assertEquals(new RowOutcomeDTO(2, "DEAL001", RowOutcomeDTO.Status.INVALID, "Invalid currency code"), outcomes.get(0));
+        assertEquals(RowOutcomeDTO.Status.IMPORTED, outcomes.get(1).getStatus());
+        assertEquals("DEAL002", outcomes.get(1).getDealUniqueId());
     }
 
     @Test
@@ -155,23 +240,171 @@ class DealServiceImplTest {
                 csvContent.getBytes()
         );
 
-        when(mapper.toEntity(any(RequestDTO.class))).thenReturn(testDeal);
-        when(validator.validate(any(RequestDTO.class))).thenReturn(Collections.emptySet());
-        when(dealRepository.existsByDealUniqueId("DEAL001")).thenReturn(true);  
-        when(dealRepository.existsByDealUniqueId("DEAL002")).thenReturn(false); 
-        when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
+        when(dealBatchRepository.findExistingIds(List.of("DEAL001", "DEAL002"))).thenReturn(Set.of("DEAL001"));
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL002"));
 
         // When
-        List<Deal> result = dealService.importDeals(file);
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size()); 
-        verify(dealRepository, times(1)).save(any(Deal.class));
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(new RowOutcomeDTO(2, "DEAL001", RowOutcomeDTO.Status.DUPLICATE, "Deal with id DEAL001 already exists"), outcomes.get(0));
+        verify(dealBatchRepository, times(1)).insertIgnoringDuplicates(argThat(chunk -> chunk.size() == 1));
+        verify(dealRepository, never()).existsByDealUniqueId(anyString());
+        verify(importMetrics).recordRows(1, 1, 0);
+        verify(importMetrics).recordDuplicateCheck(anyLong());
+        verify(importMetrics).recordPersist(anyLong());
+        verify(importMetrics).recordImport(eq(false), anyLong());
     }
 
     @Test
-    void importDeals_WithEmptyFile_ShouldReturnEmptyList() throws IOException {
+    void importDeals_WithIdsRuledOutByFilter_ShouldOnlyLookUpPossibleDuplicates() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n" +
+                "DEAL003,GBP,JPY,2024-01-15T11:00:00,3000.00";
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", csvContent.getBytes());
+
+        when(dealIdFilter.isReady()).thenReturn(true);
+        when(dealIdFilter.mightContain(anyString())).thenAnswer(inv -> !"DEAL002".equals(inv.getArgument(0)));
+        when(dealBatchRepository.findExistingIds(List.of("DEAL001", "DEAL003"))).thenReturn(Set.of("DEAL001"));
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL002", "DEAL003"));
+
+        // When
+        ImportSummaryDTO result = dealService.importDeals(file, outcome -> { });
+
+        // Then
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        verify(dealIdFilter).recordFalsePositives(1);
+    }
+
+    @Test
+    void importDeals_WhenFilterRulesOutWholeChunk_ShouldSkipLookup() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00";
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", csvContent.getBytes());
+
+        when(dealIdFilter.isReady()).thenReturn(true);
+        when(dealIdFilter.mightContain("DEAL001")).thenReturn(false);
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001"));
+
+        // When
+        ImportSummaryDTO result = dealService.importDeals(file, outcome -> { });
+
+        // Then
+        assertEquals(1, result.getInserted());
+        verify(dealBatchRepository, never()).findExistingIds(anyList());
+    }
+
+    @Test
+    void importDeals_WithSameIdTwiceInFile_ShouldSkipSecondCopyWithoutDbLookup() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL001,GBP,JPY,2024-01-15T11:00:00,2000.00";
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.getBytes()
+        );
+
+        when(dealBatchRepository.findExistingIds(List.of("DEAL001"))).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001"));
+
+        // When
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
+
+        // Then
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(RowOutcomeDTO.Status.IMPORTED, outcomes.get(0).getStatus());
+        assertEquals(RowOutcomeDTO.Status.DUPLICATE, outcomes.get(1).getStatus());
+        assertEquals(3, outcomes.get(1).getLine());
+        verify(dealBatchRepository).insertIgnoringDuplicates(argThat(chunk -> chunk.size() == 1
+                && "USD".equals(chunk.get(0).getFromCurrencyIsoCode())));
+    }
+
+    @Test
+    void importDeals_WhenWholeChunkExists_ShouldNotInsert() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00";
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.getBytes()
+        );
+
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Set.of("DEAL001"));
+
+        // When
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
+
+        // Then
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        verify(dealBatchRepository, never()).insertIgnoringDuplicates(anyList());
+    }
+
+    @Test
+    void importDeals_WhenNoDatabaseSlotFreesUp_ShouldRejectWithoutTouchingDb() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00";
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.getBytes()
+        );
+
+        when(dbConcurrencyLimiter.acquire()).thenThrow(new RejectedExecutionException("No database slot free within 10 ms"));
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> dealService.importDeals(file, outcome -> { }));
+        verifyNoInteractions(dealBatchRepository);
+    }
+
+    @Test
+    void importDeals_ShouldReleaseDatabaseSlotAfterEachChunk() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00";
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.getBytes()
+        );
+        ReflectionTestUtils.setField(dealService, "batchSize", 1);
+        DbConcurrencyLimiter.Permit permit = mock(DbConcurrencyLimiter.Permit.class);
+
+        when(dbConcurrencyLimiter.acquire()).thenReturn(permit);
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> insertedIds(invocation.getArgument(0)));
+
+        // When
+        ImportSummaryDTO result = dealService.importDeals(file, outcome -> { });
+
+        // Then
+        assertEquals(2, result.getInserted());
+        verify(dbConcurrencyLimiter, times(2)).acquire();
+        verify(permit, times(2)).close();
+    }
+
+    @Test
+    void importDeals_WithEmptyFile_ShouldReturnEmptySummary() throws IOException {
         // Given
         String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n";
         MockMultipartFile file = new MockMultipartFile(
@@ -182,16 +415,18 @@ class DealServiceImplTest {
         );
 
         // When
-        List<Deal> result = dealService.importDeals(file);
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(dealRepository, never()).save(any(Deal.class));
+        assertEquals(0, result.getInserted());
+        assertTrue(outcomes.isEmpty());
+        verify(dealBatchRepository, never()).insertIgnoringDuplicates(anyList());
     }
 
     @Test
-    void importDeals_WithOnlyHeaders_ShouldReturnEmptyList() throws IOException {
+    void importDeals_WithOnlyHeaders_ShouldReturnEmptySummary() throws IOException {
         // Given
         String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount";
         MockMultipartFile file = new MockMultipartFile(
@@ -202,89 +437,166 @@ class DealServiceImplTest {
         );
 
         // When
-        List<Deal> result = dealService.importDeals(file);
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(dealRepository, never()).save(any(Deal.class));
+        assertEquals(0, result.getInserted());
+        assertTrue(outcomes.isEmpty());
+        verify(dealBatchRepository, never()).insertIgnoringDuplicates(anyList());
     }
 
     @Test
-    void saveDeal_ShouldSaveDeal() {
+    void importDeals_WithRowsBeyondBatchSize_ShouldFlushInChunks() throws IOException {
         // Given
-        when(dealRepository.save(any(Deal.class))).thenReturn(testDeal);
+        ReflectionTestUtils.setField(dealService, "batchSize", 2);
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n" +
+                "DEAL003,EUR,USD,2024-01-15T12:15:00,3200.75";
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.getBytes()
+        );
+
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> insertedIds(invocation.getArgument(0)));
 
         // When
-        dealService.saveDeal(testDeal);
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
-        verify(dealRepository, times(1)).save(testDeal);
+        assertEquals(3, result.getInserted());
+        assertEquals(List.of(2L, 3L, 4L), outcomes.stream().map(RowOutcomeDTO::getLine).toList());
+        verify(dealBatchRepository, times(1)).insertIgnoringDuplicates(argThat(chunk -> chunk.size() == 2));
+        verify(dealBatchRepository, times(1)).insertIgnoringDuplicates(argThat(chunk -> chunk.size() == 1));
     }
 
     @Test
-    void getAllDeals_ShouldReturnAllDeals() {
+    void importDeals_WithManyChunks_ShouldReportInFileOrderAcrossWorkers() throws IOException {
         // Given
-        List<Deal> deals = Arrays.asList(testDeal);
-        when(dealRepository.findAll()).thenReturn(deals);
+        ReflectionTestUtils.setField(dealService, "batchSize", 3);
+        ReflectionTestUtils.setField(dealService, "maxChunksInFlight", 2);
+        StringBuilder csvContent = new StringBuilder("dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n");
+        for (int i = 0; i < 50; i++) {
+            csvContent.append("DEAL").append(i % 40).append(",USD,EUR,2024-01-15T10:30:00,").append(i).append('\n');
+        }
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.toString().getBytes()
+        );
+
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> insertedIds(invocation.getArgument(0)));
 
         // When
-        List<Deal> result = dealService.getAllDeals();
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(testDeal, result.get(0));
-        verify(dealRepository, times(1)).findAll();
+        assertEquals(40, result.getInserted());
+        assertEquals(10, result.getDuplicates());
+        assertEquals(50, outcomes.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i + 2, outcomes.get(i).getLine());
+            assertEquals(i < 40 ? RowOutcomeDTO.Status.IMPORTED : RowOutcomeDTO.Status.DUPLICATE, outcomes.get(i).getStatus());
+        }
     }
 
     @Test
-    void getAllDeals_WhenEmpty_ShouldReturnEmptyList() {
+    void importDealsFrom_ShouldReportCheckpointAfterEachCommittedChunk() throws IOException {
         // Given
-        when(dealRepository.findAll()).thenReturn(Collections.emptyList());
+        ReflectionTestUtils.setField(dealService, "batchSize", 2);
+        String header = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n";
+        String rows = "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n" +
+                "DEAL003,EUR,USD,2024-01-15T12:15:00,3200.75\n";
+
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> insertedIds(invocation.getArgument(0)));
+
+        List<String> events = new ArrayList<>();
+        ImportListener listener = new ImportListener() {
+            @Override
+            public void onRow(RowOutcomeDTO outcome) {
+                events.add("row " + outcome.getLine());
+            }
+
+            @Override
+            public void onCheckpoint(ImportCheckpoint checkpoint) {
+                events.add("checkpoint " + checkpoint.getLine() + "@" + checkpoint.getOffset());
+            }
+        };
 
         // When
-        List<Deal> result = dealService.getAllDeals();
+        dealService.importDealsFrom(new StringReader(header + rows), DealFormat.CSV, new ImportCheckpoint(10, 500), listener);
 
         // Then
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(dealRepository, times(1)).findAll();
+        int secondRowEnd = rows.indexOf("DEAL003");
+        assertEquals(List.of("row 10", "row 11", "checkpoint 12@" + (500 + secondRowEnd),
+                "row 12", "checkpoint 13@" + (500 + rows.length())), events);
     }
 
     @Test
-    void getDealById_WithValidId_ShouldReturnDeal() {
+    void importDeals_WithConflictOnInsert_ShouldSkipRowsNotInserted() throws IOException {
         // Given
-        when(dealRepository.getDealByDealUniqueId("DEAL001")).thenReturn(testDeal);
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00";
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.getBytes()
+        );
+
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001"));
 
         // When
-        Deal result = dealService.getDealById("DEAL001");
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
 
         // Then
-        assertNotNull(result);
-        assertEquals(testDeal, result);
-        assertEquals("DEAL001", result.getDealUniqueId());
-        verify(dealRepository, times(1)).getDealByDealUniqueId("DEAL001");
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(RowOutcomeDTO.Status.IMPORTED, outcomes.get(0).getStatus());
+        assertEquals(RowOutcomeDTO.Status.DUPLICATE, outcomes.get(1).getStatus());
+        verify(insertListener).onInserted(List.of(testDeal));
     }
 
     @Test
-    void getDealById_WithNonExistingId_ShouldReturnNull() {
+    void importDeals_ShouldNotifyListenersWithAmountsAsStored() throws IOException {
         // Given
-        when(dealRepository.getDealByDealUniqueId("NONEXISTENT")).thenReturn(null);
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,100.555\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000";
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", csvContent.getBytes());
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001", "DEAL002"));
 
         // When
-        Deal result = dealService.getDealById("NONEXISTENT");
+        dealService.importDeals(file, ImportListener.NONE);
 
         // Then
-        assertNull(result);
-        verify(dealRepository, times(1)).getDealByDealUniqueId("NONEXISTENT");
+        verify(insertListener).onInserted(List.of(
+                new Deal("DEAL001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("100.56")),
+                new Deal("DEAL002", "GBP", "JPY", LocalDateTime.of(2024, 1, 15, 11, 0), new BigDecimal("2000.00"))));
     }
 
     @Test
-    void importDeals_WithInvalidDateFormat_ShouldThrowException() {
+    void importDeals_WithManyInvalidRows_ShouldCapReportedErrors() throws IOException {
         // Given
+        ReflectionTestUtils.setField(dealService, "maxReportedErrors", 1);
         String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
-                "DEAL001,USD,EUR,INVALID_DATE,1000.00";
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00";
         MockMultipartFile file = new MockMultipartFile(
                 "file",
                 "deals.csv",
@@ -292,16 +604,25 @@ class DealServiceImplTest {
                 csvContent.getBytes()
         );
 
-        // When/Then
-        assertThrows(Exception.class, () -> dealService.importDeals(file));
-        verify(dealRepository, never()).save(any(Deal.class));
+        when(dealValidator.validate(any(DealRecord.class))).thenReturn("Invalid currency code");
+
+        // When
+        ImportSummaryDTO result = dealService.importDeals(file, ImportListener.NONE);
+
+        // Then
+        assertEquals(2, result.getInvalid());
+        assertEquals(1, result.getErrors().size());
+        verifyNoInteractions(dealBatchRepository);
     }
 
     @Test
-    void importDeals_WithInvalidAmount_ShouldThrowException() {
+    @SuppressWarnings("unchecked")
+    void bulkImportDeals_ShouldStreamValidRowsAndReportCounts() throws IOException {
         // Given
         String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
-                "DEAL001,USD,EUR,2024-01-15T10:30:00,INVALID_AMOUNT";
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n" +
+                "DEAL003,EUR,USD,2024-01-15T12:15:00,3200.75";
         MockMultipartFile file = new MockMultipartFile(
                 "file",
                 "deals.csv",
@@ -309,8 +630,487 @@ class DealServiceImplTest {
                 csvContent.getBytes()
         );
 
+        when(dealValidator.validate(any(DealRecord.class)))
+                .thenReturn(null)
+                .thenReturn("Invalid currency code")
+                .thenReturn(null);
+        when(dealCopyRepository.copyAndMerge(any(), any())).thenAnswer(inv -> {
+            Iterator<DealRecord> deals = inv.getArgument(0);
+            Consumer<Deal> inserted = inv.getArgument(1);
+            long staged = 0;
+            while (deals.hasNext()) {
+                DealRecord deal = deals.next();
+                if (staged++ == 0) {
+                    inserted.accept(new Deal(deal.getDealUniqueId(), deal.getFromCurrencyIsoCode(),
+                            deal.getToCurrencyIsoCode(), deal.getDealTimestamp(), deal.getDealAmount()));
+                }
+            }
+            return new BulkLoadResult(staged, 1);
+        });
+
+        // When
+        ImportSummaryDTO summary = dealService.bulkImportDeals(file);
+
+        // Then
+        assertEquals(1, summary.getInserted());
+        assertEquals(1, summary.getDuplicates());
+        assertEquals(1, summary.getInvalid());
+        assertEquals(List.of("Line 3: Invalid currency code"), summary.getErrors());
+        verify(dealBatchRepository, never()).insertIgnoringDuplicates(anyList());
+        verify(insertListener).onInserted(List.of(testDeal));
+        verify(importMetrics).recordRows(1, 1, 1);
+        verify(importMetrics).recordImport(eq(true), anyLong());
+    }
+
+    @Test
+    void importDeals_WithGzippedNdjson_ShouldImportDeals() throws IOException {
+        // Given
+        String ndjson = "{\"dealUniqueId\":\"DEAL001\",\"fromCurrencyIsoCode\":\"USD\",\"toCurrencyIsoCode\":\"EUR\","
+                + "\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1000.00}\n"
+                + "{\"dealUniqueId\":\"DEAL002\",\"fromCurrencyIsoCode\":\"GBP\",\"toCurrencyIsoCode\":\"JPY\","
+                + "\"dealTimestamp\":\"2024-01-15T11:00:00\",\"dealAmount\":2000.00}\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(ndjson.getBytes(StandardCharsets.UTF_8));
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "deals.ndjson.gz", "application/gzip", gzipped.toByteArray());
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001", "DEAL002"));
+
+        // When
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
+
+        // Then
+        assertEquals(2, result.getInserted());
+        assertEquals(1, outcomes.get(0).getLine());
+        assertEquals(2, outcomes.get(1).getLine());
+        verify(dealBatchRepository).insertIgnoringDuplicates(List.of(testDeal,
+                new Deal("DEAL002", "GBP", "JPY", LocalDateTime.of(2024, 1, 15, 11, 0), new BigDecimal("2000.00"))));
+    }
+
+    @Test
+    void importDeals_FromStream_ShouldParseFirstChunkBeforeRestArrives() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(dealService, "batchSize", 2);
+        byte[] first = ("dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n").getBytes(StandardCharsets.UTF_8);
+        byte[] rest = "DEAL003,EUR,USD,2024-01-15T12:15:00,3200.75\n".getBytes(StandardCharsets.UTF_8);
+        CountDownLatch firstChunkParsed = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        // Holds back the last row, as a slow client would, until the first chunk is parsed
+        InputStream body = new SequenceInputStream(new ByteArrayInputStream(first), new InputStream() {
+            private final InputStream delegate = new ByteArrayInputStream(rest);
+            private boolean waited;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0];
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (!waited) {
+                    waited = true;
+                    try {
+                        overlapped.set(firstChunkParsed.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                return delegate.read(b, off, len);
+            }
+        });
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> insertedIds(invocation.getArgument(0)));
+        when(dealValidator.validate(any(DealRecord.class))).thenAnswer(invocation -> {
+            if ("DEAL002".equals(invocation.<DealRecord>getArgument(0).getDealUniqueId())) {
+                firstChunkParsed.countDown();
+            }
+            return null;
+        });
+
+        // When
+        ImportSummaryDTO result = dealService.importDeals(body, "text/csv", null, ImportListener.NONE);
+
+        // Then
+        assertTrue(overlapped.get());
+        assertEquals(3, result.getInserted());
+        verify(dealBatchRepository, times(2)).insertIgnoringDuplicates(anyList());
+    }
+
+    @Test
+    void importFile_ShouldImportFromMappedFile(@TempDir Path dir) throws IOException {
+        // Given
+        ReflectionTestUtils.setField(dealService, "batchSize", 2);
+        Path file = Files.writeString(dir.resolve("eod-deals"),
+                "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+                "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n" +
+                "DEAL003,EUR,USD,2024-01-15T12:15:00,3200.75\n");
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> insertedIds(invocation.getArgument(0)));
+
+        // When
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importFile(file, outcomes::add);
+
+        // Then
+        assertEquals(3, result.getInserted());
+        assertEquals(List.of(2L, 3L, 4L), outcomes.stream().map(RowOutcomeDTO::getLine).toList());
+        verify(dealBatchRepository).insertIgnoringDuplicates(List.of(testDeal,
+                new Deal("DEAL002", "GBP", "JPY", LocalDateTime.of(2024, 1, 15, 11, 0), new BigDecimal("2000.00"))));
+    }
+
+    @Test
+    void importFile_WithGzippedFile_ShouldImportFromStream(@TempDir Path dir) throws IOException {
+        // Given
+        Path file = dir.resolve("deals.csv.gz");
+        try (GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(("dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                    "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n").getBytes(StandardCharsets.UTF_8));
+        }
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001"));
+
+        // When
+        ImportSummaryDTO result = dealService.importFile(file, ImportListener.NONE);
+
+        // Then
+        assertEquals(1, result.getInserted());
+        verify(dealBatchRepository).insertIgnoringDuplicates(List.of(testDeal));
+    }
+
+    @Test
+    void importDeals_WithFileImportedBefore_ShouldReturnPriorSummaryWithoutReadingRows() throws IOException {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv",
+                "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\nDEAL001,USD,EUR,2024-01-15T10:30:00,1000.00".getBytes());
+        ImportSummaryDTO prior = new ImportSummaryDTO(1, 0, 0, 40, new ArrayList<>());
+        when(importBatches.fingerprint(any())).thenReturn("f1");
+        when(importBatches.findCompleted("f1")).thenReturn(prior);
+
+        // When
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
+
+        // Then
+        assertSame(prior, result);
+        assertTrue(outcomes.isEmpty());
+        verifyNoInteractions(dealValidator, dealBatchRepository, dealIdFilter);
+        verify(importMetrics).recordRepeatedFile();
+        verify(importBatches, never()).record(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void importDeals_WithNewFile_ShouldRecordBatch() throws IOException {
+        // Given
+        byte[] content = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\nDEAL001,USD,EUR,2024-01-15T10:30:00,1000.00".getBytes();
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", content);
+        when(importBatches.fingerprint(any())).thenReturn("f1");
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001"));
+
+        // When
+        ImportSummaryDTO result = dealService.importDeals(file, ImportListener.NONE);
+
+        // Then
+        assertEquals(1, result.getInserted());
+        verify(importBatches).record("f1", "deals.csv", content.length, result);
+        verify(importMetrics, never()).recordRepeatedFile();
+    }
+
+    @Test
+    void importDeals_FromStream_ShouldRecordFingerprintOfBody() throws Exception {
+        // Given
+        byte[] content = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\nDEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n".getBytes();
+        when(importBatches.newDigest()).thenReturn(MessageDigest.getInstance("SHA-256"));
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL001"));
+
+        // When
+        ImportSummaryDTO result = dealService.importDeals(new ByteArrayInputStream(content), "text/csv", "deals.csv", ImportListener.NONE);
+
+        // Then
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        verify(importBatches).record(expected, "deals.csv", content.length, result);
+        verify(importBatches, never()).findCompleted(any());
+    }
+
+    @Test
+    void bulkImportDeals_WithFileImportedBefore_ShouldNotCopy() throws IOException {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", "x".getBytes());
+        ImportSummaryDTO prior = new ImportSummaryDTO(5, 0, 0, 40, new ArrayList<>());
+        when(importBatches.fingerprint(any())).thenReturn("f1");
+        when(importBatches.findCompleted("f1")).thenReturn(prior);
+
+        // When
+        ImportSummaryDTO result = dealService.bulkImportDeals(file);
+
+        // Then
+        assertSame(prior, result);
+        verifyNoInteractions(dealCopyRepository, dbConcurrencyLimiter);
+    }
+
+    @Test
+    void bulkImportDeals_WithNdjson_ShouldStreamRecords() throws IOException {
+        // Given
+        String ndjson = "{\"dealUniqueId\":\"DEAL001\",\"fromCurrencyIsoCode\":\"USD\",\"toCurrencyIsoCode\":\"EUR\","
+                + "\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":\"1000.00\"}\n";
+        MockMultipartFile file = new MockMultipartFile("file", "deals.jsonl", null, ndjson.getBytes(StandardCharsets.UTF_8));
+        List<DealRecord> staged = new ArrayList<>();
+        when(dealCopyRepository.copyAndMerge(any(), any())).thenAnswer(inv -> {
+            Iterator<DealRecord> deals = inv.getArgument(0);
+            deals.forEachRemaining(staged::add);
+            return new BulkLoadResult(staged.size(), 0);
+        });
+
+        // When
+        ImportSummaryDTO summary = dealService.bulkImportDeals(file);
+
+        // Then
+        assertEquals(1, summary.getDuplicates());
+        assertEquals(List.of(DealRecord.of("DEAL001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30),
+                new BigDecimal("1000.00"))), staged);
+    }
+
+    @Test
+    void bulkImportDeals_WithInvalidRowFormat_ShouldThrowException() {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR";
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                csvContent.getBytes()
+        );
+        when(dealCopyRepository.copyAndMerge(any(), any())).thenAnswer(inv -> {
+            Iterator<DealRecord> deals = inv.getArgument(0);
+            deals.hasNext();
+            return new BulkLoadResult(0, 0);
+        });
+
         // When/Then
-        assertThrows(Exception.class, () -> dealService.importDeals(file));
+        assertThrows(IllegalArgumentException.class, () -> dealService.bulkImportDeals(file));
+    }
+
+    @Test
+    void saveDeal_ShouldSaveDeal() {
+        // Given
+        when(dealBatchRepository.insertIgnoringDuplicates(List.of(testDeal))).thenReturn(Set.of("DEAL001"));
+
+        // When
+        dealService.saveDeal(testDeal);
+
+        // Then
+        verify(dealBatchRepository, times(1)).insertIgnoringDuplicates(List.of(testDeal));
+        verify(insertListener).onInserted(List.of(testDeal));
+    }
+
+    @Test
+    void saveDeal_WithExistingId_ShouldNotNotifyListeners() {
+        // Given
+        when(dealBatchRepository.insertIgnoringDuplicates(List.of(testDeal))).thenReturn(Set.of());
+
+        // When
+        dealService.saveDeal(testDeal);
+
+        // Then
         verify(dealRepository, never()).save(any(Deal.class));
+        verify(insertListener, never()).onInserted(anyList());
+    }
+
+    @Test
+    void getDeals_WithMoreRowsThanLimit_ShouldReturnCursorToNextPage() {
+        // Given
+        Deal second = new Deal("DEAL002", "GBP", "JPY", LocalDateTime.of(2024, 1, 15, 11, 0), new BigDecimal("2000.00"));
+        when(dealQueryRepository.findPage(DealFilter.NONE, null, null, 2)).thenReturn(Arrays.asList(testDeal, second));
+        when(dealQueryRepository.findPage(DealFilter.NONE, LocalDateTime.of(2024, 1, 15, 10, 30), "DEAL001", 2))
+                .thenReturn(List.of(second));
+
+        // When
+        DealPageDTO first = dealService.getDeals(DealFilter.NONE, null, 1);
+        DealPageDTO next = dealService.getDeals(DealFilter.NONE, first.getNextCursor(), 1);
+
+        // Then
+        assertEquals(List.of(testDeal), first.getDeals());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(second), next.getDeals());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getDeals_ShouldApplyDefaultAndCapPageSize() {
+        // Given
+        when(dealQueryRepository.findPage(any(DealFilter.class), isNull(), isNull(), anyInt())).thenReturn(Collections.emptyList());
+
+        // When
+        DealPageDTO page = dealService.getDeals(DealFilter.NONE, null, null);
+        dealService.getDeals(DealFilter.NONE, "", 1_000_000);
+
+        // Then
+        assertTrue(page.getDeals().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(dealQueryRepository).findPage(DealFilter.NONE, null, null, 101);
+        verify(dealQueryRepository).findPage(DealFilter.NONE, null, null, 1001);
+    }
+
+    @Test
+    void getDeals_WithInvalidCursor_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> dealService.getDeals(DealFilter.NONE, "not a cursor!", 10));
+        assertThrows(IllegalArgumentException.class, () -> dealService.getDeals(DealFilter.NONE, "bm8tc2VwYXJhdG9y", 10));
+        verifyNoInteractions(dealQueryRepository);
+    }
+
+    @Test
+    void getDeals_WithFilter_ShouldUpperCaseCurrenciesAndPassRange() {
+        // Given
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime until = LocalDateTime.of(2024, 2, 1, 0, 0);
+        DealFilter expected = new DealFilter("USD", "EUR", since, until, new BigDecimal("1000"));
+        when(dealQueryRepository.findPage(expected, null, null, 11)).thenReturn(List.of(testDeal));
+
+        // When
+        DealPageDTO page = dealService.getDeals(new DealFilter("usd", "eur", since, until, new BigDecimal("1000")), null, 10);
+
+        // Then
+        assertEquals(List.of(testDeal), page.getDeals());
+    }
+
+    @Test
+    void getDeals_WithEmptyRange_ShouldThrowException() {
+        // Given
+        LocalDateTime instant = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class,
+                () -> dealService.getDeals(new DealFilter(null, null, instant, instant, null), null, 10));
+        verifyNoInteractions(dealQueryRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportDeals_ShouldPassEveryDealToSink() throws IOException {
+        // Given
+        when(dealQueryRepository.streamAll(any())).thenAnswer(invocation -> {
+            Consumer<Deal> consumer = invocation.getArgument(0);
+            consumer.accept(testDeal);
+            return 1L;
+        });
+        List<Deal> exported = new ArrayList<>();
+
+        // When
+        long count = dealService.exportDeals(exported::add);
+
+        // Then
+        assertEquals(1, count);
+        assertEquals(List.of(testDeal), exported);
+    }
+
+    @Test
+    void exportDeals_WhenSinkFails_ShouldRethrowIOException() {
+        // Given
+        when(dealQueryRepository.streamAll(any())).thenAnswer(invocation -> {
+            Consumer<Deal> consumer = invocation.getArgument(0);
+            consumer.accept(testDeal);
+            return 1L;
+        });
+
+        // When/Then
+        IOException thrown = assertThrows(IOException.class, () -> dealService.exportDeals(deal -> {
+            throw new IOException("Broken pipe");
+        }));
+        assertEquals("Broken pipe", thrown.getMessage());
+    }
+
+    @Test
+    void getDealById_WithValidId_ShouldReturnDeal() {
+        // Given
+        when(dealRepository.getDealByDealUniqueId("DEAL001")).thenReturn(testDeal);
+
+        // When
+        Deal result = dealService.getDealById("DEAL001");
+
+        // Then
+        assertNotNull(result);
+        assertEquals(testDeal, result);
+        assertEquals("DEAL001", result.getDealUniqueId());
+        verify(dealRepository, times(1)).getDealByDealUniqueId("DEAL001");
+    }
+
+    @Test
+    void getDealById_WithNonExistingId_ShouldReturnNull() {
+        // Given
+        when(dealRepository.getDealByDealUniqueId("NONEXISTENT")).thenReturn(null);
+
+        // When
+        Deal result = dealService.getDealById("NONEXISTENT");
+
+        // Then
+        assertNull(result);
+        verify(dealRepository, times(1)).getDealByDealUniqueId("NONEXISTENT");
+    }
+
+    @Test
+    void importDeals_WithUnparseableTimestampOrAmount_ShouldReportRowsInvalidAndImportTheRest() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,INVALID_DATE,1000.00\n" +
+                "DEAL002,USD,EUR,2024-01-15T10:30:00,INVALID_AMOUNT\n" +
+                "DEAL003,GBP,JPY,2024-01-15T11:00:00,2000.00";
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", csvContent.getBytes());
+        when(dealBatchRepository.findExistingIds(anyList())).thenReturn(Collections.emptySet());
+        when(dealBatchRepository.insertIgnoringDuplicates(anyList())).thenReturn(Set.of("DEAL003"));
+
+        // When
+        List<RowOutcomeDTO> outcomes = new ArrayList<>();
+        ImportSummaryDTO result = dealService.importDeals(file, outcomes::add);
+
+        // Then
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getInvalid());
+        assertEquals(List.of("Line 2: Deal timestamp must be an ISO-8601 date and time: 'INVALID_DATE'",
+                "Line 3: Deal amount must be a decimal number"), result.getErrors());
+        assertEquals(new RowOutcomeDTO(2, "DEAL001", RowOutcomeDTO.Status.INVALID,
+                "Deal timestamp must be an ISO-8601 date and time: 'INVALID_DATE'"), outcomes.get(0));
+        assertEquals(RowOutcomeDTO.Status.INVALID, outcomes.get(1).getStatus());
+        assertEquals("DEAL002", outcomes.get(1).getDealUniqueId());
+        assertEquals(RowOutcomeDTO.Status.IMPORTED, outcomes.get(2).getStatus());
+    }
+
+    @Test
+    void bulkImportDeals_WithUnparseableTimestampOrAmount_ShouldCountRowsInvalid() throws IOException {
+        // Given
+        String csvContent = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+                "DEAL001,USD,EUR,2024-13-15T10:30:00,1000.00\n" +
+                "DEAL002,USD,EUR,2024-01-15T10:30:00,1.2.3\n" +
+                "DEAL003,GBP,JPY,2024-01-15T11:00:00,2000.00";
+        MockMultipartFile file = new MockMultipartFile("file", "deals.csv", "text/csv", csvContent.getBytes());
+        List<String> staged = new ArrayList<>();
+        when(dealCopyRepository.copyAndMerge(any(), any())).thenAnswer(inv -> {
+            Iterator<DealRecord> deals = inv.getArgument(0);
+            deals.forEachRemaining(deal -> staged.add(deal.getDealUniqueId()));
+            return new BulkLoadResult(staged.size(), staged.size());
+        });
+
+        // When
+        ImportSummaryDTO result = dealService.bulkImportDeals(file);
+
+        // Then
+        assertEquals(List.of("DEAL003"), staged);
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getInvalid());
+        assertEquals(List.of("Line 2: Deal timestamp must be an ISO-8601 date and time: '2024-13-15T10:30:00'",
+                "Line 3: Deal amount must be a decimal number"), result.getErrors());
+    }
+
+    private static Set<String> insertedIds(List<Deal> deals) {
+        Set<String> ids = new HashSet<>();
+        deals.forEach(deal -> ids.add(deal.getDealUniqueId()));
+        return ids;
     }
 }
@@ -0,0 +1,195 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import com.progresssoft.analyze_fx_deals.dto.DealStatsDTO;
+import com.progresssoft.analyze_fx_deals.model.Deal;
+import com.progresssoft.analyze_fx_deals.model.StatsGranularity;
+import com.progresssoft.analyze_fx_deals.repository.DealStatsRepository;
+import com.progresssoft.analyze_fx_deals.repository.DealStatsRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DealStatsServiceImplTest {
+
+    @Mock
+    private DealStatsRepository dealStatsRepository;
+
+    @InjectMocks
+    private DealStatsServiceImpl dealStatsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dealStatsService, "maxBuckets", 100);
+    }
+
+    private static Deal deal(String id, String from, String to, LocalDateTime timestamp, String amount) {
+        return new Deal(id, from, to, timestamp, new BigDecimal(amount));
+    }
+
+    @Test
+    void onInserted_ShouldAggregatePerPairAndBucket() {
+        // Given
+        dealStatsService.onInserted(List.of(
+                deal("DEAL001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 5), "1000.00"),
+                deal("DEAL002", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 55), "3000.00"),
+                deal("DEAL003", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 11, 0), "500.00"),
+                deal("DEAL004", "GBP", "JPY", LocalDateTime.of(2024, 1, 15, 10, 5), "9.99")));
+
+        // When
+        List<DealStatsDTO> hours = dealStatsService.getStats("usd", "eur", StatsGranularity.HOUR, null, null);
+        List<DealStatsDTO> days = dealStatsService.getStats("USD", "EUR", StatsGranularity.DAY, null, null);
+
+        // Then
+        assertEquals(2, hours.size());
+        DealStatsDTO ten = hours.get(0);
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 0), ten.getBucketStart());
+        assertEquals(2, ten.getCount());
+        assertEquals(new BigDecimal("4000.00"), ten.getSum());
+        assertEquals(new BigDecimal("1000.00"), ten.getMin());
+        assertEquals(new BigDecimal("3000.00"), ten.getMax());
+        assertEquals(new BigDecimal("2000.0000"), ten.getAverage());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 11, 0), hours.get(1).getBucketStart());
+
+        assertEquals(1, days.size());
+        assertEquals(3, days.get(0).getCount());
+        assertEquals(new BigDecimal("4500.00"), days.get(0).getSum());
+        assertEquals(new BigDecimal("500.00"), days.get(0).getMin());
+    }
+
+    @Test
+    void getStats_ShouldReturnBucketsStartingInRange() {
+        // Given
+        for (int minute = 0; minute < 10; minute++) {
+            dealStatsService.onInserted(List.of(
+                    deal("DEAL" + minute, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, minute, 30), "1.00")));
+        }
+
+        // When
+        List<DealStatsDTO> stats = dealStatsService.getStats("USD", "EUR", StatsGranularity.MINUTE,
+                LocalDateTime.of(2024, 1, 15, 10, 3), LocalDateTime.of(2024, 1, 15, 10, 6));
+
+        // Then
+        assertEquals(List.of(LocalDateTime.of(2024, 1, 15, 10, 3), LocalDateTime.of(2024, 1, 15, 10, 4),
+                LocalDateTime.of(2024, 1, 15, 10, 5)), stats.stream().map(DealStatsDTO::getBucketStart).toList());
+    }
+
+    @Test
+    void getStats_WithOnlyFromCurrency_ShouldReturnEveryMatchingPairInOrder() {
+        // Given
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 15, 10, 0);
+        dealStatsService.onInserted(List.of(
+                deal("DEAL001", "USD", "JPY", timestamp, "1.00"),
+                deal("DEAL002", "USD", "EUR", timestamp, "1.00"),
+                deal("DEAL003", "GBP", "EUR", timestamp, "1.00")));
+
+        // When
+        List<DealStatsDTO> stats = dealStatsService.getStats("USD", null, StatsGranularity.DAY, null, null);
+
+        // Then
+        assertEquals(List.of("EUR", "JPY"), stats.stream().map(DealStatsDTO::getToCurrencyIsoCode).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void load_WithEmptyRollup_ShouldRebuildAndReplaceStore() {
+        // Given
+        dealStatsService.onInserted(List.of(deal("DEAL001", "GBP", "JPY", LocalDateTime.of(2024, 1, 15, 10, 0), "1.00")));
+        when(dealStatsRepository.read(any(), any())).thenAnswer(inv -> {
+            inv.getArgument(0, Consumer.class).accept(new DealStatsRow(StatsGranularity.HOUR, "USD", "EUR",
+                    LocalDateTime.of(2024, 1, 15, 10, 0), 2, new BigDecimal("3.00"), new BigDecimal("1.00"), new BigDecimal("2.00")));
+            inv.getArgument(1, Consumer.class).accept((DealStatsRepository.StoredIds) ids -> Set.of());
+            return 6;
+        });
+
+        // When
+        dealStatsService.load();
+
+        // Then
+        assertEquals(2, dealStatsService.getStats("USD", "EUR", StatsGranularity.HOUR, null, null).get(0).getCount());
+        assertTrue(dealStatsService.getStats("GBP", "JPY", StatsGranularity.HOUR, null, null).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void load_ShouldAddInsertsReportedWhileLoadingUnlessTheSnapshotCountsThem() {
+        // Given
+        when(dealStatsRepository.read(any(), any())).thenAnswer(inv -> {
+            // DEAL002 committed before the snapshot, so its row is in the totals read
+            dealStatsService.onInserted(List.of(deal("DEAL002", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 15), "2.00")));
+            inv.getArgument(0, Consumer.class).accept(new DealStatsRow(StatsGranularity.HOUR, "USD", "EUR",
+                    LocalDateTime.of(2024, 1, 15, 10, 0), 2, new BigDecimal("3.00"), new BigDecimal("1.00"), new BigDecimal("2.00")));
+            dealStatsService.onInserted(List.of(deal("DEAL003", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), "0.50")));
+            inv.getArgument(1, Consumer.class).accept((DealStatsRepository.StoredIds) ids -> {
+                assertEquals(Set.of("DEAL002", "DEAL003"), Set.copyOf(ids));
+                return Set.of("DEAL002");
+            });
+            return 0;
+        });
+
+        // When
+        dealStatsService.load();
+        dealStatsService.onInserted(List.of(deal("DEAL004", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 45), "4.00")));
+
+        // Then
+        DealStatsDTO hour = dealStatsService.getStats("USD", "EUR", StatsGranularity.HOUR, null, null).get(0);
+        assertEquals(4, hour.getCount());
+        assertEquals(new BigDecimal("7.50"), hour.getSum());
+        assertEquals(new BigDecimal("0.50"), hour.getMin());
+        assertEquals(new BigDecimal("4.00"), hour.getMax());
+        assertEquals(1, dealStatsService.getStats("USD", "EUR", StatsGranularity.MINUTE, null, null).stream()
+                .filter(stats -> stats.getBucketStart().getMinute() == 30).count());
+    }
+
+    @Test
+    void load_WhenReadFails_ShouldKeepServingAndStopCollecting() {
+        // Given
+        dealStatsService.onInserted(List.of(deal("DEAL001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 0), "1.00")));
+        when(dealStatsRepository.read(any(), any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        // When
+        assertThrows(DataAccessResourceFailureException.class, () -> dealStatsService.load());
+        dealStatsService.onInserted(List.of(deal("DEAL002", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 5), "1.00")));
+
+        // Then
+        assertEquals(2, dealStatsService.getStats("USD", "EUR", StatsGranularity.HOUR, null, null).get(0).getCount());
+        assertNull(ReflectionTestUtils.getField(dealStatsService, "duringLoad"));
+    }
+
+    @Test
+    void getStats_WithTooManyBuckets_ShouldThrowException() {
+        // Given
+        ReflectionTestUtils.setField(dealStatsService, "maxBuckets", 2);
+        for (int minute = 0; minute < 3; minute++) {
+            dealStatsService.onInserted(List.of(deal("DEAL" + minute, "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, minute), "1.00")));
+        }
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class,
+                () -> dealStatsService.getStats("USD", "EUR", StatsGranularity.MINUTE, null, null));
+        assertEquals(2, dealStatsService.getStats("USD", "EUR", StatsGranularity.MINUTE,
+                null, LocalDateTime.of(2024, 1, 15, 10, 2)).size());
+    }
+
+    @Test
+    void getStats_WithEmptyRange_ShouldThrowException() {
+        LocalDateTime instant = LocalDateTime.of(2024, 1, 15, 10, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> dealStatsService.getStats("USD", "EUR", StatsGranularity.HOUR, instant, instant));
+    }
+}
@@ -0,0 +1,131 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.model.ImportBatch;
+import com.progresssoft.analyze_fx_deals.repository.ImportBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportBatchesTest {
+
+    // SHA-256 of "abc"
+    private static final String ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @Mock
+    private ImportBatchRepository importBatchRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ImportBatches importBatches;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(importBatches, "enabled", true);
+    }
+
+    @Test
+    void fingerprint_ShouldBeSha256OfBytes() throws IOException {
+        assertEquals(ABC, importBatches.fingerprint(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void fingerprint_WhenDisabled_ShouldReturnNullAndSkipLookup() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(importBatches, "enabled", false);
+
+        // When
+        String fingerprint = importBatches.fingerprint(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertNull(fingerprint);
+        assertNull(importBatches.newDigest());
+        assertNull(importBatches.findCompleted(fingerprint));
+        importBatches.record(fingerprint, "deals.csv", 3, new ImportSummaryDTO());
+        verifyNoInteractions(importBatchRepository);
+    }
+
+    @Test
+    void findCompleted_WithErrorsRecordedOnePerLine_ShouldSplitThem() {
+        // Given
+        when(importBatchRepository.findById(ABC)).thenReturn(Optional.of(new ImportBatch(ABC, "deals.csv", 3, 5, 1, 2, 40,
+                "Line 3: Deal ID cannot be blank\nLine 7: Deal amount must be greater than 0", LocalDateTime.now())));
+
+        // When
+        ImportSummaryDTO summary = importBatches.findCompleted(ABC);
+
+        // Then
+        assertEquals(new ImportSummaryDTO(5, 1, 2, 40,
+                List.of("Line 3: Deal ID cannot be blank", "Line 7: Deal amount must be greater than 0")), summary);
+        assertNull(importBatches.findCompleted("unknown"));
+    }
+
+    @Test
+    void record_ShouldSaveSummary() {
+        // Given
+        ImportSummaryDTO summary = new ImportSummaryDTO(5, 1, 0, 40, new ArrayList<>());
+
+        // When
+        importBatches.record(ABC, "deals.csv", 3, summary);
+
+        // Then
+        ArgumentCaptor<ImportBatch> captor = ArgumentCaptor.forClass(ImportBatch.class);
+        verify(importBatchRepository).insertIfAbsent(captor.capture());
+        ImportBatch batch = captor.getValue();
+        assertEquals(ABC, batch.getFingerprint());
+        assertEquals("deals.csv", batch.getFileName());
+        assertEquals(3, batch.getFileSize());
+        assertEquals(5, batch.getInserted());
+        assertEquals(1, batch.getDuplicates());
+        assertEquals("[]", batch.getErrors());
+        assertNotNull(batch.getImportedAt());
+    }
+
+    @Test
+    void record_ThenFindCompleted_ShouldKeepMultiLineErrorsWhole() {
+        // Given
+        List<String> errors = List.of("Line 3: Invalid deal amount: '1\n2'", "Line 9: Deal ID cannot be blank");
+        importBatches.record(ABC, "deals.csv", 3, new ImportSummaryDTO(5, 0, 2, 40, new ArrayList<>(errors)));
+        ArgumentCaptor<ImportBatch> captor = ArgumentCaptor.forClass(ImportBatch.class);
+        verify(importBatchRepository).insertIfAbsent(captor.capture());
+        when(importBatchRepository.findById(ABC)).thenReturn(Optional.of(captor.getValue()));
+
+        // When
+        ImportSummaryDTO summary = importBatches.findCompleted(ABC);
+
+        // Then
+        assertEquals(errors, summary.getErrors());
+    }
+
+    @Test
+    void record_WhenDatabaseFails_ShouldNotThrow() {
+        // Given
+        when(importBatchRepository.insertIfAbsent(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        // When/Then
+        assertDoesNotThrow(() -> importBatches.record(ABC, "deals.csv", 3, new ImportSummaryDTO()));
+    }
+}
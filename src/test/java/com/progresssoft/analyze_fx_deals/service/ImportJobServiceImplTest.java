@@ -0,0 +1,442 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import com.progresssoft.analyze_fx_deals.dto.ImportJobDTO;
+import com.progresssoft.analyze_fx_deals.dto.ImportSummaryDTO;
+import com.progresssoft.analyze_fx_deals.dto.RowOutcomeDTO;
+import com.progresssoft.analyze_fx_deals.model.ImportJob;
+import com.progresssoft.analyze_fx_deals.parser.DealFormat;
+import com.progresssoft.analyze_fx_deals.parser.ImportCheckpoint;
+import com.progresssoft.analyze_fx_deals.repository.ImportJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportJobServiceImplTest {
+
+    private static final String CSV = "dealUniqueId,fromCurrencyIsoCode,toCurrencyIsoCode,dealTimestamp,dealAmount\n" +
+            "DEAL001,USD,EUR,2024-01-15T10:30:00,1000.00\n" +
+            "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00\n";
+    private static final long LINE_3_OFFSET = CSV.indexOf("DEAL002");
+
+    @Mock
+    private DealService dealService;
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+
+    @Mock
+    private ImportBatches importBatches;
+
+    @Mock
+    private ImportMetrics importMetrics;
+
+    @InjectMocks
+    private ImportJobServiceImpl importJobService;
+
+    @TempDir
+    Path jobsDir;
+
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(importJobService, "jobsDir", jobsDir.toString());
+        ReflectionTestUtils.setField(importJobService, "progressIntervalMillis", 0L);
+        ReflectionTestUtils.setField(importJobService, "importJobExecutor", (Executor) queued::add);
+    }
+
+    private static MockMultipartFile file() {
+        return new MockMultipartFile("file", "deals.csv", "text/csv", CSV.getBytes());
+    }
+
+    private Path spooledFile() throws IOException {
+        try (Stream<Path> files = Files.list(jobsDir)) {
+            return files.findFirst().orElse(null);
+        }
+    }
+
+    private static String sha256(String text) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ImportJob interruptedJob(String filePath) throws Exception {
+        LocalDateTime created = LocalDateTime.of(2024, 1, 15, 10, 0);
+        return new ImportJob("job-1", ImportJob.Status.INTERRUPTED, "deals.csv", filePath, sha256(CSV), CSV.length(),
+                LINE_3_OFFSET, 1, 1, 0, 0, 3, LINE_3_OFFSET, null, created, created, created.plusSeconds(1));
+    }
+
+    @Test
+    void submit_ShouldSpoolFileAndReturnQueuedJob() throws Exception {
+        // When
+        ImportJobDTO job = importJobService.submit(file());
+
+        // Then
+        assertEquals(ImportJob.Status.QUEUED, job.getStatus());
+        assertEquals("deals.csv", job.getFileName());
+        assertEquals(CSV.length(), job.getTotalBytes());
+        assertEquals(CSV, Files.readString(spooledFile()));
+        assertEquals(1, queued.size());
+        verify(importJobRepository).save(any(ImportJob.class));
+        verifyNoInteractions(dealService);
+    }
+
+    @Test
+    void runningJob_ShouldImportSpooledFileAndPersistCheckpoints() throws Exception {
+        // Given
+        List<String> readLines = new ArrayList<>();
+        ImportSummaryDTO summary = new ImportSummaryDTO(1, 1, 0, 5, new ArrayList<>());
+        when(importBatches.fingerprint(any())).thenReturn("f1");
+        when(dealService.importDealsFrom(any(Reader.class), eq(DealFormat.CSV), isNull(), any(ImportListener.class))).thenAnswer(invocation -> {
+            BufferedReader reader = new BufferedReader(invocation.getArgument(0, Reader.class));
+            reader.lines().forEach(readLines::add);
+            ImportListener listener = invocation.getArgument(3);
+            listener.onRow(new RowOutcomeDTO(2, "DEAL001", RowOutcomeDTO.Status.IMPORTED, "ok"));
+            listener.onCheckpoint(new ImportCheckpoint(3, LINE_3_OFFSET));
+            listener.onRow(new RowOutcomeDTO(3, "DEAL002", RowOutcomeDTO.Status.DUPLICATE, "exists"));
+            listener.onCheckpoint(new ImportCheckpoint(4, CSV.length()));
+            return summary;
+        });
+        importJobService.submit(file());
+
+        // When
+        queued.get(0).run();
+
+        // Then
+        assertEquals(3, readLines.size());
+        ArgumentCaptor<ImportJob> saved = ArgumentCaptor.forClass(ImportJob.class);
+        verify(importJobRepository, atLeast(4)).save(saved.capture());
+        ImportJob last = saved.getValue();
+        assertEquals(ImportJob.Status.COMPLETED, last.getStatus());
+        assertEquals(2, last.getRowsProcessed());
+        assertEquals(1, last.getInserted());
+        assertEquals(1, last.getDuplicates());
+        assertEquals(CSV.length(), last.getBytesRead());
+        assertNotNull(last.getFinishedAt());
+        assertEquals(4, last.getCheckpointLine());
+        assertTrue(saved.getAllValues().stream().anyMatch(job -> job.getStatus() == ImportJob.Status.RUNNING
+                && job.getCheckpointLine() == 3 && job.getRowsProcessed() == 1 && job.getInserted() == 1));
+        assertNull(spooledFile());
+        verify(importBatches).record("f1", "deals.csv", CSV.length(), summary);
+    }
+
+    @Test
+    void submit_WithFileImportedBefore_ShouldCompleteJobWithoutSpooling() throws Exception {
+        // Given
+        when(importBatches.fingerprint(any())).thenReturn("f1");
+        when(importBatches.findCompleted("f1")).thenReturn(new ImportSummaryDTO(1, 1, 0, 5, new ArrayList<>()));
+
+        // When
+        ImportJobDTO job = importJobService.submit(file());
+
+        // Then
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getRowsProcessed());
+        assertEquals(1, job.getInserted());
+        assertEquals(1, job.getDuplicates());
+        assertEquals(Long.valueOf(0), job.getEtaSeconds());
+        assertNull(spooledFile());
+        assertTrue(queued.isEmpty());
+        verify(importJobRepository).save(any(ImportJob.class));
+        verify(importMetrics).recordRepeatedFile();
+        verifyNoInteractions(dealService);
+    }
+
+    @Test
+    void runningJob_WhenImportFails_ShouldMarkJobFailed() throws Exception {
+        // Given
+        when(dealService.importDealsFrom(any(Reader.class), eq(DealFormat.CSV), isNull(), any(ImportListener.class)))
+                .thenThrow(new IllegalArgumentException("Invalid row format"));
+        importJobService.submit(file());
+
+        // When
+        queued.get(0).run();
+
+        // Then
+        ArgumentCaptor<ImportJob> saved = ArgumentCaptor.forClass(ImportJob.class);
+        verify(importJobRepository, atLeastOnce()).save(saved.capture());
+        assertEquals(ImportJob.Status.FAILED, saved.getValue().getStatus());
+        assertEquals("Invalid row format", saved.getValue().getErrorMessage());
+        assertNotNull(spooledFile());
+    }
+
+    @Test
+    void resume_AfterFailedRun_ShouldQueueJobWithItsSpooledFile() throws Exception {
+        // Given
+        when(dealService.importDealsFrom(any(Reader.class), eq(DealFormat.CSV), isNull(), any(ImportListener.class)))
+                .thenThrow(new IllegalArgumentException("Invalid row format"));
+        ImportJobDTO submitted = importJobService.submit(file());
+        queued.get(0).run();
+        ArgumentCaptor<ImportJob> saved = ArgumentCaptor.forClass(ImportJob.class);
+        verify(importJobRepository, atLeastOnce()).save(saved.capture());
+        when(importJobRepository.findById(submitted.getId())).thenReturn(Optional.of(saved.getValue()));
+
+        // When
+        ImportJobDTO job = importJobService.resume(submitted.getId());
+
+        // Then
+        assertEquals(ImportJob.Status.QUEUED, job.getStatus());
+        assertEquals(2, queued.size());
+    }
+
+    @Test
+    void deleteExpiredSpools_ShouldDeleteFilesOfJobsNotResumedInTime() throws Exception {
+        // Given
+        Path spooled = jobsDir.resolve("old.csv");
+        Files.writeString(spooled, CSV);
+        when(importJobRepository.findByStatusInAndFinishedAtBefore(anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(interruptedJob(spooled.toString())));
+
+        // When
+        importJobService.deleteExpiredSpools();
+
+        // Then
+        assertFalse(Files.exists(spooled));
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldFailJobAndRethrow() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(importJobService, "importJobExecutor", (Executor) task -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        // When/Then
+        RejectedExecutionException rejected = assertThrows(RejectedExecutionException.class, () -> importJobService.submit(file()));
+        assertEquals("Too many imports are queued, try again later", rejected.getMessage());
+        ArgumentCaptor<ImportJob> saved = ArgumentCaptor.forClass(ImportJob.class);
+        verify(importJobRepository, times(2)).save(saved.capture());
+        assertEquals(ImportJob.Status.FAILED, saved.getValue().getStatus());
+        assertNotNull(spooledFile());
+    }
+
+    @Test
+    void submit_WithFileOfInterruptedJob_ShouldResumeFromCheckpoint() throws Exception {
+        // Given
+        ImportJob interrupted = interruptedJob(jobsDir.resolve("old.csv").toString());
+        Files.writeString(jobsDir.resolve("old.csv"), CSV);
+        when(importJobRepository.findFirstByFileChecksumAndStatusInOrderByCreatedAtDesc(eq(sha256(CSV)), anyCollection()))
+                .thenReturn(Optional.of(interrupted));
+        List<String> readLines = new ArrayList<>();
+        when(dealService.importDealsFrom(any(Reader.class), eq(DealFormat.CSV), eq(new ImportCheckpoint(3, LINE_3_OFFSET)), any(ImportListener.class)))
+                .thenAnswer(invocation -> {
+                    new BufferedReader(invocation.getArgument(0, Reader.class)).lines().forEach(readLines::add);
+                    ImportListener listener = invocation.getArgument(3);
+                    listener.onRow(new RowOutcomeDTO(3, "DEAL002", RowOutcomeDTO.Status.IMPORTED, "ok"));
+                    listener.onCheckpoint(new ImportCheckpoint(4, CSV.length()));
+                    return new ImportSummaryDTO(1, 0, 0, 5, new ArrayList<>());
+                });
+
+        // When
+        ImportJobDTO job = importJobService.submit(file());
+        queued.get(0).run();
+
+        // Then
+        assertEquals("job-1", job.getId());
+        assertEquals(3, job.getCheckpointLine());
+        assertFalse(Files.exists(jobsDir.resolve("old.csv")));
+        assertEquals(List.of(CSV.substring(0, CSV.indexOf('\n')), "DEAL002,GBP,JPY,2024-01-15T11:00:00,2000.00"), readLines);
+        ArgumentCaptor<ImportJob> saved = ArgumentCaptor.forClass(ImportJob.class);
+        verify(importJobRepository, atLeastOnce()).save(saved.capture());
+        ImportJob last = saved.getValue();
+        assertEquals(ImportJob.Status.COMPLETED, last.getStatus());
+        assertEquals(2, last.getRowsProcessed());
+        assertEquals(2, last.getInserted());
+        assertEquals(CSV.length(), last.getBytesRead());
+        verify(importBatches, never()).record(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void submit_WhileResumeHasQueuedTheJob_ShouldKeepItsFileAndRejectTheUpload() throws Exception {
+        // Given
+        Path spooled = jobsDir.resolve("old.csv");
+        Files.writeString(spooled, CSV);
+        when(importJobRepository.findById("job-1")).thenReturn(Optional.of(interruptedJob(spooled.toString())));
+        when(importJobRepository.findFirstByFileChecksumAndStatusInOrderByCreatedAtDesc(eq(sha256(CSV)), anyCollection()))
+                .thenReturn(Optional.of(interruptedJob(spooled.toString())));
+        importJobService.resume("job-1");
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> importJobService.submit(file()));
+        assertEquals(spooled, spooledFile());
+        try (Stream<Path> files = Files.list(jobsDir)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void submit_WithGzippedNdjson_ShouldSpoolItDecompressed() throws Exception {
+        // Given
+        String ndjson = "{\"dealUniqueId\":\"DEAL001\",\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1}\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(ndjson.getBytes(StandardCharsets.UTF_8));
+        }
+        when(importJobRepository.findFirstByFileChecksumAndStatusInOrderByCreatedAtDesc(eq(sha256(ndjson)), anyCollection()))
+                .thenReturn(Optional.empty());
+
+        // When
+        ImportJobDTO job = importJobService.submit(
+                new MockMultipartFile("file", "deals.ndjson.gz", "application/gzip", gzipped.toByteArray()));
+
+        // Then
+        assertEquals(ndjson.length(), job.getTotalBytes());
+        assertTrue(spooledFile().toString().endsWith(".ndjson"));
+        assertEquals(ndjson, Files.readString(spooledFile()));
+    }
+
+    @Test
+    void runningJob_ResumingNdjson_ShouldNotPrependFirstLine() throws Exception {
+        // Given
+        String first = "{\"dealUniqueId\":\"DEAL001\",\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":1}";
+        String second = "{\"dealUniqueId\":\"DEAL002\",\"dealTimestamp\":\"2024-01-15T10:30:00\",\"dealAmount\":2}";
+        Path spooled = jobsDir.resolve("old.ndjson");
+        Files.writeString(spooled, first + "\n" + second + "\n");
+        ImportJob interrupted = interruptedJob(spooled.toString());
+        interrupted.setFileChecksum(sha256(first + "\n" + second + "\n"));
+        interrupted.setCheckpointLine(2);
+        interrupted.setCheckpointOffset(first.length() + 1);
+        when(importJobRepository.findById("job-1")).thenReturn(Optional.of(interrupted));
+        List<String> readLines = new ArrayList<>();
+        when(dealService.importDealsFrom(any(Reader.class), eq(DealFormat.NDJSON), eq(new ImportCheckpoint(2, first.length() + 1)),
+                any(ImportListener.class))).thenAnswer(invocation -> {
+                    new BufferedReader(invocation.getArgument(0, Reader.class)).lines().forEach(readLines::add);
+                    return new ImportSummaryDTO(1, 0, 0, 5, new ArrayList<>());
+                });
+
+        // When
+        importJobService.resume("job-1");
+        queued.get(0).run();
+
+        // Then
+        assertEquals(List.of(second), readLines);
+    }
+
+    @Test
+    void resume_WithSpooledFile_ShouldQueueJob() throws Exception {
+        // Given
+        Path spooled = jobsDir.resolve("old.csv");
+        Files.writeString(spooled, CSV);
+        when(importJobRepository.findById("job-1")).thenReturn(Optional.of(interruptedJob(spooled.toString())));
+
+        // When
+        ImportJobDTO job = importJobService.resume("job-1");
+
+        // Then
+        assertEquals(ImportJob.Status.QUEUED, job.getStatus());
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void resume_WhenFileIsGone_ShouldThrowException() throws Exception {
+        when(importJobRepository.findById("job-1")).thenReturn(Optional.of(interruptedJob(jobsDir.resolve("gone.csv").toString())));
+
+        assertThrows(IllegalArgumentException.class, () -> importJobService.resume("job-1"));
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void resume_WithCompletedJob_ShouldThrowException() throws Exception {
+        ImportJob completed = interruptedJob("unused.csv");
+        completed.setStatus(ImportJob.Status.COMPLETED);
+        when(importJobRepository.findById("job-1")).thenReturn(Optional.of(completed));
+
+        assertThrows(IllegalArgumentException.class, () -> importJobService.resume("job-1"));
+    }
+
+    @Test
+    void resume_WithUnknownId_ShouldReturnNull() throws Exception {
+        when(importJobRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertNull(importJobService.resume("missing"));
+    }
+
+    @Test
+    void getJob_ShouldReportLiveProgressWhileQueued() throws Exception {
+        // Given
+        ImportJobDTO submitted = importJobService.submit(file());
+
+        // When
+        ImportJobDTO job = importJobService.getJob(submitted.getId());
+
+        // Then
+        assertEquals(ImportJob.Status.QUEUED, job.getStatus());
+        assertNull(job.getEtaSeconds());
+        verify(importJobRepository, never()).findById(any());
+    }
+
+    @Test
+    void getJob_ForFinishedJob_ShouldComputeRateFromTable() {
+        // Given
+        LocalDateTime started = LocalDateTime.of(2024, 1, 15, 10, 0);
+        ImportJob stored = new ImportJob("job-1", ImportJob.Status.COMPLETED, "deals.csv", "/tmp/job-1.csv", "abc", 100, 100,
+                1000, 900, 50, 50, 1001, 100, null, started, started, started.plusSeconds(10));
+        when(importJobRepository.findById("job-1")).thenReturn(Optional.of(stored));
+
+        // When
+        ImportJobDTO job = importJobService.getJob("job-1");
+
+        // Then
+        assertEquals(100.0, job.getRowsPerSecond(), 0.001);
+        assertEquals(0L, job.getEtaSeconds());
+        assertEquals(50, job.getInvalid());
+    }
+
+    @Test
+    void getJob_WithUnknownId_ShouldReturnNull() {
+        when(importJobRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertNull(importJobService.getJob("missing"));
+    }
+
+    @Test
+    void markInterruptedJobs_ShouldFlagUnfinishedJobsFromPreviousRun() {
+        // Given
+        ImportJob stale = new ImportJob();
+        stale.setId("old");
+        stale.setStatus(ImportJob.Status.RUNNING);
+        when(importJobRepository.findByStatusIn(anyCollection())).thenReturn(List.of(stale));
+
+        // When
+        importJobService.markInterruptedJobs();
+
+        // Then
+        assertEquals(ImportJob.Status.INTERRUPTED, stale.getStatus());
+        assertNotNull(stale.getFinishedAt());
+        verify(importJobRepository).save(stale);
+    }
+}
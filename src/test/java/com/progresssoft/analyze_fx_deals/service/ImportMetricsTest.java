@@ -0,0 +1,69 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private ImportMetrics importMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        importMetrics = new ImportMetrics(registry);
+    }
+
+    @Test
+    void recordPhases_ShouldTimeEachPhaseSeparately() {
+        // When
+        importMetrics.recordParse(2_000_000);
+        importMetrics.recordValidate(5_000_000);
+        importMetrics.recordValidate(1_000_000);
+        importMetrics.recordDuplicateCheck(3_000_000);
+        importMetrics.recordPersist(7_000_000);
+
+        // Then
+        assertEquals(2, registry.get("deals.import.phase").tag("phase", "validate").timer().count());
+        assertEquals(6.0, registry.get("deals.import.phase").tag("phase", "validate").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(2.0, registry.get("deals.import.phase").tag("phase", "parse").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(3.0, registry.get("deals.import.phase").tag("phase", "duplicate_check").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(7.0, registry.get("deals.import.phase").tag("phase", "persist").timer().totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void recordRows_ShouldCountByOutcome() {
+        // When
+        importMetrics.recordRows(10, 2, 1);
+        importMetrics.recordRows(5, 0, 0);
+
+        // Then
+        assertEquals(15, registry.get("deals.import.rows").tag("outcome", "imported").counter().count());
+        assertEquals(2, registry.get("deals.import.rows").tag("outcome", "duplicate").counter().count());
+        assertEquals(1, registry.get("deals.import.rows").tag("outcome", "invalid").counter().count());
+    }
+
+    @Test
+    void recordImport_ShouldTagByMode() {
+        // When
+        importMetrics.recordImport(true, 1_000_000);
+
+        // Then
+        assertEquals(1, registry.get("deals.import").tag("mode", "bulk").timer().count());
+        assertEquals(0, registry.get("deals.import").tag("mode", "pipeline").timer().count());
+    }
+
+    @Test
+    void recordRepeatedFile_ShouldCountUploads() {
+        // When
+        importMetrics.recordRepeatedFile();
+
+        // Then
+        assertEquals(1, registry.get("deals.import.repeated.files").counter().count());
+    }
+}
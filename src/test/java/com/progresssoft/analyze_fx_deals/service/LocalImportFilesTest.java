@@ -0,0 +1,74 @@
+package com.progresssoft.analyze_fx_deals.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalImportFilesTest {
+
+    @TempDir
+    Path root;
+
+    private Path inbox;
+    private LocalImportFiles localImportFiles;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inbox = Files.createDirectory(root.resolve("inbox"));
+        localImportFiles = new LocalImportFiles();
+        ReflectionTestUtils.setField(localImportFiles, "dirs", List.of(inbox.toString()));
+    }
+
+    @Test
+    void resolve_WithFileInAllowedDirectory_ShouldReturnRealPath() throws IOException {
+        // Given
+        Path file = Files.writeString(inbox.resolve("deals.csv"), "x");
+
+        // When
+        Path resolved = localImportFiles.resolve(file.toString());
+
+        // Then
+        assertEquals(file.toRealPath(), resolved);
+    }
+
+    @Test
+    void resolve_WithFileOutsideAllowedDirectories_ShouldThrowException() throws IOException {
+        // Given
+        Path secret = Files.writeString(root.resolve("secret.csv"), "x");
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> localImportFiles.resolve(secret.toString()));
+        assertThrows(IllegalArgumentException.class,
+                () -> localImportFiles.resolve(inbox.resolve("../secret.csv").toString()));
+    }
+
+    @Test
+    void resolve_WithLinkLeavingAllowedDirectory_ShouldThrowException() throws IOException {
+        // Given
+        Path secret = Files.writeString(root.resolve("secret.csv"), "x");
+        Path link = Files.createSymbolicLink(inbox.resolve("deals.csv"), secret);
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> localImportFiles.resolve(link.toString()));
+    }
+
+    @Test
+    void resolve_WithMissingFileOrNoAllowedDirectories_ShouldThrowException() throws IOException {
+        // Given
+        Path file = Files.writeString(inbox.resolve("deals.csv"), "x");
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class,
+                () -> localImportFiles.resolve(inbox.resolve("missing.csv").toString()));
+        ReflectionTestUtils.setField(localImportFiles, "dirs", List.of());
+        assertThrows(IllegalArgumentException.class, () -> localImportFiles.resolve(file.toString()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrencyCodesTest {
+
+    @Test
+    void isIsoCode_ShouldAcceptEveryJdkCurrency() {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            assertTrue(CurrencyCodes.isIsoCode(currency.getCurrencyCode()), currency.getCurrencyCode());
+        }
+    }
+
+    @Test
+    void isIsoCode_ShouldRejectUnknownLowerCaseAndMalformedCodes() {
+        assertFalse(CurrencyCodes.isIsoCode("ABC"));
+        assertFalse(CurrencyCodes.isIsoCode("usd"));
+        assertFalse(CurrencyCodes.isIsoCode("US"));
+        assertFalse(CurrencyCodes.isIsoCode("USDX"));
+        assertFalse(CurrencyCodes.isIsoCode("U$D"));
+        assertFalse(CurrencyCodes.isIsoCode(null));
+    }
+}
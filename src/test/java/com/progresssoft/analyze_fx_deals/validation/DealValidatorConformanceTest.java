@@ -0,0 +1,168 @@
+package com.progresssoft.analyze_fx_deals.validation;
+
+import com.progresssoft.analyze_fx_deals.dto.RequestDTO;
+import com.progresssoft.analyze_fx_deals.parser.DealRecord;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs every combination of edge values through both the annotations on
+ * {@link RequestDTO} and {@link DealValidator}, which must report the same messages,
+ * and for deals that have a timestamp and an amount also as a {@link DealRecord}.
+ */
+class DealValidatorConformanceTest {
+
+    private static final String[] IDS = {null, "", " ", "\t \n", "DEAL001", " DEAL001 ", "A".repeat(50), "A".repeat(51), "  ".repeat(30)};
+    private static final String[] CURRENCIES = {null, "", "   ", "US", "USDX", "usd", "Usd", "USD", "EUR", "JPY", "ABC", "U1D", "ÜSD", " US"};
+    private static final LocalDateTime[] TIMESTAMPS = {null, LocalDateTime.of(2024, 1, 15, 10, 30)};
+    private static final BigDecimal[] AMOUNTS = {null, new BigDecimal("-5"), BigDecimal.ZERO, new BigDecimal("0.00"),
+            new BigDecimal("0.009"), new BigDecimal("0.0099999999999"), new BigDecimal("0.01"), new BigDecimal("0.010"),
+            BigDecimal.ONE, new BigDecimal("1E+3"), new BigDecimal("123456789012345678901234567890.12")};
+
+    private ValidatorFactory factory;
+    private Validator beanValidator;
+    private DealValidator dealValidator;
+
+    @BeforeEach
+    void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        beanValidator = factory.getValidator();
+        dealValidator = new DealValidator();
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.close();
+    }
+
+    @Test
+    void validate_ShouldMatchBeanValidationForEveryCombination() {
+        // Given
+        List<String> mismatches = new ArrayList<>();
+        int combinations = 0;
+
+        // When
+        for (String id : IDS) {
+            for (String from : CURRENCIES) {
+                for (String to : CURRENCIES) {
+                    for (LocalDateTime timestamp : TIMESTAMPS) {
+                        for (BigDecimal amount : AMOUNTS) {
+                            RequestDTO request = new RequestDTO(id, from, to, timestamp, amount);
+                            Set<String> expected = beanValidator.validate(request).stream()
+                                    .map(ConstraintViolation::getMessage)
+                                    .collect(Collectors.toCollection(TreeSet::new));
+                            String actual = dealValidator.validate(request);
+                            Set<String> actualMessages = actual == null
+                                    ? Collections.emptySet()
+                                    : new TreeSet<>(Arrays.asList(actual.split(", ")));
+                            if (!expected.equals(actualMessages) || (actual == null) != expected.isEmpty()) {
+                                mismatches.add(request + ": expected " + expected + " but was " + actual);
+                            }
+                            if (timestamp != null && amount != null) {
+                                DealRecord record = DealRecord.of(id, from, to, timestamp, amount);
+                                if (!Objects.equals(actual, dealValidator.validate(record))) {
+                                    mismatches.add(record + ": expected " + actual + " but was " + dealValidator.validate(record));
+                                }
+                            }
+                            combinations++;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Then
+        assertEquals(IDS.length * CURRENCIES.length * CURRENCIES.length * TIMESTAMPS.length * AMOUNTS.length, combinations);
+        assertTrue(mismatches.isEmpty(), mismatches.size() + " mismatches, e.g. " + mismatches.stream().limit(5).toList());
+    }
+
+    @Test
+    void validate_ShouldListMessagesInFieldOrder() {
+        // When
+        String errors = dealValidator.validate("", "usd", "usd", null, new BigDecimal("0.001"));
+
+        // Then
+        assertEquals("Deal ID cannot be blank, Deal ID must be between 1 and 50 characters, "
+                + "Currency code must be an ISO 4217 code, Currency code must be an ISO 4217 code, "
+                + "From and to currency must be different, Deal timestamp cannot be null, "
+                + "Deal amount must be greater than 0", errors);
+    }
+
+    @Test
+    void validate_WithValidDeal_ShouldNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        // Coverage probes allocate on their own
+        assumeFalse(ManagementFactory.getRuntimeMXBean().getInputArguments().stream().anyMatch(arg -> arg.contains("jacoco")));
+
+        // Given
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 15, 10, 30);
+        BigDecimal amount = new BigDecimal("1000.00");
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 20_000; i++) {
+            dealValidator.validate("DEAL001", "USD", "EUR", timestamp, amount);
+        }
+
+        // When
+        long before = threads.getThreadAllocatedBytes(threadId);
+        String error = null;
+        for (int i = 0; i < 100_000; i++) {
+            error = dealValidator.validate("DEAL001", "USD", "EUR", timestamp, amount);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Then
+        assertNull(error);
+        // Well under a byte per call: only the measurement itself may allocate
+        assertTrue(allocated < 10_000, allocated + " bytes allocated for 100000 valid deals");
+    }
+
+    @Test
+    void validate_WithValidRecord_ShouldNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        assumeFalse(ManagementFactory.getRuntimeMXBean().getInputArguments().stream().anyMatch(arg -> arg.contains("jacoco")));
+
+        // Given
+        DealRecord record = DealRecord.of("DEAL001", "USD", "EUR", LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("1000.00"));
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 20_000; i++) {
+            dealValidator.validate(record);
+        }
+
+        // When
+        long before = threads.getThreadAllocatedBytes(threadId);
+        String error = null;
+        for (int i = 0; i < 100_000; i++) {
+            error = dealValidator.validate(record);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Then
+        assertNull(error);
+        assertTrue(allocated < 10_000, allocated + " bytes allocated for 100000 valid records");
+    }
+}